@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.config;
+
+/**
+ * How an observer decides that a file found in its directory is completely written.
+ */
+public enum CompletenessMode {
+  /**
+   * Files are processed as soon as they are found.
+   */
+  NONE,
+  /**
+   * Files are processed once their size and modification time are unchanged for a number of polls.
+   */
+  STABLE,
+  /**
+   * Files are processed once a marker file, named after them with a suffix, exists.
+   */
+  MARKER,
+  /**
+   * Files are written under a temporary name, which is ignored, and renamed once complete.
+   */
+  RENAME
+}
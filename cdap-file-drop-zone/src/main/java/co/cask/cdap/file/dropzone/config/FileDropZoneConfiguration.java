@@ -32,6 +32,13 @@ public interface FileDropZoneConfiguration extends Configuration {
    */
   long getPollingInterval();
 
+  /**
+   * Retrieves how the observed directories are checked for new files
+   *
+   * @return polling mode
+   */
+  PollingMode getPollingMode();
+
   /**
    * Retrieves configuration of each observer
    *
@@ -33,6 +33,7 @@ public class FileDropZoneConfigurationImpl extends ConfigurationImpl implements
 
   private static final Logger LOG = LoggerFactory.getLogger(FileDropZoneConfigurationImpl.class);
   private static final String DEFAULT_POLLING_INTERVAL = "5000";
+  private static final String DEFAULT_POLLING_MODE = "poll";
   private static final String DEFAULT_WORK_DIR = "/var/file-drop-zone/";
 
   public FileDropZoneConfigurationImpl(Properties properties) {
@@ -44,9 +45,15 @@ public class FileDropZoneConfigurationImpl extends ConfigurationImpl implements
     return Long.parseLong(getProperty("polling_interval", DEFAULT_POLLING_INTERVAL));
   }
 
+  @Override
+  public PollingMode getPollingMode() {
+    return PollingMode.valueOf(getProperty("polling_mode", DEFAULT_POLLING_MODE).toUpperCase());
+  }
+
   @Override
   public List<ObserverConfiguration> getObserverConfiguration() {
     String[] observers = getRequiredProperty("observers").split(",");
+    boolean watched = getPollingMode() == PollingMode.WATCH;
     List<ObserverConfiguration> observersConfiguration = new ArrayList<ObserverConfiguration>(observers.length);
     for (String observer : observers) {
       String pipe = getRequiredProperty("observers." + observer + ".pipe");
@@ -63,7 +70,14 @@ public class FileDropZoneConfigurationImpl extends ConfigurationImpl implements
       }
       newProperties.put("pipes." + pipe + ".source.work_dir", getWorkDir() + observer);
       newProperties.put("pipes." + pipe + ".source.read_rotated_files", "false");
-      observersConfiguration.add(new ObserverConfigurationImpl(observer, newProperties, pipe));
+      ObserverConfiguration observerConfiguration = new ObserverConfigurationImpl(observer, newProperties, pipe);
+      // a watched dir reports a file once, when it is created, so a file copied in must be waited for
+      if (watched && observerConfiguration.getCompletenessMode() == CompletenessMode.NONE) {
+        LOG.error("Observer {} has no completeness mode, but its directory is watched", observer);
+        throw new ConfigurationLoaderException("Property observers." + observer + ".completeness must be stable, " +
+                                                 "marker or rename, when polling_mode is watch");
+      }
+      observersConfiguration.add(observerConfiguration);
     }
     return observersConfiguration;
   }
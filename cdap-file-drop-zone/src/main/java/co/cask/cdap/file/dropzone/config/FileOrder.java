@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.config;
+
+/**
+ * Order in which the pending files of an observer are processed.
+ */
+public enum FileOrder {
+  /**
+   * Files are processed in the order they were found.
+   */
+  FIFO,
+  /**
+   * Files with the oldest modification time are processed first.
+   */
+  OLDEST_FIRST,
+  /**
+   * Smallest files are processed first.
+   */
+  SMALLEST_FIRST
+}
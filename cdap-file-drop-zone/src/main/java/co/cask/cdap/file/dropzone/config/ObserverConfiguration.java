@@ -53,4 +53,68 @@ public interface ObserverConfiguration {
    * @return the pipe configuration of this observer
    */
   PipeConfiguration getPipeConf();
+
+  /**
+   * Retrieves the maximum number of files of this observer processed at the same time
+   *
+   * @return the maximum number of concurrently processed files
+   */
+  int getMaxConcurrentFiles();
+
+  /**
+   * Retrieves the order in which the pending files of this observer are processed
+   *
+   * @return the order of the pending files
+   */
+  FileOrder getFileOrder();
+
+  /**
+   * Retrieves how the files of this observer are sent to the Stream
+   *
+   * @return the upload mode of this observer
+   */
+  UploadMode getUploadMode();
+
+  /**
+   * Retrieves the size in bytes of the chunks the files are split into in bulk upload mode
+   *
+   * @return the size of the chunks
+   */
+  long getBulkChunkSize();
+
+  /**
+   * Retrieves the maximum number of chunks of a file being written at the same time in bulk upload mode
+   *
+   * @return the maximum number of chunks in flight per file
+   */
+  int getBulkChunksInFlight();
+
+  /**
+   * Retrieves how this observer decides that a file is completely written
+   *
+   * @return the completeness mode of this observer
+   */
+  CompletenessMode getCompletenessMode();
+
+  /**
+   * Retrieves the number of consecutive polls a file must keep the same size and modification time, in the stable
+   * completeness mode
+   *
+   * @return the number of stable polls
+   */
+  int getStablePolls();
+
+  /**
+   * Retrieves the suffix of the marker file names, in the marker completeness mode
+   *
+   * @return the suffix of the marker files
+   */
+  String getMarkerSuffix();
+
+  /**
+   * Retrieves the regular expression matching the temporary file names, in the rename completeness mode
+   *
+   * @return the pattern of the temporary file names
+   */
+  String getTemporaryFilePattern();
 }
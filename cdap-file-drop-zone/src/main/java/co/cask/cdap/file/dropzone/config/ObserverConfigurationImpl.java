@@ -27,6 +27,16 @@ import java.util.Properties;
  */
 public class ObserverConfigurationImpl implements ObserverConfiguration {
 
+  private static final String DEFAULT_MAX_CONCURRENT_FILES = "4";
+  private static final String DEFAULT_FILE_ORDER = "fifo";
+  private static final String DEFAULT_UPLOAD_MODE = "tail";
+  private static final String DEFAULT_BULK_CHUNK_SIZE = "8388608";
+  private static final String DEFAULT_BULK_CHUNKS_IN_FLIGHT = "2";
+  private static final String DEFAULT_COMPLETENESS = "none";
+  private static final String DEFAULT_STABLE_POLLS = "2";
+  private static final String DEFAULT_MARKER_SUFFIX = ".done";
+  private static final String DEFAULT_TEMPORARY_FILE_PATTERN = "\\..*|.*\\.tmp";
+
   private final String name;
   private final String key;
   private final String keyPath;
@@ -66,4 +76,61 @@ public class ObserverConfigurationImpl implements ObserverConfiguration {
   public PipeConfiguration getPipeConf() {
     return pipeConfiguration;
   }
+
+  @Override
+  public int getMaxConcurrentFiles() {
+    return Integer.parseInt(getProperty("max_concurrent_files", DEFAULT_MAX_CONCURRENT_FILES));
+  }
+
+  @Override
+  public FileOrder getFileOrder() {
+    return FileOrder.valueOf(getProperty("file_order", DEFAULT_FILE_ORDER).toUpperCase());
+  }
+
+  @Override
+  public UploadMode getUploadMode() {
+    return UploadMode.valueOf(getProperty("upload_mode", DEFAULT_UPLOAD_MODE).toUpperCase());
+  }
+
+  @Override
+  public long getBulkChunkSize() {
+    return Long.parseLong(getProperty("bulk_chunk_size", DEFAULT_BULK_CHUNK_SIZE));
+  }
+
+  @Override
+  public int getBulkChunksInFlight() {
+    return Integer.parseInt(getProperty("bulk_chunks_in_flight", DEFAULT_BULK_CHUNKS_IN_FLIGHT));
+  }
+
+  @Override
+  public CompletenessMode getCompletenessMode() {
+    return CompletenessMode.valueOf(getProperty("completeness", DEFAULT_COMPLETENESS).toUpperCase());
+  }
+
+  @Override
+  public int getStablePolls() {
+    return Integer.parseInt(getProperty("stable_polls", DEFAULT_STABLE_POLLS));
+  }
+
+  @Override
+  public String getMarkerSuffix() {
+    return getProperty("marker_suffix", DEFAULT_MARKER_SUFFIX);
+  }
+
+  @Override
+  public String getTemporaryFilePattern() {
+    return getProperty("temporary_file_pattern", DEFAULT_TEMPORARY_FILE_PATTERN);
+  }
+
+  /**
+   * Return property value of this observer
+   *
+   * @param name The property name, relative to the observer
+   * @param defaultValue The default value of property
+   * @return property value
+   */
+  private String getProperty(String name, String defaultValue) {
+    String value = properties.getProperty("observers." + this.name + "." + name);
+    return value != null && !value.trim().equals("") ? value : defaultValue;
+  }
 }
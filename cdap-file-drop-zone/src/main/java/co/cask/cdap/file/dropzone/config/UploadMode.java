@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.config;
+
+/**
+ * How the files of an observer are sent to the Stream.
+ */
+public enum UploadMode {
+  /**
+   * Files are read line by line by a pipe, as the File Tailer reads log files.
+   */
+  TAIL,
+  /**
+   * Files are split into large chunks of whole lines, each chunk being sent in one request straight from the file.
+   */
+  BULK
+}
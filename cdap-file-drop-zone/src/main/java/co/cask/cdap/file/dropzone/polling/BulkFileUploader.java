@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling;
+
+import co.cask.cdap.client.StreamWriter;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sends a whole file to a Stream, in chunks of whole lines each written in one batch request. The chunks are
+ * streamed from the file by the writer, so neither the file nor its events are loaded in memory.
+ * At most the given number of chunks of a file are written at the same time: the next chunk is sent by the
+ * given executor once an earlier one is written, never by the thread completing the write.
+ */
+public class BulkFileUploader {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BulkFileUploader.class);
+
+  private static final byte LINE_SEPARATOR = '\n';
+  private static final int SCAN_BUFFER_SIZE = 8192;
+
+  private final StreamWriter writer;
+  private final long chunkSize;
+  private final int maxChunksInFlight;
+  private final Executor executor;
+
+  /**
+   * Creates an uploader splitting files in chunks of about the given size.
+   *
+   * @param writer the writer of the Stream
+   * @param chunkSize the size in bytes of a chunk, which is extended to the end of its last line
+   * @param maxChunksInFlight the maximum number of chunks of a file written at the same time
+   * @param executor the executor sending the next chunks as earlier ones are written
+   */
+  public BulkFileUploader(StreamWriter writer, long chunkSize, int maxChunksInFlight, Executor executor) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    if (maxChunksInFlight < 1) {
+      throw new IllegalArgumentException("Maximum number of chunks in flight must be positive: " +
+                                           maxChunksInFlight);
+    }
+    this.writer = writer;
+    this.chunkSize = chunkSize;
+    this.maxChunksInFlight = maxChunksInFlight;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts sending a file, which must not change until the returned future completes.
+   *
+   * @param file the file to send
+   * @return the future completed once all chunks are written, failed if any chunk is not written
+   * @throws IOException if the file cannot be opened
+   */
+  public ListenableFuture<Void> upload(File file) throws IOException {
+    FileUpload upload = new FileUpload(file);
+    upload.sendChunks();
+    return upload.result;
+  }
+
+  /**
+   * Finds the end of the chunk starting at the given offset: just after the first line separator from the
+   * chunk size on, or the end of file.
+   *
+   * @param channel the channel of the file
+   * @param start the offset of the chunk
+   * @param size the size of the file
+   * @return the offset following the chunk
+   * @throws IOException if the file cannot be read
+   */
+  long getChunkEnd(FileChannel channel, long start, long size) throws IOException {
+    long position = start + Math.min(chunkSize, size - start) - 1;
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    while (position < size) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == LINE_SEPARATOR) {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  /**
+   * Upload of one file, keeping track of its chunks in flight. The file is kept open to find the chunk ends.
+   */
+  private final class FileUpload implements FutureCallback<Void>, Runnable {
+    private final File file;
+    private final FileInputStream in;
+    private final long size;
+    private final SettableFuture<Void> result = SettableFuture.create();
+    private long nextChunkStart;
+    private int chunksInFlight;
+
+    private FileUpload(File file) throws IOException {
+      this.file = file;
+      this.in = new FileInputStream(file);
+      this.size = in.getChannel().size();
+    }
+
+    /**
+     * Sends the next chunks, while fewer than the maximum are in flight, and completes the upload once all chunks
+     * are written. The writer is called outside of the lock, as a write may wait for room, which the completion
+     * of an earlier chunk makes.
+     */
+    private void sendChunks() {
+      try {
+        long[] chunk;
+        while ((chunk = nextChunk()) != null) {
+          LOG.debug("Sending bytes {} to {} of file {}", chunk[0], chunk[1], file);
+          Futures.addCallback(writer.writeBatch(file, chunk[0], chunk[1] - chunk[0]), this);
+        }
+      } catch (IOException e) {
+        complete(e);
+        return;
+      }
+      if (isWritten()) {
+        complete(null);
+      }
+    }
+
+    /**
+     * Takes the next chunk to send, if fewer than the maximum are in flight.
+     *
+     * @return the start and end offsets of the chunk; <code>null</code> if no chunk is to be sent now
+     * @throws IOException if the file cannot be read
+     */
+    private synchronized long[] nextChunk() throws IOException {
+      if (result.isDone() || chunksInFlight >= maxChunksInFlight || nextChunkStart >= size) {
+        return null;
+      }
+      long start = nextChunkStart;
+      nextChunkStart = getChunkEnd(in.getChannel(), start, size);
+      chunksInFlight++;
+      return new long[] { start, nextChunkStart };
+    }
+
+    private synchronized boolean isWritten() {
+      return nextChunkStart >= size && chunksInFlight == 0;
+    }
+
+    @Override
+    public void run() {
+      sendChunks();
+    }
+
+    @Override
+    public void onSuccess(Void written) {
+      synchronized (this) {
+        chunksInFlight--;
+      }
+      try {
+        executor.execute(this);
+      } catch (RejectedExecutionException e) {
+        complete(e);
+      }
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+      synchronized (this) {
+        chunksInFlight--;
+      }
+      complete(t);
+    }
+
+    /**
+     * Closes the file and completes the upload, unless it is already complete.
+     *
+     * @param failure the failure of the upload; <code>null</code> if all chunks are written
+     */
+    private void complete(Throwable failure) {
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        in.close();
+      } catch (IOException e) {
+        LOG.warn("Cannot close file {}: {}", file, e.getMessage());
+      }
+      if (failure == null) {
+        result.set(null);
+      } else {
+        result.setException(failure);
+      }
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling;
+
+import co.cask.cdap.file.dropzone.config.FileOrder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounds the number of files of an observer processed at the same time. Files submitted while all slots are busy
+ * wait in a queue ordered by the {@link FileOrder} of the observer, and are started as processed files complete.
+ * The files are started by a thread of the scheduler, never by the thread submitting a file or completing one:
+ * a file completes in the callback of its last write, which must not wait for the writes of the next file.
+ */
+public class FileProcessingScheduler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileProcessingScheduler.class);
+
+  private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+  private final FileProcessor processor;
+  private final int maxConcurrentFiles;
+  private final PriorityQueue<PendingFile> pendingFiles;
+  private final Set<String> scheduledFiles = new HashSet<String>();
+  private final ExecutorService starter;
+  private final Runnable startTask = new Runnable() {
+    @Override
+    public void run() {
+      startPendingFiles();
+    }
+  };
+  private int activeFiles;
+  private long sequence;
+  private boolean closed;
+
+  /**
+   * Creates a scheduler starting at most the given number of files at the same time.
+   *
+   * @param processor the processor of the files
+   * @param maxConcurrentFiles the maximum number of files processed at the same time
+   * @param order the order of the pending files
+   */
+  public FileProcessingScheduler(FileProcessor processor, int maxConcurrentFiles, FileOrder order) {
+    if (maxConcurrentFiles < 1) {
+      throw new IllegalArgumentException("Maximum number of concurrent files must be positive: " +
+                                           maxConcurrentFiles);
+    }
+    this.processor = processor;
+    this.maxConcurrentFiles = maxConcurrentFiles;
+    this.pendingFiles = new PriorityQueue<PendingFile>(INITIAL_QUEUE_CAPACITY, getComparator(order));
+    this.starter = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("file-starter-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Schedules the processing of a file, which is started as soon as a slot is free.
+   *
+   * @param file the file to process
+   * @return false if the file is already pending or processed, or if the scheduler is closed
+   */
+  public boolean submit(File file) {
+    synchronized (this) {
+      if (closed || !scheduledFiles.add(file.getAbsolutePath())) {
+        return false;
+      }
+      pendingFiles.add(new PendingFile(file, sequence++));
+      LOG.debug("File {} scheduled; {} files pending, {} in progress", file, pendingFiles.size(), activeFiles);
+    }
+    scheduleStart();
+    return true;
+  }
+
+  /**
+   * Releases the slot of a processed file, successfully or not, and starts the next pending files.
+   *
+   * @param file the processed file
+   */
+  public void onFileProcessed(File file) {
+    synchronized (this) {
+      if (!scheduledFiles.remove(file.getAbsolutePath())) {
+        return;
+      }
+      activeFiles--;
+    }
+    scheduleStart();
+  }
+
+  /**
+   * Discards the pending files; the files in progress are not interrupted.
+   */
+  public synchronized void close() {
+    closed = true;
+    for (PendingFile pendingFile : pendingFiles) {
+      scheduledFiles.remove(pendingFile.file.getAbsolutePath());
+    }
+    pendingFiles.clear();
+    starter.shutdown();
+  }
+
+  /**
+   * Retrieves the number of files waiting for a free slot.
+   *
+   * @return the number of pending files
+   */
+  public synchronized int getPendingFiles() {
+    return pendingFiles.size();
+  }
+
+  /**
+   * Retrieves the number of files in progress.
+   *
+   * @return the number of files in progress
+   */
+  public synchronized int getActiveFiles() {
+    return activeFiles;
+  }
+
+  /**
+   * Hands the start of the pending files over to the thread of the scheduler.
+   */
+  private void scheduleStart() {
+    try {
+      starter.execute(startTask);
+    } catch (RejectedExecutionException e) {
+      LOG.debug("Scheduler is closed; no pending files are started");
+    }
+  }
+
+  /**
+   * Starts pending files while slots are free. The processor is called outside of the lock, so it may complete
+   * a file, and so reenter this scheduler, from the thread of the scheduler.
+   */
+  private void startPendingFiles() {
+    List<File> files = new ArrayList<File>();
+    synchronized (this) {
+      while (!closed && activeFiles < maxConcurrentFiles && !pendingFiles.isEmpty()) {
+        files.add(pendingFiles.poll().file);
+        activeFiles++;
+      }
+    }
+    for (File file : files) {
+      try {
+        processor.process(file);
+      } catch (Exception e) {
+        LOG.error("Cannot start processing file {}", file, e);
+        onFileProcessed(file);
+      }
+    }
+  }
+
+  private static Comparator<PendingFile> getComparator(FileOrder order) {
+    switch (order) {
+      case OLDEST_FIRST:
+        return new Comparator<PendingFile>() {
+          @Override
+          public int compare(PendingFile first, PendingFile second) {
+            int result = compareLongs(first.lastModified, second.lastModified);
+            return result != 0 ? result : compareLongs(first.sequence, second.sequence);
+          }
+        };
+      case SMALLEST_FIRST:
+        return new Comparator<PendingFile>() {
+          @Override
+          public int compare(PendingFile first, PendingFile second) {
+            int result = compareLongs(first.length, second.length);
+            return result != 0 ? result : compareLongs(first.sequence, second.sequence);
+          }
+        };
+      default:
+        return new Comparator<PendingFile>() {
+          @Override
+          public int compare(PendingFile first, PendingFile second) {
+            return compareLongs(first.sequence, second.sequence);
+          }
+        };
+    }
+  }
+
+  private static int compareLongs(long first, long second) {
+    return first < second ? -1 : (first == second ? 0 : 1);
+  }
+
+  /**
+   * Starts the processing of a file.
+   */
+  public interface FileProcessor {
+
+    /**
+     * Starts the processing of a file; {@link FileProcessingScheduler#onFileProcessed(File)} is to be called
+     * once it completes.
+     *
+     * @param file the file to process
+     * @throws IOException if the processing cannot be started
+     */
+    void process(File file) throws IOException;
+  }
+
+  /**
+   * A file waiting for a free slot, with its attributes at the time it was scheduled, so that its position
+   * in the queue does not change while it is written.
+   */
+  private static final class PendingFile {
+    private final File file;
+    private final long sequence;
+    private final long lastModified;
+    private final long length;
+
+    private PendingFile(File file, long sequence) {
+      this.file = file;
+      this.sequence = sequence;
+      this.lastModified = file.lastModified();
+      this.length = file.length();
+    }
+  }
+}
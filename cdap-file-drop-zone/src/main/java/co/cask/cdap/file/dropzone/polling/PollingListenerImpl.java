@@ -19,6 +19,7 @@ package co.cask.cdap.file.dropzone.polling;
 import co.cask.cdap.client.StreamClient;
 import co.cask.cdap.client.StreamWriter;
 import co.cask.cdap.file.dropzone.config.ObserverConfiguration;
+import co.cask.cdap.file.dropzone.config.UploadMode;
 import co.cask.cdap.filetailer.Pipe;
 import co.cask.cdap.filetailer.PipeListener;
 import co.cask.cdap.filetailer.config.PipeConfiguration;
@@ -29,21 +30,35 @@ import co.cask.cdap.filetailer.sink.SinkStrategy;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessorImpl;
 import co.cask.cdap.filetailer.tailer.LogTailer;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * The listener for polling dirs with some time interval
+ * The listener for polling dirs with some time interval. At most {@link ObserverConfiguration#getMaxConcurrentFiles()}
+ * new files are processed at the same time, either tailed by pipes or uploaded in bulk, all sending their events
+ * through the same Stream writer.
  */
-public class PollingListenerImpl implements PollingListener {
+public class PollingListenerImpl implements PollingListener, Closeable, FileProcessingScheduler.FileProcessor {
 
   private static final Logger LOG = LoggerFactory.getLogger(PollingListenerImpl.class);
   private PollingService monitor;
   private final ObserverConfiguration observerConf;
   private FileTailerMetricsProcessor metricsProcessor;
+  private final FileProcessingScheduler scheduler;
+  private final ExecutorService uploadExecutor;
+  private StreamClient client;
+  private StreamWriter writer;
 
   public PollingListenerImpl(PollingService monitor, ObserverConfiguration observerConf) {
     this.monitor = monitor;
@@ -55,18 +70,107 @@ public class PollingListenerImpl implements PollingListener {
                                                       observerConf.getPipeConf().
                                                         getSourceConfiguration().getWorkDir().getName());
     metricsProcessor.startAsync().awaitRunning();
+    scheduler = new FileProcessingScheduler(this, observerConf.getMaxConcurrentFiles(), observerConf.getFileOrder());
+    uploadExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("bulk-upload-%d").setDaemon(true).build());
   }
 
   @Override
   public void onFileCreate(File file) throws IOException {
     LOG.info("File Added: {}", file.getAbsolutePath());
+    if (!scheduler.submit(file)) {
+      LOG.debug("File {} already scheduled", file.getAbsolutePath());
+    }
+  }
+
+  @Override
+  public void process(File file) throws IOException {
+    if (observerConf.getUploadMode() == UploadMode.BULK) {
+      upload(file);
+    } else {
+      tail(file);
+    }
+  }
+
+  /**
+   * Sends the file in chunks of whole lines, straight from the file. A file, which failed to upload, is
+   * uploaded again once the observer checks it anew.
+   *
+   * @param file the file to send
+   * @throws IOException if the upload cannot be started
+   */
+  private void upload(final File file) throws IOException {
+    PipeConfiguration pipeConfiguration = observerConf.getPipeConf();
+    final File directory = pipeConfiguration.getSourceConfiguration().getWorkDir();
+    BulkFileUploader uploader = new BulkFileUploader(getStreamWriter(pipeConfiguration),
+                                                     observerConf.getBulkChunkSize(),
+                                                     observerConf.getBulkChunksInFlight(), uploadExecutor);
+    LOG.info("Start uploading file: {}", file.getAbsolutePath());
+    Futures.addCallback(uploader.upload(file), new FutureCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {
+        LOG.info("File {} already uploaded", file.getAbsolutePath());
+        try {
+          monitor.removeFile(directory, file);
+        } finally {
+          scheduler.onFileProcessed(file);
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        LOG.error("Failed to upload file: {}", file.getAbsolutePath(), t);
+        try {
+          monitor.retryFile(directory, file);
+        } finally {
+          scheduler.onFileProcessed(file);
+        }
+      }
+    });
+  }
+
+  /**
+   * Reads the file line by line through a pipe
+   *
+   * @param file the file to read
+   * @throws IOException if the pipe cannot be setup
+   */
+  private void tail(final File file) throws IOException {
     LOG.debug("Start configure pipe for file: {}", file.getAbsolutePath());
     Pipe pipe = setupPipe(file);
     LOG.debug("Pipe for file {} successfully configured", file.getAbsolutePath());
+    pipe.addListener(new Service.Listener() {
+      @Override
+      public void terminated(Service.State from) {
+        scheduler.onFileProcessed(file);
+      }
+
+      @Override
+      public void failed(Service.State from, Throwable failure) {
+        LOG.error("Failed to process file: {}", file.getAbsolutePath(), failure);
+        scheduler.onFileProcessed(file);
+      }
+    }, MoreExecutors.sameThreadExecutor());
     LOG.info("Start processing file: {}", file.getAbsolutePath());
     pipe.startAsync();
   }
 
+  /**
+   * Discards the pending files and closes the Stream writer of this observer.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    scheduler.close();
+    uploadExecutor.shutdown();
+    metricsProcessor.stopAsync();
+    if (writer != null) {
+      writer.close();
+    }
+    if (client != null) {
+      client.close();
+    }
+  }
+
   @Override
   public void onException(Exception exception) {
     LOG.error("Error", exception);
@@ -80,7 +184,7 @@ public class PollingListenerImpl implements PollingListener {
   private Pipe setupPipe(File file) throws IOException {
     PipeConfiguration pipeConfiguration = observerConf.getPipeConfiguration(file.getName());
     FileTailerQueue queue = new FileTailerQueue(pipeConfiguration.getQueueSize());
-    StreamWriter writer = getStreamWriterForPipe(pipeConfiguration);
+    StreamWriter writer = getStreamWriter(pipeConfiguration);
     FileTailerStateProcessor stateProcessor =
       new FileTailerStateProcessorImpl(observerConf.getDaemonDir(), pipeConfiguration.getStateFile());
     PipeListener pipeListener = new PipeListenerImpl(pipeConfiguration.getSourceConfiguration().getWorkDir(),
@@ -95,18 +199,23 @@ public class PollingListenerImpl implements PollingListener {
   }
 
   /**
-   * create StreamWriter for pipe
+   * Return the StreamWriter of the observer, shared by the pipes of all its files
    *
    * @param pipeConf the pipe configuration
-   * @return the pipe's streamWriter
+   * @return the observer's streamWriter
    * @throws java.io.IOException streamWriter creation failed
    */
-  private StreamWriter getStreamWriterForPipe(PipeConfiguration pipeConf) throws IOException {
-    StreamClient client = pipeConf.getSinkConfiguration().getStreamClient();
+  private synchronized StreamWriter getStreamWriter(PipeConfiguration pipeConf) throws IOException {
+    if (writer != null) {
+      return writer;
+    }
+    if (client == null) {
+      client = pipeConf.getSinkConfiguration().getStreamClient();
+    }
     String streamName = pipeConf.getSinkConfiguration().getStreamName();
     try {
       client.create(streamName);
-      StreamWriter writer = client.createWriter(streamName);
+      writer = client.createWriter(streamName);
       return writer;
     } catch (IOException e) {
       throw new IOException(String.format("Cannot create/get client stream by name: %s: %s", streamName, e));
@@ -16,6 +16,8 @@
 
 package co.cask.cdap.file.dropzone.polling;
 
+import co.cask.cdap.file.dropzone.polling.completeness.FileCompletenessPolicy;
+
 import java.io.File;
 
 /**
@@ -45,6 +47,15 @@ public interface PollingService {
    */
   void registerDirMonitor(File dir, PollingListener listener);
 
+  /**
+   * Register new Observer to start monitor specified directory, notifying the files once complete
+   *
+   * @param dir the observed directory
+   * @param listener the listener for listen create new file event
+   * @param completenessPolicy the policy deciding whether a file is completely written
+   */
+  void registerDirMonitor(File dir, PollingListener listener, FileCompletenessPolicy completenessPolicy);
+
   /**
    * Remove processed File from the observed directory
    *
@@ -52,4 +63,12 @@ public interface PollingService {
    * @param file the processed File to remove
    */
   void removeFile(File folder, File file);
+
+  /**
+   * Forget a File, whose processing failed, so it is processed again once checked anew
+   *
+   * @param folder the observed directory
+   * @param file the File to process again
+   */
+  void retryFile(File folder, File file);
 }
@@ -16,23 +16,38 @@
 
 package co.cask.cdap.file.dropzone.polling;
 
+import co.cask.cdap.file.dropzone.config.CompletenessMode;
 import co.cask.cdap.file.dropzone.config.FileDropZoneConfiguration;
 import co.cask.cdap.file.dropzone.config.FileDropZoneConfigurationImpl;
 import co.cask.cdap.file.dropzone.config.ObserverConfiguration;
+import co.cask.cdap.file.dropzone.config.PollingMode;
+import co.cask.cdap.file.dropzone.polling.completeness.FileCompletenessPolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.ImmediatePolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.MarkerFilePolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.RenamePolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.StableSizePolicy;
 import co.cask.cdap.file.dropzone.polling.dir.DirPollingService;
+import co.cask.cdap.file.dropzone.polling.dir.DirWatchService;
 import co.cask.cdap.filetailer.config.Configuration;
 import co.cask.cdap.filetailer.config.ConfigurationLoader;
 import co.cask.cdap.filetailer.config.ConfigurationLoaderImpl;
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoadingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Creates and manage polling service
  */
 public class PollingServiceManager {
+  private static final Logger LOG = LoggerFactory.getLogger(PollingServiceManager.class);
+
   private final File confFile;
+  private final List<PollingListenerImpl> listeners = new ArrayList<PollingListenerImpl>();
   private PollingService monitor;
   private FileDropZoneConfiguration configuration;
 
@@ -43,11 +58,15 @@ public class PollingServiceManager {
   /**
    * Polling service manager setup
    *
-   * @throws ConfigurationLoadingException if can not setup polling service manager
+   * @throws IOException if can not setup polling service manager
    */
-  public void initManager() throws ConfigurationLoadingException {
+  public void initManager() throws IOException {
     this.configuration = getConfiguration();
-    this.monitor = new DirPollingService(configuration.getPollingInterval());
+    if (configuration.getPollingMode() == PollingMode.WATCH) {
+      this.monitor = new DirWatchService(configuration.getPollingInterval());
+    } else {
+      this.monitor = new DirPollingService(configuration.getPollingInterval());
+    }
   }
 
   /**
@@ -56,8 +75,30 @@ public class PollingServiceManager {
   public void initObservers() {
     List<ObserverConfiguration> observerConfList = configuration.getObserverConfiguration();
     for (ObserverConfiguration observerConf : observerConfList) {
-      monitor.registerDirMonitor(observerConf.getPipeConf().getSourceConfiguration().getWorkDir(),
-                                 new PollingListenerImpl(monitor, observerConf));
+      PollingListenerImpl listener = new PollingListenerImpl(monitor, observerConf);
+      listeners.add(listener);
+      monitor.registerDirMonitor(observerConf.getPipeConf().getSourceConfiguration().getWorkDir(), listener,
+                                 getCompletenessPolicy(observerConf));
+    }
+  }
+
+  /**
+   * Return the policy deciding whether the files of an observer are completely written
+   *
+   * @param observerConf the observer configuration
+   * @return the completeness policy of the observer
+   */
+  private FileCompletenessPolicy getCompletenessPolicy(ObserverConfiguration observerConf) {
+    CompletenessMode mode = observerConf.getCompletenessMode();
+    switch (mode) {
+      case STABLE:
+        return new StableSizePolicy(observerConf.getStablePolls());
+      case MARKER:
+        return new MarkerFilePolicy(observerConf.getMarkerSuffix());
+      case RENAME:
+        return new RenamePolicy(observerConf.getTemporaryFilePattern());
+      default:
+        return new ImmediatePolicy();
     }
   }
 
@@ -81,10 +122,17 @@ public class PollingServiceManager {
   }
 
   /**
-   * Stop polling service
+   * Stop polling service, and close the Stream writers of the observers
    */
   public void stopMonitor() throws Exception {
     monitor.stop();
+    for (PollingListenerImpl listener : listeners) {
+      try {
+        listener.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close the listener {}", listener, e);
+      }
+    }
   }
 
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.completeness;
+
+import java.io.File;
+
+/**
+ * Decides whether a file found in an observed directory is completely written, and so may be processed.
+ */
+public interface FileCompletenessPolicy {
+
+  /**
+   * Retrieves the file to process for a file found in the observed directory.
+   *
+   * @param file the file found in the observed directory
+   * @return the file itself, the file it completes, or null if it is never to be processed
+   */
+  File getDataFile(File file);
+
+  /**
+   * Checks whether the file is completely written. Invoked at every check of the file until it returns true.
+   *
+   * @param file the file to process
+   * @return true if the file may be processed
+   */
+  boolean isComplete(File file);
+
+  /**
+   * Invoked when a file is not checked anymore, because it was removed, processed or not.
+   *
+   * @param file the file to process
+   */
+  void onRemoved(File file);
+}
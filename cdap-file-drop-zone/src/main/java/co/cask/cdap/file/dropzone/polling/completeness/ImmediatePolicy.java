@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.completeness;
+
+import java.io.File;
+
+/**
+ * Processes every file as soon as it is found.
+ */
+public class ImmediatePolicy implements FileCompletenessPolicy {
+
+  @Override
+  public File getDataFile(File file) {
+    return file;
+  }
+
+  @Override
+  public boolean isComplete(File file) {
+    return true;
+  }
+
+  @Override
+  public void onRemoved(File file) {
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.completeness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Processes a file once a marker file, named after it with a suffix, exists. The marker is removed
+ * with the file.
+ */
+public class MarkerFilePolicy implements FileCompletenessPolicy {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MarkerFilePolicy.class);
+
+  private final String suffix;
+
+  /**
+   * Creates a policy for the markers with the given suffix.
+   *
+   * @param suffix the suffix of the marker file names, such as ".done"
+   */
+  public MarkerFilePolicy(String suffix) {
+    if (suffix == null || suffix.isEmpty()) {
+      throw new IllegalArgumentException("Marker file suffix is missing");
+    }
+    this.suffix = suffix;
+  }
+
+  @Override
+  public File getDataFile(File file) {
+    String name = file.getName();
+    if (!name.endsWith(suffix)) {
+      return file;
+    }
+    File dataFile = new File(file.getParentFile(), name.substring(0, name.length() - suffix.length()));
+    return dataFile.isFile() ? dataFile : null;
+  }
+
+  @Override
+  public boolean isComplete(File file) {
+    return getMarkerFile(file).exists();
+  }
+
+  @Override
+  public void onRemoved(File file) {
+    File marker = getMarkerFile(file);
+    if (marker.exists() && !marker.delete()) {
+      LOG.warn("Cannot remove marker file {}", marker);
+    }
+  }
+
+  private File getMarkerFile(File file) {
+    return new File(file.getPath() + suffix);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.completeness;
+
+import java.io.File;
+import java.util.regex.Pattern;
+
+/**
+ * Processes the files written under a temporary name and renamed once complete: files whose name matches
+ * the temporary name pattern are ignored, and the others are processed as soon as they are found.
+ */
+public class RenamePolicy implements FileCompletenessPolicy {
+
+  private final Pattern temporaryNamePattern;
+
+  /**
+   * Creates a policy ignoring the files with a temporary name.
+   *
+   * @param temporaryNamePattern the regular expression matching the whole temporary file names
+   */
+  public RenamePolicy(String temporaryNamePattern) {
+    this.temporaryNamePattern = Pattern.compile(temporaryNamePattern);
+  }
+
+  @Override
+  public File getDataFile(File file) {
+    return temporaryNamePattern.matcher(file.getName()).matches() ? null : file;
+  }
+
+  @Override
+  public boolean isComplete(File file) {
+    return true;
+  }
+
+  @Override
+  public void onRemoved(File file) {
+  }
+}
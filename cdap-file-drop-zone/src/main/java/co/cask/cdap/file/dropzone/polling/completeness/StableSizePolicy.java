@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.completeness;
+
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Processes a file once its size and modification time are unchanged for a number of consecutive checks.
+ */
+public class StableSizePolicy implements FileCompletenessPolicy {
+
+  private final int stableChecks;
+  private final Map<String, FileState> states = Maps.newConcurrentMap();
+
+  /**
+   * Creates a policy waiting for the given number of checks after a file was last seen changing.
+   *
+   * @param stableChecks the number of consecutive checks with the same size and modification time
+   */
+  public StableSizePolicy(int stableChecks) {
+    if (stableChecks < 1) {
+      throw new IllegalArgumentException("Number of stable checks must be positive: " + stableChecks);
+    }
+    this.stableChecks = stableChecks;
+  }
+
+  @Override
+  public File getDataFile(File file) {
+    return file;
+  }
+
+  @Override
+  public boolean isComplete(File file) {
+    String path = file.getAbsolutePath();
+    long length = file.length();
+    long lastModified = file.lastModified();
+    FileState state = states.get(path);
+    if (state == null || state.length != length || state.lastModified != lastModified) {
+      states.put(path, new FileState(length, lastModified));
+      return false;
+    }
+    if (++state.stableChecks < stableChecks) {
+      return false;
+    }
+    states.remove(path);
+    return true;
+  }
+
+  @Override
+  public void onRemoved(File file) {
+    states.remove(file.getAbsolutePath());
+  }
+
+  /**
+   * Size and modification time of a file at its last check.
+   */
+  private static final class FileState {
+    private final long length;
+    private final long lastModified;
+    private int stableChecks;
+
+    private FileState(long length, long lastModified) {
+      this.length = length;
+      this.lastModified = lastModified;
+    }
+  }
+}
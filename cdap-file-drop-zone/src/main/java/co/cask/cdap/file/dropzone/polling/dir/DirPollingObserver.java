@@ -17,6 +17,8 @@
 package co.cask.cdap.file.dropzone.polling.dir;
 
 import co.cask.cdap.file.dropzone.polling.PollingListener;
+import co.cask.cdap.file.dropzone.polling.completeness.FileCompletenessPolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.ImmediatePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,11 +26,19 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
- * The Observer for check whether the file have been created and for remove already processed files
+ * The Observer for check whether the file have been created and for remove already processed files.
+ * A created file is only notified once its {@link FileCompletenessPolicy} reports it complete; until then,
+ * it is checked again at every poll.
  */
 public class DirPollingObserver {
   private static final Logger LOG = LoggerFactory.getLogger(DirPollingObserver.class);
@@ -39,6 +49,8 @@ public class DirPollingObserver {
   private final File rootFile;
   private final FileFilter fileFilter;
   private final Set<String> processedFiles;
+  private final FileCompletenessPolicy completenessPolicy;
+  private final Map<String, File> incompleteFiles;
 
   /**
    * Construct an observer for the specified directory.
@@ -46,7 +58,17 @@ public class DirPollingObserver {
    * @param directory the directory to observe
    */
   public DirPollingObserver(File directory, PollingListener listener) {
-    this(directory, listener, null);
+    this(directory, listener, new ImmediatePolicy());
+  }
+
+  /**
+   * Construct an observer for the specified directory, notifying the files once complete.
+   *
+   * @param directory the directory to observe
+   * @param completenessPolicy the policy deciding whether a file is completely written
+   */
+  public DirPollingObserver(File directory, PollingListener listener, FileCompletenessPolicy completenessPolicy) {
+    this(directory, listener, null, completenessPolicy);
   }
 
   /**
@@ -56,6 +78,18 @@ public class DirPollingObserver {
    * @param fileFilter The file filter or null if none
    */
   protected DirPollingObserver(File rootFile, PollingListener listener, FileFilter fileFilter) {
+    this(rootFile, listener, fileFilter, new ImmediatePolicy());
+  }
+
+  /**
+   * Construct an observer for the specified directory, file filter and completeness policy.
+   *
+   * @param rootFile   The root directory to observe
+   * @param fileFilter The file filter or null if none
+   * @param completenessPolicy The policy deciding whether a file is completely written
+   */
+  protected DirPollingObserver(File rootFile, PollingListener listener, FileFilter fileFilter,
+                               FileCompletenessPolicy completenessPolicy) {
     if (rootFile == null) {
       throw new IllegalArgumentException("Root directory is missing");
     }
@@ -63,6 +97,8 @@ public class DirPollingObserver {
     this.fileFilter = fileFilter;
     this.processedFiles = new HashSet<String>();
     this.listener = listener;
+    this.completenessPolicy = completenessPolicy;
+    this.incompleteFiles = new HashMap<String, File>();
   }
 
   /**
@@ -76,6 +112,44 @@ public class DirPollingObserver {
     }
   }
 
+  /**
+   * Check whether the given file of the observed directory has been created.
+   *
+   * @param file the file reported by the file system
+   */
+  public void checkAndNotify(File file) {
+    File dataFile = completenessPolicy.getDataFile(file);
+    if (dataFile != null && dataFile.isFile()) {
+      checkFile(dataFile);
+    }
+  }
+
+  /**
+   * Check again whether the files found incomplete before are complete now.
+   */
+  public void checkIncompleteFiles() {
+    List<File> files;
+    synchronized (this) {
+      files = new ArrayList<File>(incompleteFiles.values());
+    }
+    for (File file : files) {
+      if (file.isFile()) {
+        checkFile(file);
+      } else {
+        forgetIncompleteFile(file);
+      }
+    }
+  }
+
+  /**
+   * Retrieves whether some files found before are not complete yet.
+   *
+   * @return true if some files are waiting to be complete
+   */
+  public synchronized boolean hasIncompleteFiles() {
+    return !incompleteFiles.isEmpty();
+  }
+
   /**
    * Check observed directory for files which have been created.
    *
@@ -83,29 +157,70 @@ public class DirPollingObserver {
    */
   private void checkAndNotify(File[] files) {
     LOG.debug("Waiting for new log files {}", files);
+    // a file and the marker of its completeness are checked once
+    Set<File> dataFiles = new LinkedHashSet<File>();
     for (File file : files) {
       if (!file.isDirectory()) {
-        checkFile(file);
+        File dataFile = completenessPolicy.getDataFile(file);
+        if (dataFile != null) {
+          dataFiles.add(dataFile);
+        }
       }
     }
+    for (File dataFile : dataFiles) {
+      checkFile(dataFile);
+    }
+    forgetRemovedIncompleteFiles();
   }
 
   /**
-   * Fire file created events to the registered listeners.
+   * Forget the incomplete files which have been removed before being complete.
+   */
+  private synchronized void forgetRemovedIncompleteFiles() {
+    Iterator<File> iterator = incompleteFiles.values().iterator();
+    while (iterator.hasNext()) {
+      File file = iterator.next();
+      if (!file.exists()) {
+        iterator.remove();
+        completenessPolicy.onRemoved(file);
+      }
+    }
+  }
+
+  private synchronized void forgetIncompleteFile(File file) {
+    if (incompleteFiles.remove(file.getAbsolutePath()) != null) {
+      completenessPolicy.onRemoved(file);
+    }
+  }
+
+  /**
+   * Fire file created events to the registered listeners. The listener is called outside of the lock of this
+   * observer, as the processing of the file may complete, and so remove the file, from another thread meanwhile.
    *
    * @param file The new file
    */
-  private synchronized void checkFile(File file) {
-    if (!processedFiles.contains(file.getAbsolutePath())) {
-      try {
-        LOG.debug("Start processing file {}", file);
-        listener.onFileCreate(file);
-        processedFiles.add(file.getAbsolutePath());
-      } catch (IOException e) {
-        LOG.error("File has been processed with error {}", e);
+  private void checkFile(File file) {
+    synchronized (this) {
+      if (processedFiles.contains(file.getAbsolutePath())) {
+        LOG.info("File already processed {}.", file);
+        return;
+      }
+      if (!completenessPolicy.isComplete(file)) {
+        LOG.debug("File {} not complete yet", file);
+        incompleteFiles.put(file.getAbsolutePath(), file);
+        return;
+      }
+      incompleteFiles.remove(file.getAbsolutePath());
+      processedFiles.add(file.getAbsolutePath());
+    }
+    try {
+      LOG.debug("Start processing file {}", file);
+      listener.onFileCreate(file);
+    } catch (IOException e) {
+      LOG.error("File has been processed with error {}", e);
+      synchronized (this) {
+        processedFiles.remove(file.getAbsolutePath());
       }
-    } else {
-      LOG.info("File already processed {}.", file);
     }
   }
 
@@ -117,12 +232,25 @@ public class DirPollingObserver {
   public synchronized void removeProcessedFile(File file) {
     if (file.delete()) {
       processedFiles.remove(file.getAbsolutePath());
+      completenessPolicy.onRemoved(file);
     } else {
       listener.onException(new IllegalArgumentException(
         String.format("Cannot remove specified file %s.", file.getAbsolutePath())));
     }
   }
 
+  /**
+   * Forget a file, whose processing failed, so it is checked and notified again at the next check of the
+   * incomplete files, or of the whole directory.
+   *
+   * @param file the file to process again
+   */
+  public synchronized void retryProcessedFile(File file) {
+    if (processedFiles.remove(file.getAbsolutePath())) {
+      incompleteFiles.put(file.getAbsolutePath(), file);
+    }
+  }
+
   /**
    * List the contents of a directory.
    *
@@ -152,6 +280,7 @@ public class DirPollingObserver {
       ", rootFile=" + rootFile +
       ", fileFilter=" + fileFilter +
       ", processedFiles=" + processedFiles +
+      ", completenessPolicy=" + completenessPolicy +
       '}';
   }
 }
@@ -18,6 +18,8 @@ package co.cask.cdap.file.dropzone.polling.dir;
 
 import co.cask.cdap.file.dropzone.polling.PollingListener;
 import co.cask.cdap.file.dropzone.polling.PollingService;
+import co.cask.cdap.file.dropzone.polling.completeness.FileCompletenessPolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.ImmediatePolicy;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,11 +49,16 @@ public class DirPollingService implements Runnable, PollingService {
 
   @Override
   public void registerDirMonitor(File dir, PollingListener listener) {
+    registerDirMonitor(dir, listener, new ImmediatePolicy());
+  }
+
+  @Override
+  public void registerDirMonitor(File dir, PollingListener listener, FileCompletenessPolicy completenessPolicy) {
     if (observers.containsKey(dir.getAbsolutePath())) {
       throw new IllegalArgumentException("Observer for folder {} already registered.");
     }
     createDirs(dir.getAbsolutePath());
-    DirPollingObserver observer = new DirPollingObserver(dir, listener);
+    DirPollingObserver observer = new DirPollingObserver(dir, listener, completenessPolicy);
     observers.put(dir.getAbsolutePath(), observer);
     LOG.info("Registered new Observer to the Polling Service: {}.", observer);
   }
@@ -95,6 +102,12 @@ public class DirPollingService implements Runnable, PollingService {
     observer.removeProcessedFile(file);
   }
 
+  @Override
+  public void retryFile(File folder, File file) {
+    DirPollingObserver observer = observers.get(folder.getAbsolutePath());
+    observer.retryProcessedFile(file);
+  }
+
   /**
    * Run the Directory Polling Service.
    */
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.dir;
+
+import co.cask.cdap.file.dropzone.polling.PollingListener;
+import co.cask.cdap.file.dropzone.polling.PollingService;
+import co.cask.cdap.file.dropzone.polling.completeness.FileCompletenessPolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.ImmediatePolicy;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Service watching the observed dirs for file creation events of the file system. Each dir is listed
+ * once on start, to find the files created before, and again only when the file system reports lost events.
+ * Files which were not complete when created, or whose processing failed, are checked again at every polling
+ * interval.
+ */
+public class DirWatchService implements Runnable, PollingService {
+  private static final Logger LOG = LoggerFactory.getLogger(DirWatchService.class);
+
+  private final long pollingInterval;
+  private final WatchService watchService;
+  private final Map<String, DirPollingObserver> observers = Maps.newConcurrentMap();
+  private final Map<WatchKey, DirPollingObserver> watchKeys = Maps.newConcurrentMap();
+  private Thread thread = null;
+  private volatile boolean running = false;
+
+  /**
+   * Construct a service watching the default file system.
+   *
+   * @param pollingInterval The amount of time in milliseconds between checks of the incomplete files
+   * @throws IOException if the file system cannot be watched
+   */
+  public DirWatchService(long pollingInterval) throws IOException {
+    this.pollingInterval = pollingInterval;
+    this.watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  @Override
+  public void registerDirMonitor(File dir, PollingListener listener) {
+    registerDirMonitor(dir, listener, new ImmediatePolicy());
+  }
+
+  @Override
+  public void registerDirMonitor(File dir, PollingListener listener, FileCompletenessPolicy completenessPolicy) {
+    if (observers.containsKey(dir.getAbsolutePath())) {
+      throw new IllegalArgumentException("Observer for folder " + dir.getAbsolutePath() + " already registered.");
+    }
+    if (!dir.exists()) {
+      boolean result = dir.mkdirs();
+      LOG.debug("Creating directory {} result: {}", dir, result);
+    }
+    DirPollingObserver observer = new DirPollingObserver(dir, listener, completenessPolicy);
+    try {
+      // a file moved into the dir is reported as created
+      WatchKey key = dir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+      watchKeys.put(key, observer);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(String.format("Cannot watch folder %s.", dir.getAbsolutePath()), e);
+    }
+    observers.put(dir.getAbsolutePath(), observer);
+    LOG.info("Registered new Observer to the Watch Service: {}.", observer);
+  }
+
+  @Override
+  public synchronized void start() throws Exception {
+    LOG.info("Try to start Directory Watch Service...");
+    running = true;
+    thread = new Thread(this);
+    thread.start();
+    LOG.info("Successfully start of Directory Watch Service.");
+  }
+
+  @Override
+  public synchronized void stop() throws Exception {
+    LOG.info("Try to stop Directory Watch Service...");
+    running = false;
+    watchService.close();
+    thread.interrupt();
+    LOG.info("Successfully stop of Directory Watch Service.");
+  }
+
+  @Override
+  public void removeFile(File folder, File file) {
+    DirPollingObserver observer = observers.get(folder.getAbsolutePath());
+    observer.removeProcessedFile(file);
+  }
+
+  @Override
+  public void retryFile(File folder, File file) {
+    DirPollingObserver observer = observers.get(folder.getAbsolutePath());
+    observer.retryProcessedFile(file);
+  }
+
+  /**
+   * Run the Directory Watch Service.
+   */
+  @Override
+  public void run() {
+    LOG.debug("Watch process run.");
+    for (DirPollingObserver observer : observers.values()) {
+      observer.checkAndNotify();
+    }
+    long nextCheck = System.currentTimeMillis() + pollingInterval;
+    while (running) {
+      WatchKey key;
+      boolean waitingForFiles = hasIncompleteFiles();
+      try {
+        if (waitingForFiles) {
+          key = watchService.poll(Math.max(0, nextCheck - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } else {
+          // a file whose processing fails meanwhile is waited for from the next wake-up on
+          key = watchService.poll(pollingInterval, TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        break;
+      } catch (ClosedWatchServiceException e) {
+        break;
+      }
+      if (key != null) {
+        processKey(key);
+      }
+      long now = System.currentTimeMillis();
+      if (!waitingForFiles) {
+        // files found incomplete by these events are checked again a whole interval later
+        nextCheck = now + pollingInterval;
+      } else if (now >= nextCheck) {
+        for (DirPollingObserver observer : observers.values()) {
+          observer.checkIncompleteFiles();
+        }
+        nextCheck = now + pollingInterval;
+      }
+    }
+  }
+
+  private boolean hasIncompleteFiles() {
+    for (DirPollingObserver observer : observers.values()) {
+      if (observer.hasIncompleteFiles()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Processes the events of a directory, and checks it whole if it cannot be watched anymore.
+   *
+   * @param key the key of the directory
+   */
+  private void processKey(WatchKey key) {
+    DirPollingObserver observer = watchKeys.get(key);
+    if (observer != null) {
+      processEvents(key, observer);
+    }
+    if (!key.reset()) {
+      watchKeys.remove(key);
+      if (observer != null && running) {
+        observer.checkAndNotify();
+      }
+    }
+  }
+
+  /**
+   * Notifies the observer of the created files, or checks the whole directory if events were lost.
+   *
+   * @param key the key of the directory
+   * @param observer the observer of the directory
+   */
+  private void processEvents(WatchKey key, DirPollingObserver observer) {
+    Path dir = (Path) key.watchable();
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflow = true;
+      } else if (!overflow) {
+        observer.checkAndNotify(dir.resolve((Path) event.context()).toFile());
+      }
+    }
+    if (overflow) {
+      LOG.debug("Events lost for folder {}, checking all files", dir);
+      observer.checkAndNotify();
+    }
+  }
+}
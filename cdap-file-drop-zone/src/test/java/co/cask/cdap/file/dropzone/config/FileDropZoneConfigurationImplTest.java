@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.config;
+
+import co.cask.cdap.filetailer.config.exception.ConfigurationLoaderException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * FileDropZoneConfigurationImpl test class
+ */
+public class FileDropZoneConfigurationImplTest {
+
+  @Test
+  public void watchModeRequiresCompletenessTest() {
+    Properties properties = new Properties();
+    properties.setProperty("observers", "obs1");
+    properties.setProperty("observers.obs1.pipe", "pipe1");
+    properties.setProperty("polling_mode", "watch");
+    properties.setProperty("observers.obs1.completeness", "stable");
+    List<ObserverConfiguration> observers = new FileDropZoneConfigurationImpl(properties).getObserverConfiguration();
+    Assert.assertEquals(CompletenessMode.STABLE, observers.get(0).getCompletenessMode());
+
+    properties.remove("observers.obs1.completeness");
+    try {
+      new FileDropZoneConfigurationImpl(properties).getObserverConfiguration();
+      Assert.fail("A watched directory cannot notify the files as soon as they are found");
+    } catch (ConfigurationLoaderException e) {
+      Assert.assertTrue(e.getMessage().contains("observers.obs1.completeness"));
+    }
+
+    properties.setProperty("polling_mode", "poll");
+    observers = new FileDropZoneConfigurationImpl(properties).getObserverConfiguration();
+    Assert.assertEquals(CompletenessMode.NONE, observers.get(0).getCompletenessMode());
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling;
+
+import co.cask.cdap.client.StreamWriter;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BulkFileUploader test class
+ */
+public class BulkFileUploaderTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testChunksEndOnLines() throws Exception {
+    // lines of 10 bytes; chunks of 25 bytes are extended to the end of the third line
+    File file = createFile("line-0001\nline-0002\nline-0003\nline-0004\nline-0005\nline-06");
+    StreamWriter writer = mockWriter();
+
+    new BulkFileUploader(writer, 25, 1, MoreExecutors.sameThreadExecutor()).upload(file).get();
+
+    Mockito.verify(writer).writeBatch(file, 0, 30);
+    Mockito.verify(writer).writeBatch(file, 30, 27);
+    Mockito.verifyNoMoreInteractions(writer);
+  }
+
+  @Test
+  public void testChunkEndingOnLineSeparator() throws Exception {
+    File file = createFile("line-0001\nline-0002\n");
+    StreamWriter writer = mockWriter();
+
+    new BulkFileUploader(writer, 10, 1, MoreExecutors.sameThreadExecutor()).upload(file).get();
+
+    Mockito.verify(writer).writeBatch(file, 0, 10);
+    Mockito.verify(writer).writeBatch(file, 10, 10);
+    Mockito.verifyNoMoreInteractions(writer);
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    File file = createFile("");
+    StreamWriter writer = mockWriter();
+
+    new BulkFileUploader(writer, 10, 1, MoreExecutors.sameThreadExecutor()).upload(file).get();
+
+    Mockito.verifyNoMoreInteractions(writer);
+  }
+
+  @Test
+  public void testChunksInFlightBounded() throws Exception {
+    File file = createFile("line-0001\nline-0002\nline-0003\nline-0004\n");
+    final List<SettableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<SettableFuture<Void>>());
+    final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+    final CountDownLatch writes = new CountDownLatch(3);
+    StreamWriter writer = Mockito.mock(StreamWriter.class);
+    Mockito.when(writer.writeBatch(Mockito.any(File.class), Mockito.anyLong(), Mockito.anyLong()))
+      .thenAnswer(new Answer<ListenableFuture<Void>>() {
+        @Override
+        public ListenableFuture<Void> answer(InvocationOnMock invocation) throws Throwable {
+          threads.add(Thread.currentThread());
+          SettableFuture<Void> future = SettableFuture.create();
+          futures.add(future);
+          writes.countDown();
+          return future;
+        }
+      });
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ListenableFuture<Void> result = new BulkFileUploader(writer, 10, 2, executor).upload(file);
+      Mockito.verify(writer).writeBatch(file, 0, 10);
+      Mockito.verify(writer).writeBatch(file, 10, 10);
+      Mockito.verifyNoMoreInteractions(writer);
+
+      // the next chunk is sent by the executor, not by the thread completing the write
+      futures.get(0).set(null);
+      Assert.assertTrue(writes.await(10, TimeUnit.SECONDS));
+      Mockito.verify(writer).writeBatch(file, 20, 10);
+      Assert.assertNotSame(Thread.currentThread(), threads.get(2));
+      Mockito.verifyNoMoreInteractions(writer);
+
+      futures.get(1).setException(new IOException("Failed to write"));
+      try {
+        result.get();
+        Assert.fail("The upload of a file, whose chunk failed, must fail");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof IOException);
+      }
+      futures.get(2).set(null);
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      Mockito.verifyNoMoreInteractions(writer);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private File createFile(String content) throws IOException {
+    File file = tempFolder.newFile();
+    Files.write(content, file, Charsets.UTF_8);
+    return file;
+  }
+
+  private static StreamWriter mockWriter() {
+    StreamWriter writer = Mockito.mock(StreamWriter.class);
+    Mockito.when(writer.writeBatch(Mockito.any(File.class), Mockito.anyLong(), Mockito.anyLong()))
+      .thenReturn(Futures.<Void>immediateFuture(null));
+    return writer;
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling;
+
+import co.cask.cdap.file.dropzone.config.FileOrder;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FileProcessingScheduler test class
+ */
+public class FileProcessingSchedulerTest {
+
+  private static final long AWAIT_TIMEOUT_MS = 10000;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testMaxConcurrentFiles() throws Exception {
+    RecordingProcessor processor = new RecordingProcessor();
+    FileProcessingScheduler scheduler = new FileProcessingScheduler(processor, 2, FileOrder.FIFO);
+    File first = createFile("first", 1);
+    File second = createFile("second", 1);
+    File third = createFile("third", 1);
+
+    Assert.assertTrue(scheduler.submit(first));
+    Assert.assertTrue(scheduler.submit(second));
+    Assert.assertTrue(scheduler.submit(third));
+    Assert.assertFalse(scheduler.submit(second));
+    processor.await(Arrays.asList(first, second));
+    Assert.assertEquals(2, scheduler.getActiveFiles());
+    Assert.assertEquals(1, scheduler.getPendingFiles());
+
+    scheduler.onFileProcessed(first);
+    processor.await(Arrays.asList(first, second, third));
+    Assert.assertEquals(2, scheduler.getActiveFiles());
+    Assert.assertEquals(0, scheduler.getPendingFiles());
+
+    scheduler.onFileProcessed(second);
+    scheduler.onFileProcessed(third);
+    Assert.assertEquals(0, scheduler.getActiveFiles());
+    Assert.assertTrue(scheduler.submit(first));
+  }
+
+  @Test
+  public void testSmallestFirst() throws Exception {
+    RecordingProcessor processor = new RecordingProcessor();
+    FileProcessingScheduler scheduler = new FileProcessingScheduler(processor, 1, FileOrder.SMALLEST_FIRST);
+    File active = createFile("active", 1);
+    File large = createFile("large", 100);
+    File small = createFile("small", 10);
+
+    scheduler.submit(active);
+    scheduler.submit(large);
+    scheduler.submit(small);
+    processor.await(Arrays.asList(active));
+    scheduler.onFileProcessed(active);
+    processor.await(Arrays.asList(active, small));
+    scheduler.onFileProcessed(small);
+    processor.await(Arrays.asList(active, small, large));
+  }
+
+  @Test
+  public void testFailedStartReleasesSlot() throws Exception {
+    final File broken = createFile("broken", 1);
+    RecordingProcessor processor = new RecordingProcessor() {
+      @Override
+      public void process(File file) throws IOException {
+        super.process(file);
+        if (file.equals(broken)) {
+          throw new IOException("Cannot start " + file);
+        }
+      }
+    };
+    FileProcessingScheduler scheduler = new FileProcessingScheduler(processor, 1, FileOrder.FIFO);
+    File next = createFile("next", 1);
+
+    scheduler.submit(broken);
+    scheduler.submit(next);
+    processor.await(Arrays.asList(broken, next));
+    Assert.assertEquals(1, scheduler.getActiveFiles());
+  }
+
+  @Test
+  public void testCloseDiscardsPendingFiles() throws Exception {
+    RecordingProcessor processor = new RecordingProcessor();
+    FileProcessingScheduler scheduler = new FileProcessingScheduler(processor, 1, FileOrder.FIFO);
+    File first = createFile("first", 1);
+    File second = createFile("second", 1);
+
+    scheduler.submit(first);
+    scheduler.submit(second);
+    processor.await(Arrays.asList(first));
+    scheduler.close();
+    scheduler.onFileProcessed(first);
+    Assert.assertEquals(Arrays.asList(first), processor.getFiles());
+    Assert.assertEquals(0, scheduler.getPendingFiles());
+    Assert.assertFalse(scheduler.submit(second));
+  }
+
+  @Test
+  public void testNextFileStartedByScheduler() throws Exception {
+    final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+    final FileProcessingScheduler[] scheduler = new FileProcessingScheduler[1];
+    RecordingProcessor processor = new RecordingProcessor() {
+      @Override
+      public void process(File file) throws IOException {
+        threads.add(Thread.currentThread());
+        super.process(file);
+        // the file completes at once, like a file whose writes fail without being sent
+        scheduler[0].onFileProcessed(file);
+      }
+    };
+    scheduler[0] = new FileProcessingScheduler(processor, 1, FileOrder.FIFO);
+    File first = createFile("first", 1);
+    File second = createFile("second", 1);
+
+    scheduler[0].submit(first);
+    scheduler[0].submit(second);
+    processor.await(Arrays.asList(first, second));
+    Assert.assertFalse(threads.contains(Thread.currentThread()));
+    Assert.assertEquals(0, scheduler[0].getActiveFiles());
+    scheduler[0].close();
+  }
+
+  private File createFile(String name, int length) throws IOException {
+    File file = tempFolder.newFile(name);
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      content.append('x');
+    }
+    Files.write(content.toString(), file, Charsets.UTF_8);
+    return file;
+  }
+
+  private static class RecordingProcessor implements FileProcessingScheduler.FileProcessor {
+    private final List<File> files = new ArrayList<File>();
+
+    @Override
+    public synchronized void process(File file) throws IOException {
+      files.add(file);
+      notifyAll();
+    }
+
+    synchronized List<File> getFiles() {
+      return new ArrayList<File>(files);
+    }
+
+    /**
+     * Waits until the scheduler started the given files, in the given order.
+     */
+    synchronized void await(List<File> expected) throws InterruptedException {
+      long stopTime = System.currentTimeMillis() + AWAIT_TIMEOUT_MS;
+      while (files.size() < expected.size() && System.currentTimeMillis() < stopTime) {
+        wait(stopTime - System.currentTimeMillis());
+      }
+      Assert.assertEquals(expected, files);
+    }
+  }
+}
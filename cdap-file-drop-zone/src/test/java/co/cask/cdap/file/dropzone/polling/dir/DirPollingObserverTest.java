@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.dir;
+
+import co.cask.cdap.file.dropzone.polling.PollingListener;
+import co.cask.cdap.file.dropzone.polling.completeness.MarkerFilePolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.RenamePolicy;
+import co.cask.cdap.file.dropzone.polling.completeness.StableSizePolicy;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DirPollingObserver test class
+ */
+public class DirPollingObserverTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testStableSize() throws IOException {
+    File dir = tempFolder.newFolder();
+    RecordingListener listener = new RecordingListener();
+    DirPollingObserver observer = new DirPollingObserver(dir, listener, new StableSizePolicy(2));
+    File file = new File(dir, "data.log");
+    Files.write("first", file, Charsets.UTF_8);
+
+    observer.checkAndNotify();
+    observer.checkAndNotify();
+    Files.append(" second", file, Charsets.UTF_8);
+    observer.checkAndNotify();
+    observer.checkAndNotify();
+    Assert.assertEquals(Collections.<File>emptyList(), listener.files);
+    Assert.assertTrue(observer.hasIncompleteFiles());
+
+    observer.checkIncompleteFiles();
+    Assert.assertEquals(Arrays.asList(file), listener.files);
+    Assert.assertFalse(observer.hasIncompleteFiles());
+  }
+
+  @Test
+  public void testRemovedIncompleteFileForgotten() throws IOException {
+    File dir = tempFolder.newFolder();
+    DirPollingObserver observer = new DirPollingObserver(dir, new RecordingListener(), new StableSizePolicy(1));
+    File file = new File(dir, "data.log");
+    Files.write("first", file, Charsets.UTF_8);
+
+    observer.checkAndNotify();
+    Assert.assertTrue(observer.hasIncompleteFiles());
+    Assert.assertTrue(file.delete());
+    observer.checkIncompleteFiles();
+    Assert.assertFalse(observer.hasIncompleteFiles());
+  }
+
+  @Test
+  public void testMarkerFile() throws IOException {
+    File dir = tempFolder.newFolder();
+    RecordingListener listener = new RecordingListener();
+    DirPollingObserver observer = new DirPollingObserver(dir, listener, new MarkerFilePolicy(".done"));
+    File file = new File(dir, "data.log");
+    File marker = new File(dir, "data.log.done");
+    Files.write("first", file, Charsets.UTF_8);
+
+    observer.checkAndNotify();
+    Assert.assertEquals(Collections.<File>emptyList(), listener.files);
+
+    Assert.assertTrue(marker.createNewFile());
+    observer.checkAndNotify();
+    observer.checkAndNotify(marker);
+    Assert.assertEquals(Arrays.asList(file), listener.files);
+
+    observer.removeProcessedFile(file);
+    Assert.assertFalse(file.exists());
+    Assert.assertFalse(marker.exists());
+  }
+
+  @Test
+  public void testRename() throws IOException {
+    File dir = tempFolder.newFolder();
+    RecordingListener listener = new RecordingListener();
+    DirPollingObserver observer = new DirPollingObserver(dir, listener, new RenamePolicy("\\..*|.*\\.tmp"));
+    File temporary = new File(dir, "data.log.tmp");
+    File hidden = new File(dir, ".data.log");
+    File file = new File(dir, "data.log");
+    Files.write("first", temporary, Charsets.UTF_8);
+    Files.write("first", hidden, Charsets.UTF_8);
+
+    observer.checkAndNotify();
+    Assert.assertEquals(Collections.<File>emptyList(), listener.files);
+
+    Assert.assertTrue(temporary.renameTo(file));
+    observer.checkAndNotify();
+    Assert.assertEquals(Arrays.asList(file), listener.files);
+  }
+
+  @Test
+  public void testRetryProcessedFile() throws IOException {
+    File dir = tempFolder.newFolder();
+    RecordingListener listener = new RecordingListener();
+    DirPollingObserver observer = new DirPollingObserver(dir, listener);
+    File file = new File(dir, "data.log");
+    Files.write("first", file, Charsets.UTF_8);
+
+    observer.checkAndNotify();
+    observer.checkIncompleteFiles();
+    Assert.assertEquals(Arrays.asList(file), listener.files);
+
+    // a file, which failed to upload, is notified again at the next check
+    observer.retryProcessedFile(file);
+    Assert.assertTrue(observer.hasIncompleteFiles());
+    observer.checkIncompleteFiles();
+    Assert.assertEquals(Arrays.asList(file, file), listener.files);
+    Assert.assertFalse(observer.hasIncompleteFiles());
+  }
+
+  @Test
+  public void testRemoveWhileNotified() throws Exception {
+    File dir = tempFolder.newFolder();
+    final File file = new File(dir, "data.log");
+    Files.write("first", file, Charsets.UTF_8);
+    final DirPollingObserver[] observer = new DirPollingObserver[1];
+    final List<Boolean> removed = new ArrayList<Boolean>();
+    observer[0] = new DirPollingObserver(dir, new RecordingListener() {
+      @Override
+      public void onFileCreate(File created) throws IOException {
+        super.onFileCreate(created);
+        // the processing completes in another thread, before the listener returns
+        Thread completion = new Thread() {
+          @Override
+          public void run() {
+            observer[0].removeProcessedFile(file);
+          }
+        };
+        completion.start();
+        try {
+          completion.join(10000);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        removed.add(!completion.isAlive());
+      }
+    });
+
+    observer[0].checkAndNotify();
+    Assert.assertEquals(Arrays.asList(true), removed);
+    Assert.assertFalse(file.exists());
+  }
+
+  private static class RecordingListener implements PollingListener {
+    private final List<File> files = new ArrayList<File>();
+
+    @Override
+    public void onFileCreate(File file) throws IOException {
+      files.add(file);
+    }
+
+    @Override
+    public void onException(Exception exception) {
+      Assert.fail(exception.getMessage());
+    }
+  }
+}
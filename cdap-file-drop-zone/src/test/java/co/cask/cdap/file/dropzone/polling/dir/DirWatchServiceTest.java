@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.file.dropzone.polling.dir;
+
+import co.cask.cdap.file.dropzone.polling.PollingListener;
+import co.cask.cdap.file.dropzone.polling.completeness.StableSizePolicy;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DirWatchService test class
+ */
+public class DirWatchServiceTest {
+
+  private static final long TIMEOUT_SECONDS = 30;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testCreatedFilesNotified() throws Exception {
+    File dir = tempFolder.newFolder();
+    File existing = new File(dir, "existing.log");
+    Assert.assertTrue(existing.createNewFile());
+    RecordingListener listener = new RecordingListener();
+    DirWatchService service = new DirWatchService(100);
+    service.registerDirMonitor(dir, listener);
+    service.start();
+    try {
+      Assert.assertEquals(existing, listener.files.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      File created = new File(dir, "created.log");
+      Assert.assertTrue(created.createNewFile());
+      Assert.assertEquals(created, listener.files.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+      service.removeFile(dir, existing);
+      Assert.assertFalse(existing.exists());
+      Assert.assertTrue(new File(dir, "subdir").mkdir());
+      File moved = tempFolder.newFile("moved.log");
+      File target = new File(dir, moved.getName());
+      Assert.assertTrue(moved.renameTo(target));
+      Assert.assertEquals(target, listener.files.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      Assert.assertTrue(listener.files.isEmpty());
+    } finally {
+      service.stop();
+    }
+  }
+
+  @Test
+  public void testIncompleteFilesCheckedAgain() throws Exception {
+    File dir = tempFolder.newFolder();
+    RecordingListener listener = new RecordingListener();
+    DirWatchService service = new DirWatchService(100);
+    service.registerDirMonitor(dir, listener, new StableSizePolicy(1));
+    service.start();
+    try {
+      File created = new File(dir, "created.log");
+      Assert.assertTrue(created.createNewFile());
+      Assert.assertEquals(created, listener.files.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    } finally {
+      service.stop();
+    }
+  }
+
+  private static final class RecordingListener implements PollingListener {
+    private final BlockingQueue<File> files = new LinkedBlockingQueue<File>();
+
+    @Override
+    public void onFileCreate(File file) throws IOException {
+      files.add(file);
+    }
+
+    @Override
+    public void onException(Exception exception) {
+      Assert.fail(exception.getMessage());
+    }
+  }
+}
@@ -18,8 +18,8 @@ package co.cask.cdap.filetailer;
 
 import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
 import co.cask.cdap.filetailer.sink.FileTailerSink;
-import co.cask.cdap.filetailer.tailer.LogTailer;
 import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.ServiceManager;
 
 import java.util.Arrays;
@@ -31,11 +31,11 @@ public class Pipe extends AbstractIdleService {
 
     private final ServiceManager serviceManager;
 
-    public Pipe(LogTailer tailer, FileTailerSink sink) {
+    public Pipe(Service tailer, FileTailerSink sink) {
         serviceManager = new ServiceManager(Arrays.asList(tailer, sink));
     }
 
-    public Pipe(LogTailer tailer, FileTailerSink sink, FileTailerMetricsProcessor metricsProcessor) {
+    public Pipe(Service tailer, FileTailerSink sink, FileTailerMetricsProcessor metricsProcessor) {
         serviceManager = new ServiceManager(Arrays.asList(metricsProcessor, tailer, sink));
     }
 
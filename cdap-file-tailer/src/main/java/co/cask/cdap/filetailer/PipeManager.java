@@ -24,14 +24,23 @@ import co.cask.cdap.filetailer.config.ConfigurationLoaderImpl;
 import co.cask.cdap.filetailer.config.PipeConfiguration;
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoadingException;
 import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.metrics.PrometheusMetricsServer;
+import co.cask.cdap.filetailer.metrics.ReadProgress;
 import co.cask.cdap.filetailer.queue.FileTailerQueue;
 import co.cask.cdap.filetailer.sink.FileTailerSink;
 import co.cask.cdap.filetailer.sink.SinkStrategy;
+import co.cask.cdap.filetailer.state.CheckpointService;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessorImpl;
+import co.cask.cdap.filetailer.state.PerFileStateProcessor;
 import co.cask.cdap.filetailer.tailer.LogTailer;
+import co.cask.cdap.filetailer.tailer.MultiFileTailer;
+import co.cask.cdap.filetailer.tailer.ReaderPool;
+import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.ServiceManager;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +48,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -51,6 +62,7 @@ public class PipeManager extends AbstractIdleService {
   private final List<Pipe> pipeList = new ArrayList<Pipe>();
   private final File confFile;
   private final ServiceManager serviceManager;
+  private ExecutorService writerExecutor;
 
   public PipeManager(File confFile) {
     this.confFile = confFile;
@@ -66,27 +78,76 @@ public class PipeManager extends AbstractIdleService {
     StreamClient client = null;
     StreamWriter writer = null;
     try {
-      List<PipeConfiguration> pipeConfList = getPipeConfigs();
-      for (PipeConfiguration pipeConf : pipeConfList) {
+      Configuration configuration = getConfiguration();
+      List<FileTailerMetricsProcessor> metricsProcessors = new ArrayList<FileTailerMetricsProcessor>();
+      long checkpointFlushInterval = configuration.getCheckpointFlushInterval();
+      CheckpointService checkpointService =
+        checkpointFlushInterval > 0 ? new CheckpointService(checkpointFlushInterval) : null;
+      int sharedReaderThreads = configuration.getSharedReaderThreads();
+      ReaderPool readerPool = sharedReaderThreads > 0
+        ? new ReaderPool("shared", sharedReaderThreads, configuration.getSharedReaderSleepInterval()) : null;
+      int sharedWriterThreads = configuration.getSharedWriterThreads();
+      if (sharedWriterThreads > 0) {
+        writerExecutor = Executors.newFixedThreadPool(sharedWriterThreads, new ThreadFactoryBuilder()
+          .setNameFormat("stream-writer-%d").setDaemon(true).build());
+      }
+      for (PipeConfiguration pipeConf : configuration.getPipeConfigurations()) {
         FileTailerQueue queue = new FileTailerQueue(pipeConf.getQueueSize());
-        client = pipeConf.getSinkConfiguration().getStreamClient();
+        client = pipeConf.getSinkConfiguration().getStreamClient(writerExecutor);
         String streamName = pipeConf.getSinkConfiguration().getStreamName();
         writer = getStreamWriterForPipe(client, streamName);
         FileTailerStateProcessor stateProcessor =
-          new FileTailerStateProcessorImpl(pipeConf.getDaemonDir(), pipeConf.getStateFile());
+          new FileTailerStateProcessorImpl(pipeConf.getDaemonDir(), pipeConf.getStateFile(),
+                                           pipeConf.getCheckpointIntervalPacks(), pipeConf.getCheckpointIntervalMs(),
+                                           pipeConf.getCheckpointSync(), pipeConf.getCheckpointCompactionThreshold());
+        if (checkpointService != null) {
+          stateProcessor = checkpointService.register(stateProcessor);
+        }
+        String filePattern = pipeConf.getSourceConfiguration().getFilePattern();
         FileTailerMetricsProcessor metricsProcessor =
           new FileTailerMetricsProcessor(pipeConf.getDaemonDir(), pipeConf.getStatisticsFile(),
                                          pipeConf.getStatisticsSleepInterval(), pipeConf.getPipeName(),
-                                         pipeConf.getSourceConfiguration().getFileName());
-        pipeList.add(new Pipe(new LogTailer(pipeConf, queue, stateProcessor, metricsProcessor, null),
+                                         filePattern == null ? pipeConf.getSourceConfiguration().getFileName()
+                                           : filePattern);
+        Service tailer;
+        if (filePattern == null) {
+          LogTailer logTailer = new LogTailer(pipeConf, queue, stateProcessor, metricsProcessor, null);
+          registerGauges(metricsProcessor, queue, logTailer);
+          tailer = logTailer;
+        } else {
+          stateProcessor = new PerFileStateProcessor(stateProcessor);
+          MultiFileTailer multiFileTailer = readerPool == null
+            ? new MultiFileTailer(pipeConf, queue, stateProcessor, metricsProcessor)
+            : new MultiFileTailer(pipeConf, queue, stateProcessor, metricsProcessor, readerPool);
+          registerGauges(metricsProcessor, queue, multiFileTailer);
+          tailer = multiFileTailer;
+        }
+        metricsProcessors.add(metricsProcessor);
+        pipeList.add(new Pipe(tailer,
                                new FileTailerSink(queue, writer, SinkStrategy.LOADBALANCE,
                                                   stateProcessor, metricsProcessor, null,
-                                                  pipeConf.getSinkConfiguration().getPackSize()),
+                                                  pipeConf.getSinkConfiguration().getPackSize(),
+                                                  pipeConf.getSinkConfiguration().getMaxPacksInFlight(),
+                                                  pipeConf.getSinkConfiguration().getPackLingerMs()),
                                metricsProcessor));
+        // the writer keeps the connections of the client open
+        client.close();
         client = null;
         writer = null;
       }
-      return new ServiceManager(pipeList);
+      List<Service> services = new ArrayList<Service>(pipeList);
+      if (checkpointService != null) {
+        services.add(checkpointService);
+      }
+      if (readerPool != null) {
+        services.add(readerPool);
+      }
+      int metricsHttpPort = configuration.getMetricsHttpPort();
+      if (metricsHttpPort >= 0) {
+        services.add(new PrometheusMetricsServer(configuration.getMetricsHttpHost(), metricsHttpPort,
+                                                 metricsProcessors));
+      }
+      return new ServiceManager(services);
     } catch (ConfigurationLoadingException e) {
       throw new ConfigurationLoadingException("Error during loading configuration from file: "
                                                 + confFile.getAbsolutePath() + e.getMessage());
@@ -115,15 +176,32 @@ public class PipeManager extends AbstractIdleService {
   }
 
   /**
-   * Get pipes configuration
+   * Get configuration
    *
-   * @return the pipes configuration read from the configuration file
+   * @return the configuration read from the configuration file
    * @throws ConfigurationLoadingException in case can not load configuration
    */
-  private List<PipeConfiguration> getPipeConfigs() throws ConfigurationLoadingException {
+  private Configuration getConfiguration() throws ConfigurationLoadingException {
     ConfigurationLoader loader = new ConfigurationLoaderImpl();
-    Configuration configuration = loader.load(confFile);
-    return configuration.getPipeConfigurations();
+    return loader.load(confFile);
+  }
+
+  /**
+   * Provides the metrics processor of a pipe with the queue depth and the read progress of its tailer.
+   *
+   * @param metricsProcessor the metrics processor
+   * @param queue the queue of the pipe
+   * @param tailer the tailer of the pipe
+   */
+  private void registerGauges(FileTailerMetricsProcessor metricsProcessor, final FileTailerQueue queue,
+                              ReadProgress tailer) {
+    metricsProcessor.setQueueDepthGauge(new Supplier<Long>() {
+      @Override
+      public Long get() {
+        return (long) queue.size();
+      }
+    });
+    metricsProcessor.setReadProgress(tailer);
   }
 
   /**
@@ -153,5 +231,8 @@ public class PipeManager extends AbstractIdleService {
     } catch (TimeoutException e) {
       LOG.warn("Cannot stop pipes: {}", e);
     }
+    if (writerExecutor != null) {
+      writerExecutor.shutdown();
+    }
   }
 }
@@ -37,4 +37,47 @@ public interface Configuration {
    * @return configurations of each pipe
    */
   List<PipeConfiguration> getPipeConfigurations();
+
+  /**
+   * Retrieves the port of the HTTP endpoint, which serves the metrics of all pipes in the Prometheus format.
+   *
+   * @return the port; a negative value if the endpoint is disabled
+   */
+  int getMetricsHttpPort();
+
+  /**
+   * Retrieves the host or address, which the HTTP endpoint serving the metrics of all pipes is bound to.
+   *
+   * @return the host; <code>null</code> if the endpoint listens only on the loopback address
+   */
+  String getMetricsHttpHost();
+
+  /**
+   * Retrieves the interval, at which the checkpoint service shared by the pipes writes the newest states
+   * saved by the pipes.
+   *
+   * @return the interval, in milliseconds; 0 if every pipe writes its states itself
+   */
+  long getCheckpointFlushInterval();
+
+  /**
+   * Retrieves the number of reader threads shared by the tailers of all pipes.
+   *
+   * @return the number of shared reader threads; 0 if every pipe has its own tailer thread
+   */
+  int getSharedReaderThreads();
+
+  /**
+   * Retrieves the interval, at which the shared reader pool looks for new data in the log files of all pipes.
+   *
+   * @return the interval, in milliseconds
+   */
+  long getSharedReaderSleepInterval();
+
+  /**
+   * Retrieves the number of threads shared by the Stream writers of all pipes.
+   *
+   * @return the number of shared writer threads; 0 if every writer has its own thread pool
+   */
+  int getSharedWriterThreads();
 }
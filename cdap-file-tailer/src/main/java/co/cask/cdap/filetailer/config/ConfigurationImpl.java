@@ -31,6 +31,12 @@ public class ConfigurationImpl implements Configuration {
 
   private static final Logger LOG = LoggerFactory.getLogger(ConfigurationImpl.class);
 
+  private static final int DEFAULT_METRICS_HTTP_PORT = -1;
+  private static final long DEFAULT_CHECKPOINT_FLUSH_INTERVAL = 0;
+  private static final int DEFAULT_SHARED_READER_THREADS = 0;
+  private static final long DEFAULT_SHARED_READER_SLEEP_INTERVAL = 3000;
+  private static final int DEFAULT_SHARED_WRITER_THREADS = 0;
+
   private final Properties properties;
 
   public ConfigurationImpl(Properties properties) {
@@ -45,13 +51,55 @@ public class ConfigurationImpl implements Configuration {
   @Override
   public List<PipeConfiguration> getPipeConfigurations() {
     String[] pipes = getRequiredProperty("pipes").split(",");
+    boolean sharedReaders = getSharedReaderThreads() > 0;
     List<PipeConfiguration> pipesConfiguration = new ArrayList<PipeConfiguration>(pipes.length);
     for (String pipe : pipes) {
-      pipesConfiguration.add(new PipeConfigurationImpl(properties, pipe));
+      PipeConfiguration pipeConf = new PipeConfigurationImpl(properties, pipe);
+      if (sharedReaders && pipeConf.getSourceConfiguration().getFilePattern() == null) {
+        LOG.error("Pipe {} has no file pattern, but the readers are shared", pipe);
+        throw new ConfigurationLoaderException("Property pipes." + pipe + ".source.file_pattern is required, " +
+                                                 "when shared_reader_threads is set");
+      }
+      pipesConfiguration.add(pipeConf);
     }
     return pipesConfiguration;
   }
 
+  @Override
+  public int getMetricsHttpPort() {
+    String port = getProperty("metrics_http_port");
+    return port == null ? DEFAULT_METRICS_HTTP_PORT : Integer.parseInt(port);
+  }
+
+  @Override
+  public String getMetricsHttpHost() {
+    return getProperty("metrics_http_host");
+  }
+
+  @Override
+  public long getCheckpointFlushInterval() {
+    String interval = getProperty("checkpoint_flush_interval_ms");
+    return interval == null ? DEFAULT_CHECKPOINT_FLUSH_INTERVAL : Long.parseLong(interval);
+  }
+
+  @Override
+  public int getSharedReaderThreads() {
+    String threads = getProperty("shared_reader_threads");
+    return threads == null ? DEFAULT_SHARED_READER_THREADS : Integer.parseInt(threads);
+  }
+
+  @Override
+  public long getSharedReaderSleepInterval() {
+    String interval = getProperty("shared_reader_sleep_interval");
+    return interval == null ? DEFAULT_SHARED_READER_SLEEP_INTERVAL : Long.parseLong(interval);
+  }
+
+  @Override
+  public int getSharedWriterThreads() {
+    String threads = getProperty("shared_writer_threads");
+    return threads == null ? DEFAULT_SHARED_WRITER_THREADS : Integer.parseInt(threads);
+  }
+
   /**
    * Retrieves property by key
    *
@@ -44,6 +44,35 @@ public interface PipeConfiguration {
    */
   String getStateFile();
 
+  /**
+   * Retrieves the number of saved states, after which a checkpoint of the state is written to the state file.
+   *
+   * @return the checkpoint interval, in saved states
+   */
+  int getCheckpointIntervalPacks();
+
+  /**
+   * Retrieves the time, after which a saved state is written to the state file even if fewer states than
+   * the checkpoint interval were saved since the previous checkpoint.
+   *
+   * @return the checkpoint interval, in milliseconds; 0 if checkpoints are written by the number of states only
+   */
+  long getCheckpointIntervalMs();
+
+  /**
+   * Retrieves the mode of forcing every checkpoint to the storage device.
+   *
+   * @return true if every checkpoint is synchronized with the storage device
+   */
+  boolean getCheckpointSync();
+
+  /**
+   * Retrieves the number of checkpoints appended to the state file, after which the file is compacted.
+   *
+   * @return the number of checkpoints between compactions
+   */
+  int getCheckpointCompactionThreshold();
+
   /**
    * Retrieves the statistics file name loaded from the configuration file.
    *
@@ -17,9 +17,11 @@
 package co.cask.cdap.filetailer.config;
 
 import co.cask.cdap.client.StreamClient;
+import co.cask.cdap.client.rest.Compression;
 import co.cask.cdap.client.rest.RestStreamClient;
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoaderException;
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoadingException;
+import co.cask.cdap.filetailer.tailer.ReadMode;
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
 import co.cask.cdap.security.authentication.client.basic.BasicAuthenticationClient;
 import org.slf4j.Logger;
@@ -31,6 +33,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 
 /**
  * PipeConfigurationImpl default implementation of PipeConfiguration
@@ -42,6 +45,10 @@ public class PipeConfigurationImpl implements PipeConfiguration {
   private static final String DEFAULT_QUEUE_SIZE = "1000";
   private static final String DEFAULT_STATISTICS_SLEEP_INTERVAL = "60000";
   private static final String DEFAULT_STATE_FILE = "state";
+  private static final String DEFAULT_CHECKPOINT_INTERVAL_PACKS = "1";
+  private static final String DEFAULT_CHECKPOINT_INTERVAL_MS = "0";
+  private static final String DEFAULT_CHECKPOINT_SYNC = "false";
+  private static final String DEFAULT_CHECKPOINT_COMPACTION_THRESHOLD = "1000";
   private static final String DEFAULT_STATISTICS_FILE = "stats";
   private static final String DEFAULT_AUTH_CLIENT = BasicAuthenticationClient.class.getName();
 
@@ -75,6 +82,27 @@ public class PipeConfigurationImpl implements PipeConfiguration {
     return getProperty(this.keyPath + "state_file", sourceConfiguration.getFileName() + "." + DEFAULT_STATE_FILE);
   }
 
+  @Override
+  public int getCheckpointIntervalPacks() {
+    return Integer.parseInt(getProperty(this.keyPath + "checkpoint_interval_packs", DEFAULT_CHECKPOINT_INTERVAL_PACKS));
+  }
+
+  @Override
+  public long getCheckpointIntervalMs() {
+    return Long.parseLong(getProperty(this.keyPath + "checkpoint_interval_ms", DEFAULT_CHECKPOINT_INTERVAL_MS));
+  }
+
+  @Override
+  public boolean getCheckpointSync() {
+    return Boolean.parseBoolean(getProperty(this.keyPath + "checkpoint_sync", DEFAULT_CHECKPOINT_SYNC));
+  }
+
+  @Override
+  public int getCheckpointCompactionThreshold() {
+    return Integer.parseInt(getProperty(this.keyPath + "checkpoint_compaction_threshold",
+                                        DEFAULT_CHECKPOINT_COMPACTION_THRESHOLD));
+  }
+
   @Override
   public String getStatisticsFile() {
     return getProperty(this.keyPath + "statistics_file", DEFAULT_STATISTICS_FILE);
@@ -151,6 +179,12 @@ public class PipeConfigurationImpl implements PipeConfiguration {
     private static final String DEFAULT_FAILURE_RETRY_LIMIT = "0";
     private static final String DEFAULT_FAILURE_SLEEP_INTERVAL = "60000";
     private static final String DEFAULT_READ_ROTATED_FILES = "true";
+    private static final String DEFAULT_WATCH_WORK_DIR = "false";
+    private static final String DEFAULT_READ_MODE = "channel";
+    private static final String DEFAULT_READ_BUFFER_SIZE = "4096";
+    private static final String DEFAULT_MMAP_WINDOW_SIZE = "16777216";
+    private static final String DEFAULT_FINGERPRINT_SIZE = "1024";
+    private static final String DEFAULT_READER_THREADS = "2";
 
     private final String key;
 
@@ -202,6 +236,41 @@ public class PipeConfigurationImpl implements PipeConfiguration {
     public boolean getReadRotatedFilesMode() {
       return Boolean.valueOf(getProperty(this.key + "read_rotated_files", DEFAULT_READ_ROTATED_FILES));
     }
+
+    @Override
+    public boolean getWatchWorkDirMode() {
+      return Boolean.valueOf(getProperty(this.key + "watch_work_dir", DEFAULT_WATCH_WORK_DIR));
+    }
+
+    @Override
+    public ReadMode getReadMode() {
+      return ReadMode.valueOf(getProperty(this.key + "read_mode", DEFAULT_READ_MODE).toUpperCase());
+    }
+
+    @Override
+    public int getReadBufferSize() {
+      return Integer.parseInt(getProperty(this.key + "read_buffer_size", DEFAULT_READ_BUFFER_SIZE));
+    }
+
+    @Override
+    public int getMmapWindowSize() {
+      return Integer.parseInt(getProperty(this.key + "mmap_window_size", DEFAULT_MMAP_WINDOW_SIZE));
+    }
+
+    @Override
+    public int getFingerprintSize() {
+      return Integer.parseInt(getProperty(this.key + "fingerprint_size", DEFAULT_FINGERPRINT_SIZE));
+    }
+
+    @Override
+    public String getFilePattern() {
+      return getProperty(this.key + "file_pattern", null);
+    }
+
+    @Override
+    public int getReaderThreads() {
+      return Integer.parseInt(getProperty(this.key + "reader_threads", DEFAULT_READER_THREADS));
+    }
   }
 
   private class SinkConfigurationImpl implements SinkConfiguration {
@@ -210,7 +279,18 @@ public class PipeConfigurationImpl implements PipeConfiguration {
     private static final String DEFAULT_VERIFY_SSL_CERT = "true";
     private static final String DEFAULT_WRITER_POOL_SIZE = "10";
     private static final String DEFAULT_VERSION = "v2";
+    private static final String DEFAULT_COMPRESSION = "none";
+    private static final String DEFAULT_COMPRESSION_THRESHOLD = "1024";
+    private static final String DEFAULT_ASYNC_WRITER = "false";
+    private static final String DEFAULT_IO_THREADS = "2";
+    private static final String DEFAULT_MAX_IN_FLIGHT_WRITES = "0";
+    private static final String DEFAULT_MAX_IN_FLIGHT_BYTES = "0";
+    private static final String DEFAULT_MAX_CONNECTIONS_PER_ROUTE = "0";
+    private static final String DEFAULT_KEEP_ALIVE_MS = "60000";
+    private static final String DEFAULT_IDLE_CONNECTION_TIMEOUT_MS = "30000";
     private static final String DEFAULT_PACK_SIZE = "1";
+    private static final String DEFAULT_MAX_PACKS_IN_FLIGHT = "1";
+    private static final String DEFAULT_PACK_LINGER_MS = "0";
     private static final String DEFAULT_FAILURE_RETRY_LIMIT = "0";
     private static final String DEFAULT_FAILURE_SLEEP_INTERVAL = "60000";
     private static final String DEFAULT_AUTH_CLIENT_PROPERTIES = "/etc/cdap/file-tailer/conf/auth-client.properties";
@@ -228,6 +308,11 @@ public class PipeConfigurationImpl implements PipeConfiguration {
 
     @Override
     public StreamClient getStreamClient() {
+      return getStreamClient(null);
+    }
+
+    @Override
+    public StreamClient getStreamClient(ExecutorService writerExecutor) {
       String host = getRequiredProperty(this.key + "host");
       int port = Integer.parseInt(getRequiredProperty(this.key + "port"));
       boolean ssl = Boolean.valueOf(getProperty(this.key + "ssl", DEFAULT_SSL));
@@ -235,7 +320,7 @@ public class PipeConfigurationImpl implements PipeConfiguration {
                                                           DEFAULT_VERIFY_SSL_CERT));
 
       RestStreamClient.Builder builder = RestStreamClient.builder(host, port).ssl(ssl)
-        .verifySSLCert(verifySslCert);
+        .verifySSLCert(verifySslCert).writerExecutor(writerExecutor);
 
       String authClientClassPath = getProperty(this.key + "auth_client", DEFAULT_AUTH_CLIENT);
       String authClientPropertiesPath = getProperty(this.key + "auth_client_properties",
@@ -288,6 +373,30 @@ public class PipeConfigurationImpl implements PipeConfiguration {
 
       builder.version(getProperty(this.key + "version", DEFAULT_VERSION));
 
+      builder.compression(Compression.valueOf(getProperty(this.key + "compression",
+                                                          DEFAULT_COMPRESSION).toUpperCase()));
+
+      builder.compressionThreshold(Integer.parseInt(getProperty(this.key + "compression_threshold",
+                                                                DEFAULT_COMPRESSION_THRESHOLD)));
+
+      builder.asyncWriter(Boolean.valueOf(getProperty(this.key + "async_writer", DEFAULT_ASYNC_WRITER)));
+
+      builder.ioThreads(Integer.parseInt(getProperty(this.key + "io_threads", DEFAULT_IO_THREADS)));
+
+      builder.maxInFlightWrites(Integer.parseInt(getProperty(this.key + "max_in_flight_writes",
+                                                             DEFAULT_MAX_IN_FLIGHT_WRITES)));
+
+      builder.maxInFlightBytes(Long.parseLong(getProperty(this.key + "max_in_flight_bytes",
+                                                          DEFAULT_MAX_IN_FLIGHT_BYTES)));
+
+      builder.maxConnectionsPerRoute(Integer.parseInt(getProperty(this.key + "max_connections_per_route",
+                                                                  DEFAULT_MAX_CONNECTIONS_PER_ROUTE)));
+
+      builder.keepAliveMs(Long.parseLong(getProperty(this.key + "keep_alive_ms", DEFAULT_KEEP_ALIVE_MS)));
+
+      builder.idleConnectionTimeoutMs(Long.parseLong(getProperty(this.key + "idle_connection_timeout_ms",
+                                                                 DEFAULT_IDLE_CONNECTION_TIMEOUT_MS)));
+
       return builder.build();
     }
 
@@ -296,6 +405,16 @@ public class PipeConfigurationImpl implements PipeConfiguration {
       return Integer.parseInt(getProperty(this.key + "packSize", DEFAULT_PACK_SIZE));
     }
 
+    @Override
+    public int getMaxPacksInFlight() {
+      return Integer.parseInt(getProperty(this.key + "max_packs_in_flight", DEFAULT_MAX_PACKS_IN_FLIGHT));
+    }
+
+    @Override
+    public long getPackLingerMs() {
+      return Long.parseLong(getProperty(this.key + "pack_linger_ms", DEFAULT_PACK_LINGER_MS));
+    }
+
     @Override
     public int getFailureRetryLimit() {
       return Integer.parseInt(getProperty(this.key + "failure_retry_limit", DEFAULT_FAILURE_RETRY_LIMIT));
@@ -18,6 +18,8 @@ package co.cask.cdap.filetailer.config;
 
 import co.cask.cdap.client.StreamClient;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Retrieves sink properties of a pipe.
  */
@@ -37,6 +39,14 @@ public interface SinkConfiguration {
    */
   StreamClient getStreamClient();
 
+  /**
+   * Retrieves the Stream client, whose writers send the events on the given executor
+   *
+   * @param writerExecutor the executor shared by the writers; <code>null</code> for a thread pool per writer
+   * @return the Stream client
+   */
+  StreamClient getStreamClient(ExecutorService writerExecutor);
+
   /**
    * Retrieves the size of events pack, which sends to stream
    *
@@ -44,6 +54,20 @@ public interface SinkConfiguration {
    */
   int getPackSize();
 
+  /**
+   * Retrieves the maximum number of events packs, which are sent to stream at once
+   *
+   * @return the maximum number of events packs in flight
+   */
+  int getMaxPacksInFlight();
+
+  /**
+   * Retrieves the maximum time to wait for a partial events pack to fill, before sending it to stream
+   *
+   * @return the pack linger time in milliseconds; 0 to wait until the pack is full
+   */
+  long getPackLingerMs();
+
   /**
    * Retrieves the failure retry limit (limit for the number of attempts to send event/events, if error occurred)
    *
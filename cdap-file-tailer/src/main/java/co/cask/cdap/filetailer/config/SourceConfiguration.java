@@ -16,6 +16,8 @@
 
 package co.cask.cdap.filetailer.config;
 
+import co.cask.cdap.filetailer.tailer.ReadMode;
+
 import java.io.File;
 
 /**
@@ -85,4 +87,55 @@ public interface SourceConfiguration {
    * @return {@code true} if the files have been rotated, {@code false} otherwise
    */
   public boolean getReadRotatedFilesMode();
+
+  /**
+   * Returns the mode of waiting for new log data.
+   *
+   * @return {@code true} if File Tailer is woken up by the work directory changes,
+   * {@code false} if it sleeps for the sleep interval
+   */
+  boolean getWatchWorkDirMode();
+
+  /**
+   * Retrieves the log file reading mode
+   *
+   * @return the read mode
+   */
+  ReadMode getReadMode();
+
+  /**
+   * Retrieves the size of the buffer used to read log files through the file channel
+   *
+   * @return the read buffer size in bytes
+   */
+  int getReadBufferSize();
+
+  /**
+   * Retrieves the size of the window in which rotated files are memory-mapped, in the mmap read mode
+   *
+   * @return the mmap window size in bytes
+   */
+  int getMmapWindowSize();
+
+  /**
+   * Retrieves the number of bytes at the beginning of a log file, which identify the file on restart
+   *
+   * @return the fingerprint size in bytes; 0 if files are identified by their name and file key only
+   */
+  int getFingerprintSize();
+
+  /**
+   * Retrieves the pattern of the names of the log files, which are all tailed by the pipe
+   *
+   * @return the regular expression of the log file names; <code>null</code> if only the file
+   *         with the configured name is tailed, along with its rotated files
+   */
+  String getFilePattern();
+
+  /**
+   * Retrieves the number of threads reading the log files matched by the file pattern
+   *
+   * @return the number of reader threads
+   */
+  int getReaderThreads();
 }
@@ -18,6 +18,7 @@ package co.cask.cdap.filetailer.event;
 
 import co.cask.cdap.filetailer.state.FileTailerState;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -26,8 +27,9 @@ import java.nio.charset.Charset;
 public class FileTailerEvent {
 
   private final FileTailerState state;
-  private final String eventData;
   private final Charset charset;
+  private String eventData;
+  private ByteBuffer eventBody;
 
   public FileTailerEvent(FileTailerState state, String eventData, Charset charset) {
     this.state = state;
@@ -35,6 +37,12 @@ public class FileTailerEvent {
     this.charset = charset;
   }
 
+  public FileTailerEvent(FileTailerState state, ByteBuffer eventBody, Charset charset) {
+    this.state = state;
+    this.eventBody = eventBody;
+    this.charset = charset;
+  }
+
   /**
    * Retrieves the event's FileTailer state.
    *
@@ -45,14 +53,29 @@ public class FileTailerEvent {
   }
 
   /**
-   * Retrieves the event's FileTailer event data.
+   * Retrieves the event's FileTailer event data; the data is decoded with the event's charset if needed.
    *
    * @return the FileTailer event data
    */
   public String getEventData() {
+    if (eventData == null) {
+      eventData = charset.decode(eventBody.duplicate()).toString();
+    }
     return eventData;
   }
 
+  /**
+   * Retrieves the event's FileTailer event body; the data is encoded with the event's charset if needed.
+   *
+   * @return the FileTailer event body
+   */
+  public ByteBuffer getEventBody() {
+    if (eventBody == null) {
+      eventBody = ByteBuffer.wrap(eventData.getBytes(charset));
+    }
+    return eventBody.duplicate();
+  }
+
   /**
    * Retrieves the event's charset.
    *
@@ -66,7 +89,7 @@ public class FileTailerEvent {
   public String toString() {
     return new StringBuilder("FileTailerEvent{")
       .append("state=").append(state)
-      .append(", eventData='").append(eventData).append('\'')
+      .append(", eventData='").append(getEventData()).append('\'')
       .append('}').toString();
   }
 }
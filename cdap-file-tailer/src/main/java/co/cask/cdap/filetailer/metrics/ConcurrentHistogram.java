@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with log-linear buckets, in the manner of HdrHistogram.
+ * Values below {@value #SUB_BUCKET_COUNT} are counted exactly; larger values fall into buckets whose width is
+ * at most 1/{@value #SUB_BUCKET_HALF} of their lower bound, so percentiles are accurate to about 6%.
+ * The minimum, maximum and sum of the values are exact.
+ */
+final class ConcurrentHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+  private static final int MAX_SHIFT = Long.SIZE - SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = MAX_SHIFT * SUB_BUCKET_HALF + SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final StripedCounter sum = new StripedCounter();
+  private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Records a value; negative values are recorded as zero.
+   *
+   * @param value the value
+   */
+  void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets.incrementAndGet(bucketIndex(value));
+    sum.add(value);
+    long current;
+    while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+      // retry with the value set by a concurrent update
+    }
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // retry with the value set by a concurrent update
+    }
+  }
+
+  /**
+   * Retrieves the values recorded since the previous reset, and resets the histogram. No concurrently recorded
+   * value is lost, though it may be accounted in the bucket counts and the sum of different snapshots.
+   *
+   * @return the snapshot of the recorded values
+   */
+  Snapshot getSnapshotAndReset() {
+    long[] counts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.getAndSet(i, 0);
+      count += counts[i];
+    }
+    return new Snapshot(counts, count, sum.sumThenReset(), min.getAndSet(Long.MAX_VALUE),
+                        max.getAndSet(Long.MIN_VALUE));
+  }
+
+  private static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+  }
+
+  private static long highestValueInBucket(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_HALF - 1;
+    long subBucket = index % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Values recorded by the histogram during an interval.
+   */
+  static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    private Snapshot(long[] counts, long count, long sum, long min, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.min = count == 0 ? 0 : min;
+      this.max = count == 0 ? 0 : max;
+    }
+
+    /**
+     * Retrieves the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Retrieves the sum of the recorded values.
+     *
+     * @return the sum of values
+     */
+    public long getSum() {
+      return sum;
+    }
+
+    /**
+     * Retrieves the minimum recorded value.
+     *
+     * @return the minimum value; 0 if there are no values
+     */
+    public long getMin() {
+      return min;
+    }
+
+    /**
+     * Retrieves the maximum recorded value.
+     *
+     * @return the maximum value; 0 if there are no values
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Retrieves the value below which the given percentage of the recorded values fall.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the highest value of the bucket where the percentile falls, bounded by the minimum and maximum;
+     *         0 if there are no values
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.max(min, Math.min(max, highestValueInBucket(i)));
+        }
+      }
+      return max;
+    }
+  }
+}
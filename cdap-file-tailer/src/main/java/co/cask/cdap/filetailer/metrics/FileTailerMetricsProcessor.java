@@ -23,22 +23,34 @@ import ch.qos.logback.core.rolling.RollingFileAppender;
 import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
 import co.cask.cdap.filetailer.AbstractWorker;
 import co.cask.cdap.filetailer.metrics.exception.FileTailerMetricsProcessorException;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 /**
- * Default implementation of FileTailerMetricsProcessor
+ * Default implementation of FileTailerMetricsProcessor.
+ * Besides writing the metrics of each interval to the metrics file, keeps cumulative metrics of the pipe,
+ * which are published as a {@link PipeMetricsMXBean} while the processor is running.
  */
-public class FileTailerMetricsProcessor extends AbstractWorker {
+public class FileTailerMetricsProcessor extends AbstractWorker implements PipeMetricsMXBean {
 
   private static final Logger LOG = LoggerFactory.getLogger(FileTailerMetricsProcessor.class);
   private static final int SLEEP_INTERVAL = 3000;
+  private static final String MBEAN_DOMAIN = "co.cask.cdap.filetailer";
 
   private final String loggerClass = ch.qos.logback.classic.Logger.class.getName();
   private final File stateDirPath;
@@ -46,16 +58,20 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
   private final long metricsSleepInterval;
   private final String flowName;
   private final String fileName;
-  private final AtomicInteger totalEventsReadPerFile;
-  private final AtomicInteger totalEventsIngestedPerFile;
-  private final AtomicInteger minEventSizePerFile;
-  private final AtomicInteger maxEventSizePerFile;
-  private final AtomicInteger totalEventSizePerFile;
-  private final AtomicInteger eventsPerFile;
-  private final AtomicInteger minWriteLatencyPerStream;
-  private final AtomicInteger maxWriteLatencyPerStream;
-  private final AtomicInteger totalWriteLatencyPerStream;
-  private final AtomicInteger writesPerStream;
+  private final ConcurrentHistogram eventSizesPerFile;
+  private final ConcurrentHistogram writeLatenciesPerStream;
+  private final StripedCounter linesRead;
+  private final StripedCounter bytesRead;
+  private final StripedCounter eventsIngested;
+  private final StripedCounter writeLatencySum;
+  private final StripedCounter retries;
+  private final AtomicLong inFlightRequests;
+  private final AtomicLong bytesCommitted;
+  private volatile long committedModifyTime;
+  private volatile ConcurrentHistogram.Snapshot lastWriteLatencies;
+  private volatile Supplier<Long> queueDepthGauge = Suppliers.ofInstance(0L);
+  private volatile ReadProgress readProgress;
+  private ObjectName mbeanName;
 
   public FileTailerMetricsProcessor(File stateDirPath, String metricsFileName, long metricsSleepInterval,
                                     String flowName, String fileName) {
@@ -65,16 +81,58 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
     this.flowName = flowName;
     this.fileName = fileName;
 
-    totalEventsReadPerFile = new AtomicInteger(0);
-    totalEventsIngestedPerFile = new AtomicInteger(0);
-    minEventSizePerFile = new AtomicInteger(0);
-    maxEventSizePerFile = new AtomicInteger(0);
-    totalEventSizePerFile = new AtomicInteger(0);
-    eventsPerFile = new AtomicInteger(0);
-    minWriteLatencyPerStream = new AtomicInteger(0);
-    maxWriteLatencyPerStream = new AtomicInteger(0);
-    totalWriteLatencyPerStream = new AtomicInteger(0);
-    writesPerStream = new AtomicInteger(0);
+    eventSizesPerFile = new ConcurrentHistogram();
+    writeLatenciesPerStream = new ConcurrentHistogram();
+    linesRead = new StripedCounter();
+    bytesRead = new StripedCounter();
+    eventsIngested = new StripedCounter();
+    writeLatencySum = new StripedCounter();
+    retries = new StripedCounter();
+    inFlightRequests = new AtomicLong();
+    bytesCommitted = new AtomicLong();
+    lastWriteLatencies = new ConcurrentHistogram().getSnapshotAndReset();
+  }
+
+  @Override
+  protected void startUp() {
+    super.startUp();
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      mbeanName = getObjectName(flowName);
+      mbeanServer.registerMBean(this, mbeanName);
+    } catch (InstanceAlreadyExistsException e) {
+      LOG.warn("Metrics of pipe {} are already registered; the metrics of this pipe are not published", flowName);
+      mbeanName = null;
+    } catch (JMException e) {
+      LOG.warn("Can not register metrics of pipe {}: {}", flowName, e.getMessage());
+      mbeanName = null;
+    }
+  }
+
+  @Override
+  protected void shutDown() {
+    if (mbeanName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+      } catch (JMException e) {
+        LOG.warn("Can not unregister metrics of pipe {}: {}", flowName, e.getMessage());
+      }
+      mbeanName = null;
+    }
+  }
+
+  /**
+   * Retrieves the name of the MBean, under which the metrics of the given pipe are registered.
+   *
+   * @param pipeName the name of the pipe
+   * @return the name of the MBean
+   */
+  public static ObjectName getObjectName(String pipeName) {
+    try {
+      return new ObjectName(MBEAN_DOMAIN + ":type=PipeMetrics,name=" + ObjectName.quote(pipeName));
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalArgumentException("Invalid pipe name: " + pipeName, e);
+    }
   }
 
   @Override
@@ -95,7 +153,6 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
         }
         String currentDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date());
         writeMetrics(logger, appender, currentDate);
-        resetMetrics();
       }
     } catch (InterruptedException e) {
       LOG.debug("Metric Processor was interrupted");
@@ -115,17 +172,9 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
    * @param eventSize the size of log
    */
   public void onReadEventMetric(int eventSize) {
-    LOG.debug("On Read Event Metric received");
-    totalEventsReadPerFile.incrementAndGet();
-
-    totalEventSizePerFile.set(totalEventSizePerFile.get() + eventSize);
-    eventsPerFile.incrementAndGet();
-    if (minEventSizePerFile.get() > eventSize || minEventSizePerFile.get() == 0) {
-      minEventSizePerFile.set(eventSize);
-    }
-    if (maxEventSizePerFile.get() < eventSize) {
-      maxEventSizePerFile.set(eventSize);
-    }
+    eventSizesPerFile.record(eventSize);
+    linesRead.increment();
+    bytesRead.add(eventSize);
   }
 
   /**
@@ -134,48 +183,157 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
    * @param latency the latency of sending log
    */
   public void onIngestEventMetric(int latency) {
-    LOG.debug("On Ingest Event Metric received");
-    totalEventsIngestedPerFile.incrementAndGet();
+    writeLatenciesPerStream.record(latency);
+    eventsIngested.increment();
+    writeLatencySum.add(latency);
+  }
 
-    totalWriteLatencyPerStream.set(totalWriteLatencyPerStream.get() + latency);
-    writesPerStream.incrementAndGet();
-    if (minWriteLatencyPerStream.get() > latency || minWriteLatencyPerStream.get() == 0) {
-      minWriteLatencyPerStream.set(latency);
-    }
-    if (maxWriteLatencyPerStream.get() < latency) {
-      maxWriteLatencyPerStream.set(latency);
-    }
+  /**
+   * Invoked when a write request is sent to the Stream.
+   */
+  public void onRequestStartMetric() {
+    inFlightRequests.incrementAndGet();
   }
 
   /**
-   * Calculates an average value, accurate to three decimal places.
+   * Invoked when a write request to the Stream completes, successfully or not.
+   */
+  public void onRequestCompleteMetric() {
+    inFlightRequests.decrementAndGet();
+  }
+
+  /**
+   * Invoked when a failed write request is retried.
+   */
+  public void onRetryMetric() {
+    retries.increment();
+  }
+
+  /**
+   * Sets the source of the number of events waiting in the queue of the pipe.
    *
-   * @param total the sum of values
-   * @param count the number of values
-   * @return the average value
+   * @param queueDepthGauge the queue depth gauge
    */
-  private double calculateAverage(int total, int count) {
-    return Math.round(total / (double) count * 1000) / 1000.0;
+  public void setQueueDepthGauge(Supplier<Long> queueDepthGauge) {
+    this.queueDepthGauge = queueDepthGauge;
   }
 
   /**
-   * Resets all metrics.
+   * Invoked when the state of an uploaded pack of events is saved.
+   *
+   * @param bytes the total size of the events of the pack
+   * @param modifyTime the modification time of the log file when the last event of the pack was read
+   */
+  public void onCommitMetric(long bytes, long modifyTime) {
+    bytesCommitted.addAndGet(bytes);
+    committedModifyTime = modifyTime;
+  }
+
+  /**
+   * Sets the source of the progress of reading the log files, used for the read and commit lag.
+   *
+   * @param readProgress the read progress
    */
-  private void resetMetrics() {
-    LOG.debug("Starting reset metrics ..");
-    totalEventsReadPerFile.set(0);
-    totalEventsIngestedPerFile.set(0);
+  public void setReadProgress(ReadProgress readProgress) {
+    this.readProgress = readProgress;
+  }
+
+  @Override
+  public String getPipeName() {
+    return flowName;
+  }
+
+  @Override
+  public long getLinesRead() {
+    return linesRead.sum();
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  @Override
+  public long getEventsIngested() {
+    return eventsIngested.sum();
+  }
+
+  @Override
+  public long getWriteLatencySum() {
+    return writeLatencySum.sum();
+  }
+
+  @Override
+  public long getRetries() {
+    return retries.sum();
+  }
 
-    minEventSizePerFile.set(0);
-    maxEventSizePerFile.set(0);
-    totalEventSizePerFile.set(0);
-    eventsPerFile.set(0);
+  @Override
+  public long getQueueDepth() {
+    return queueDepthGauge.get();
+  }
 
-    minWriteLatencyPerStream.set(0);
-    maxWriteLatencyPerStream.set(0);
-    totalWriteLatencyPerStream.set(0);
-    writesPerStream.set(0);
-    LOG.debug("All metrics reset successfully");
+  @Override
+  public long getInFlightRequests() {
+    return inFlightRequests.get();
+  }
+
+  @Override
+  public long getReadLagBytes() {
+    ReadProgress progress = readProgress;
+    return progress == null ? 0 : progress.getReadLagBytes();
+  }
+
+  @Override
+  public long getReadLagSeconds() {
+    ReadProgress progress = readProgress;
+    return progress == null ? 0 : progress.getReadLagSeconds();
+  }
+
+  @Override
+  public long getCommitLagBytes() {
+    return Math.max(0, bytesRead.sum() - bytesCommitted.get());
+  }
+
+  @Override
+  public long getCommitLagSeconds() {
+    ReadProgress progress = readProgress;
+    long modifyTime = committedModifyTime;
+    if (progress == null || modifyTime == 0 || getCommitLagBytes() == 0) {
+      return 0;
+    }
+    return TimeUnit.MILLISECONDS.toSeconds(Math.max(0, progress.getReadModifyTime() - modifyTime));
+  }
+
+  @Override
+  public long getWriteLatencyP50() {
+    return lastWriteLatencies.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getWriteLatencyP95() {
+    return lastWriteLatencies.getValueAtPercentile(95);
+  }
+
+  @Override
+  public long getWriteLatencyP99() {
+    return lastWriteLatencies.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getWriteLatencyP999() {
+    return lastWriteLatencies.getValueAtPercentile(99.9);
+  }
+
+  /**
+   * Calculates an average value, accurate to three decimal places.
+   *
+   * @param total the sum of values
+   * @param count the number of values
+   * @return the average value
+   */
+  private double calculateAverage(long total, long count) {
+    return Math.round(total / (double) count * 1000) / 1000.0;
   }
 
   /**
@@ -196,13 +354,21 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
       .append("Max Event Size Per File").append(",")
       .append("Min Write Latency Per Stream").append(",")
       .append("Average Write Latency Per Stream").append(",")
-      .append("Max Write Latency Per Stream").append("\n").toString();
+      .append("Max Write Latency Per Stream").append(",")
+      .append("P50 Event Size Per File").append(",")
+      .append("P95 Event Size Per File").append(",")
+      .append("P99 Event Size Per File").append(",")
+      .append("P99.9 Event Size Per File").append(",")
+      .append("P50 Write Latency Per Stream").append(",")
+      .append("P95 Write Latency Per Stream").append(",")
+      .append("P99 Write Latency Per Stream").append(",")
+      .append("P99.9 Write Latency Per Stream").append("\n").toString();
     appender.doAppend(new LoggingEvent(loggerClass, logger, null, header, null, null));
     LOG.debug("Successfully wrote header");
   }
 
   /**
-   * Writes metric to metrics file.
+   * Writes metric to metrics file, and resets the metrics for the next interval.
    *
    * @param logger the logger
    * @param appender the file appender
@@ -210,17 +376,28 @@ public class FileTailerMetricsProcessor extends AbstractWorker {
    */
   private void writeMetrics(ch.qos.logback.classic.Logger logger, RollingFileAppender appender, String currentDate) {
     LOG.debug("Start writing metric with date {} to file ..", currentDate);
+    ConcurrentHistogram.Snapshot eventSizes = eventSizesPerFile.getSnapshotAndReset();
+    ConcurrentHistogram.Snapshot writeLatencies = writeLatenciesPerStream.getSnapshotAndReset();
+    lastWriteLatencies = writeLatencies;
     String metric = new StringBuilder(currentDate).append(",")
       .append(flowName).append(",")
       .append(fileName).append(",")
-      .append(totalEventsReadPerFile.get()).append(",")
-      .append(totalEventsIngestedPerFile.get()).append(",")
-      .append(minEventSizePerFile.get()).append(",")
-      .append(calculateAverage(totalEventSizePerFile.get(), eventsPerFile.get())).append(",")
-      .append(maxEventSizePerFile.get()).append(",")
-      .append(minWriteLatencyPerStream.get()).append(",")
-      .append(calculateAverage(totalWriteLatencyPerStream.get(), writesPerStream.get())).append(",")
-      .append(maxWriteLatencyPerStream.get()).toString();
+      .append(eventSizes.getCount()).append(",")
+      .append(writeLatencies.getCount()).append(",")
+      .append(eventSizes.getMin()).append(",")
+      .append(calculateAverage(eventSizes.getSum(), eventSizes.getCount())).append(",")
+      .append(eventSizes.getMax()).append(",")
+      .append(writeLatencies.getMin()).append(",")
+      .append(calculateAverage(writeLatencies.getSum(), writeLatencies.getCount())).append(",")
+      .append(writeLatencies.getMax()).append(",")
+      .append(eventSizes.getValueAtPercentile(50)).append(",")
+      .append(eventSizes.getValueAtPercentile(95)).append(",")
+      .append(eventSizes.getValueAtPercentile(99)).append(",")
+      .append(eventSizes.getValueAtPercentile(99.9)).append(",")
+      .append(writeLatencies.getValueAtPercentile(50)).append(",")
+      .append(writeLatencies.getValueAtPercentile(95)).append(",")
+      .append(writeLatencies.getValueAtPercentile(99)).append(",")
+      .append(writeLatencies.getValueAtPercentile(99.9)).toString();
     appender.doAppend(new LoggingEvent(loggerClass, logger, null, metric, null, null));
     LOG.debug("Successfully wrote metric with date: {}", currentDate);
   }
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+/**
+ * Management interface of the cumulative metrics of a pipe, registered in the platform MBean server
+ * under the name {@code co.cask.cdap.filetailer:type=PipeMetrics,name=<pipe name>}.
+ * Counters accumulate from the start of the pipe; latency percentiles cover the last completed metrics interval.
+ */
+public interface PipeMetricsMXBean {
+
+  /**
+   * Retrieves the name of the pipe.
+   *
+   * @return the pipe name
+   */
+  String getPipeName();
+
+  /**
+   * Retrieves the number of log entries read from the log files.
+   *
+   * @return the number of lines read
+   */
+  long getLinesRead();
+
+  /**
+   * Retrieves the total size of the log entries read from the log files.
+   *
+   * @return the number of bytes read
+   */
+  long getBytesRead();
+
+  /**
+   * Retrieves the number of events written to the Stream.
+   *
+   * @return the number of events ingested
+   */
+  long getEventsIngested();
+
+  /**
+   * Retrieves the sum of the write latencies of all ingested events.
+   *
+   * @return the total write latency, in milliseconds
+   */
+  long getWriteLatencySum();
+
+  /**
+   * Retrieves the number of retried write requests.
+   *
+   * @return the number of retries
+   */
+  long getRetries();
+
+  /**
+   * Retrieves the number of events waiting in the queue between the tailer and the sink.
+   *
+   * @return the queue depth
+   */
+  long getQueueDepth();
+
+  /**
+   * Retrieves the number of write requests sent to the Stream and not completed yet.
+   *
+   * @return the number of in-flight requests
+   */
+  long getInFlightRequests();
+
+  /**
+   * Retrieves the number of bytes of the log files, which are not read yet.
+   *
+   * @return the read lag, in bytes
+   */
+  long getReadLagBytes();
+
+  /**
+   * Retrieves the estimated time the reading is behind the writing of the log files,
+   * based on the modification times of the files.
+   *
+   * @return the read lag, in seconds
+   */
+  long getReadLagSeconds();
+
+  /**
+   * Retrieves the number of bytes of the log entries, which are read but not acknowledged by the Stream yet.
+   *
+   * @return the commit lag, in bytes
+   */
+  long getCommitLagBytes();
+
+  /**
+   * Retrieves the estimated time the acknowledged state is behind the reading, based on the modification times
+   * of the log files when the last read entry and the last acknowledged entry were read.
+   *
+   * @return the commit lag, in seconds
+   */
+  long getCommitLagSeconds();
+
+  /**
+   * Retrieves the median write latency.
+   *
+   * @return the 50th percentile of the write latency, in milliseconds
+   */
+  long getWriteLatencyP50();
+
+  /**
+   * Retrieves the 95th percentile of the write latency.
+   *
+   * @return the 95th percentile of the write latency, in milliseconds
+   */
+  long getWriteLatencyP95();
+
+  /**
+   * Retrieves the 99th percentile of the write latency.
+   *
+   * @return the 99th percentile of the write latency, in milliseconds
+   */
+  long getWriteLatencyP99();
+
+  /**
+   * Retrieves the 99.9th percentile of the write latency.
+   *
+   * @return the 99.9th percentile of the write latency, in milliseconds
+   */
+  long getWriteLatencyP999();
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Embedded HTTP server, which serves the cumulative metrics of all pipes at {@code /metrics}
+ * in the Prometheus text exposition format. The metrics are served without authentication, so
+ * the server listens only on the loopback address unless a host is configured explicitly.
+ */
+public class PrometheusMetricsServer extends AbstractIdleService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PrometheusMetricsServer.class);
+  private static final String METRICS_PATH = "/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String PREFIX = "filetailer_";
+
+  private final String host;
+  private final int port;
+  private final List<PipeMetricsMXBean> pipes;
+  private HttpServer server;
+
+  public PrometheusMetricsServer(int port, List<? extends PipeMetricsMXBean> pipes) {
+    this(null, port, pipes);
+  }
+
+  /**
+   * Creates a server bound to the given host.
+   *
+   * @param host the host or address to bind to; <code>null</code> for the loopback address
+   * @param port the port to bind to; 0 for an ephemeral port
+   * @param pipes the metrics of the pipes to serve
+   */
+  public PrometheusMetricsServer(String host, int port, List<? extends PipeMetricsMXBean> pipes) {
+    this.host = host;
+    this.port = port;
+    this.pipes = ImmutableList.copyOf(pipes);
+  }
+
+  /**
+   * Retrieves the address the server listens on.
+   *
+   * @return the bound address; <code>null</code> if the server is not running
+   */
+  public InetSocketAddress getBindAddress() {
+    HttpServer httpServer = server;
+    return httpServer == null ? null : httpServer.getAddress();
+  }
+
+  @Override
+  protected void startUp() throws IOException {
+    InetSocketAddress address = host == null
+      ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+      : new InetSocketAddress(host, port);
+    server = HttpServer.create(address, 0);
+    server.createContext(METRICS_PATH, new MetricsHandler());
+    server.start();
+    LOG.info("Serving pipe metrics at http://{}{}", server.getAddress(), METRICS_PATH);
+  }
+
+  @Override
+  protected void shutDown() {
+    server.stop(0);
+    server = null;
+  }
+
+  /**
+   * Formats the current metrics of all pipes.
+   *
+   * @return the metrics in the Prometheus text exposition format
+   */
+  String formatMetrics() {
+    StringBuilder sb = new StringBuilder();
+    appendCounter(sb, "lines_read_total", "Log entries read from the log files");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "lines_read_total", pipe, null, pipe.getLinesRead());
+    }
+    appendCounter(sb, "bytes_read_total", "Bytes of log entries read from the log files");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "bytes_read_total", pipe, null, pipe.getBytesRead());
+    }
+    appendCounter(sb, "events_ingested_total", "Events written to the Stream");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "events_ingested_total", pipe, null, pipe.getEventsIngested());
+    }
+    appendCounter(sb, "retries_total", "Retried write requests");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "retries_total", pipe, null, pipe.getRetries());
+    }
+    appendGauge(sb, "queue_depth", "Events waiting in the queue between the tailer and the sink");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "queue_depth", pipe, null, pipe.getQueueDepth());
+    }
+    appendGauge(sb, "in_flight_requests", "Write requests sent to the Stream and not completed yet");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "in_flight_requests", pipe, null, pipe.getInFlightRequests());
+    }
+    appendGauge(sb, "read_lag_bytes", "Bytes of the log files not read yet");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "read_lag_bytes", pipe, null, pipe.getReadLagBytes());
+    }
+    appendGauge(sb, "read_lag_seconds", "Estimated time the reading is behind the writing of the log files");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "read_lag_seconds", pipe, null, pipe.getReadLagSeconds());
+    }
+    appendGauge(sb, "commit_lag_bytes", "Bytes of log entries read and not acknowledged by the Stream yet");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "commit_lag_bytes", pipe, null, pipe.getCommitLagBytes());
+    }
+    appendGauge(sb, "commit_lag_seconds", "Estimated time the acknowledged state is behind the reading");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "commit_lag_seconds", pipe, null, pipe.getCommitLagSeconds());
+    }
+    sb.append("# HELP ").append(PREFIX).append("write_latency_ms ")
+      .append("Write latency of ingested events, in milliseconds; quantiles of the last metrics interval\n");
+    sb.append("# TYPE ").append(PREFIX).append("write_latency_ms summary\n");
+    for (PipeMetricsMXBean pipe : pipes) {
+      appendSample(sb, "write_latency_ms", pipe, "0.5", pipe.getWriteLatencyP50());
+      appendSample(sb, "write_latency_ms", pipe, "0.95", pipe.getWriteLatencyP95());
+      appendSample(sb, "write_latency_ms", pipe, "0.99", pipe.getWriteLatencyP99());
+      appendSample(sb, "write_latency_ms", pipe, "0.999", pipe.getWriteLatencyP999());
+      appendSample(sb, "write_latency_ms_sum", pipe, null, pipe.getWriteLatencySum());
+      appendSample(sb, "write_latency_ms_count", pipe, null, pipe.getEventsIngested());
+    }
+    return sb.toString();
+  }
+
+  private static void appendCounter(StringBuilder sb, String name, String help) {
+    sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(PREFIX).append(name).append(" counter\n");
+  }
+
+  private static void appendGauge(StringBuilder sb, String name, String help) {
+    sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    sb.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+  }
+
+  private static void appendSample(StringBuilder sb, String name, PipeMetricsMXBean pipe, String quantile,
+                                   long value) {
+    sb.append(PREFIX).append(name).append("{pipe=\"");
+    escapeLabelValue(sb, pipe.getPipeName());
+    sb.append('"');
+    if (quantile != null) {
+      sb.append(",quantile=\"").append(quantile).append('"');
+    }
+    sb.append("} ").append(value).append('\n');
+  }
+
+  private static void escapeLabelValue(StringBuilder sb, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '\\' || ch == '"') {
+        sb.append('\\').append(ch);
+      } else if (ch == '\n') {
+        sb.append("\\n");
+      } else {
+        sb.append(ch);
+      }
+    }
+  }
+
+  /**
+   * Responds to the GET requests with the current metrics.
+   */
+  private final class MetricsHandler implements HttpHandler {
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+          exchange.sendResponseHeaders(405, -1);
+          return;
+        }
+        byte[] body = formatMetrics().getBytes(Charsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+          out.write(body);
+        } finally {
+          out.close();
+        }
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+/**
+ * Progress of reading the log files of a pipe, sampled by the metrics processor.
+ */
+public interface ReadProgress {
+
+  /**
+   * Retrieves the number of bytes of the log files, which are not read yet: the rest of the file being read,
+   * along with all log files following it.
+   *
+   * @return the read lag, in bytes
+   */
+  long getReadLagBytes();
+
+  /**
+   * Retrieves the estimated time the reading is behind the writing of the log files: the difference between
+   * the latest modification time of the unread log files and the modification time of the last read entry.
+   *
+   * @return the read lag, in seconds; 0 if all log files are read
+   */
+  long getReadLagSeconds();
+
+  /**
+   * Retrieves the modification time of the log file at the time its last entry was read.
+   *
+   * @return the modification time of the last read entry, in milliseconds; 0 if no entry was read yet
+   */
+  long getReadModifyTime();
+}
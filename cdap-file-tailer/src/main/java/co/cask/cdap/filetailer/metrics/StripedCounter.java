@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter that spreads concurrent updates over several cache line padded stripes, in the manner of
+ * the Java 8 {@code LongAdder}. A thread that loses a race for its stripe moves to another one,
+ * so the updating threads settle on distinct stripes; the value is the sum of all stripes.
+ */
+final class StripedCounter {
+
+  /**
+   * Number of longs in a 64 byte cache line; only the first long of each line is used.
+   */
+  private static final int PADDING = 8;
+  private static final int MAX_STRIPES = 64;
+  private static final int STRIPES =
+    Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1);
+  private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[] { System.identityHashCode(Thread.currentThread()) | 1 };
+    }
+  };
+
+  private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+
+  /**
+   * Adds the given value.
+   *
+   * @param value the value to add
+   */
+  void add(long value) {
+    int[] probe = PROBE.get();
+    int index = (probe[0] & (STRIPES - 1)) * PADDING;
+    long current = stripes.get(index);
+    if (!stripes.compareAndSet(index, current, current + value)) {
+      // the stripe is contended; this thread uses another stripe from now on
+      int hash = probe[0];
+      hash ^= hash << 13;
+      hash ^= hash >>> 17;
+      hash ^= hash << 5;
+      probe[0] = hash;
+      stripes.getAndAdd(index, value);
+    }
+  }
+
+  /**
+   * Adds one.
+   */
+  void increment() {
+    add(1);
+  }
+
+  /**
+   * Retrieves the sum of all added values. Concurrent updates may or may not be included.
+   *
+   * @return the sum
+   */
+  long sum() {
+    long sum = 0;
+    for (int i = 0; i < stripes.length(); i += PADDING) {
+      sum += stripes.get(i);
+    }
+    return sum;
+  }
+
+  /**
+   * Retrieves the sum of all added values and resets the counter to zero. No concurrent update is lost:
+   * each one is included either in the returned sum or in the next one.
+   *
+   * @return the sum
+   */
+  long sumThenReset() {
+    long sum = 0;
+    for (int i = 0; i < stripes.length(); i += PADDING) {
+      sum += stripes.getAndSet(i, 0);
+    }
+    return sum;
+  }
+}
@@ -17,6 +17,7 @@
 package co.cask.cdap.filetailer.queue;
 
 import co.cask.cdap.filetailer.event.FileTailerEvent;
+import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * File Tailer Queue presentation
@@ -50,6 +52,19 @@ public class FileTailerQueue {
     LOG.trace("Attempt to put event {} to queue was successful", event);
   }
 
+  /**
+   * Puts an event into the queue, unless the queue is full.
+   *
+   * @param event the event
+   * @return false if the queue is full, so the event was not put
+   */
+  public boolean offer(FileTailerEvent event) {
+    LOG.trace("Attempt to offer event {} to queue", event);
+    boolean offered = queue.offer(event);
+    LOG.trace("Attempt to offer event {} to queue was successful: {}", event, offered);
+    return offered;
+  }
+
   /**
    * Takes an event out from the queue.
    *
@@ -83,4 +98,48 @@ public class FileTailerQueue {
     queue.drainTo(collection, max);
     LOG.trace("{} events taken from queue was successfully", collection.size());
   }
+
+  /**
+   * Drains events from the queue to a specified collection, waiting up to the specified time for the first event
+   * to become available.
+   *
+   * @param collection the collection for the drained events
+   * @param max the maximum number of events to drain
+   * @param timeout how long to wait for the first event, in units of unit
+   * @param unit the time unit of the timeout argument
+   * @return the number of drained events; 0 if the timeout elapsed before an event became available
+   * @throws InterruptedException in case interrupted while waiting
+   */
+  public int drainTo(Collection<? super FileTailerEvent> collection,
+                     int max, long timeout, TimeUnit unit) throws InterruptedException {
+    Preconditions.checkArgument(max > 0, "Maximum number of events must be positive");
+    LOG.trace("Attempt to take {} events from queue", max);
+    FileTailerEvent event = queue.poll(timeout, unit);
+    if (event == null) {
+      LOG.trace("No events taken from queue");
+      return 0;
+    }
+    collection.add(event);
+    int count = 1 + queue.drainTo(collection, max - 1);
+    LOG.trace("{} events taken from queue was successfully", count);
+    return count;
+  }
+
+  /**
+   * Retrieves the number of events in the queue.
+   *
+   * @return the number of events
+   */
+  public int size() {
+    return queue.size();
+  }
+
+  /**
+   * Retrieves the number of events, which can be put into the queue without waiting.
+   *
+   * @return the remaining capacity
+   */
+  public int remainingCapacity() {
+    return queue.remainingCapacity();
+  }
 }
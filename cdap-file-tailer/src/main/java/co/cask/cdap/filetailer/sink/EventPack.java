@@ -21,7 +21,9 @@ import co.cask.cdap.filetailer.state.FileTailerState;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a "pack" of FileTailerEvents.
@@ -72,7 +74,8 @@ class EventPack {
   /**
    * Retrieves the state of this pack.
    * State of pack it is a state of some event from pack with the highest values:
-   * last time modified and position
+   * last time modified and position.
+   * If the events come from several log files, the state also holds the state of the last event of each file.
    *
    * @return state of this pack or null in case pack is empty
    */
@@ -81,6 +84,7 @@ class EventPack {
       return null;
     }
     FileTailerState finalState = events.get(0).getState();
+    Map<String, FileTailerState> fileStates = null;
     for (FileTailerEvent event : events) {
       FileTailerState tmpState = event.getState();
       if (tmpState.getLastModifyTime() > finalState.getLastModifyTime() ||
@@ -88,8 +92,17 @@ class EventPack {
           tmpState.getPosition() > finalState.getPosition()) {
         finalState = tmpState;
       }
+      if (fileStates == null && !tmpState.getFileName().equals(events.get(0).getState().getFileName())) {
+        fileStates = new LinkedHashMap<String, FileTailerState>();
+      }
+    }
+    if (fileStates == null) {
+      return finalState;
+    }
+    for (FileTailerEvent event : events) {
+      fileStates.put(event.getState().getFileName(), event.getState());
     }
-    return finalState;
+    return finalState.withFileStates(new ArrayList<FileTailerState>(fileStates.values()));
   }
 
   /**
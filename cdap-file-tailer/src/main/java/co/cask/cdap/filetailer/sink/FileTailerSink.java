@@ -22,34 +22,52 @@ import co.cask.cdap.filetailer.PipeListener;
 import co.cask.cdap.filetailer.event.FileTailerEvent;
 import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
 import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerState;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Sink daemon
+ * Sink daemon. A failed upload is retried by a retry thread of the sink, never by the thread completing
+ * the upload: with the writes in progress limited, a retry waiting for room in the callback of a write
+ * would hold up the completion of the writes, which make the room.
  */
 public class FileTailerSink extends AbstractWorker {
 
   private static final Logger LOG = LoggerFactory.getLogger(FileTailerSink.class);
 
   private static final int DEFAULT_PACK_SIZE = 1;
+  private static final int DEFAULT_MAX_PACKS_IN_FLIGHT = 1;
   private static final int MAX_RETRY_COUNT = 3;
+  private static final long DEFAULT_PACK_LINGER_MS = 0;
+  private static final long DRAIN_TIMEOUT_MS = 100;
   private final FileTailerQueue queue;
   private final SinkStrategy strategy;
   private final StreamWriter writer;
   private final int packSize;
+  private final int maxPacksInFlight;
+  private final long packLingerMs;
+  private final Deque<InFlightPack> inFlightPacks;
   private final Random random;
   private final FileTailerStateProcessor stateProcessor;
   private final FileTailerMetricsProcessor metricsProcessor;
+  private final ExecutorService retryExecutor;
 
   private PipeListener pipeListener;
 
@@ -64,14 +82,35 @@ public class FileTailerSink extends AbstractWorker {
                         FileTailerStateProcessor stateProcessor,
                         FileTailerMetricsProcessor metricsProcessor,
                         PipeListener pipeListener, int packSize) {
+    this(queue, writer, strategy, stateProcessor, metricsProcessor, pipeListener, packSize,
+         DEFAULT_MAX_PACKS_IN_FLIGHT);
+  }
+
+  public FileTailerSink(FileTailerQueue queue, StreamWriter writer, SinkStrategy strategy,
+                        FileTailerStateProcessor stateProcessor,
+                        FileTailerMetricsProcessor metricsProcessor,
+                        PipeListener pipeListener, int packSize, int maxPacksInFlight) {
+    this(queue, writer, strategy, stateProcessor, metricsProcessor, pipeListener, packSize, maxPacksInFlight,
+         DEFAULT_PACK_LINGER_MS);
+  }
+
+  public FileTailerSink(FileTailerQueue queue, StreamWriter writer, SinkStrategy strategy,
+                        FileTailerStateProcessor stateProcessor,
+                        FileTailerMetricsProcessor metricsProcessor,
+                        PipeListener pipeListener, int packSize, int maxPacksInFlight, long packLingerMs) {
     this.stateProcessor = stateProcessor;
     this.metricsProcessor = metricsProcessor;
     this.queue = queue;
     this.writer = writer;
     this.strategy = strategy;
     this.packSize = packSize;
+    this.maxPacksInFlight = maxPacksInFlight;
+    this.packLingerMs = packLingerMs;
+    this.inFlightPacks = new ArrayDeque<InFlightPack>(maxPacksInFlight);
     this.random = new Random();
     this.pipeListener = pipeListener;
+    this.retryExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("sink-retry-%d").setDaemon(true).build());
   }
 
   @Override
@@ -79,30 +118,37 @@ public class FileTailerSink extends AbstractWorker {
     LOG.debug("Creating new event pack");
     EventPack pack = new EventPack(packSize);
     List<FileTailerEvent> events = new ArrayList<FileTailerEvent>(packSize);
+    long packStartTime = 0;
     while (isRunning()) {
       try {
         if (pipeListener != null && pipeListener.isRead() && queue.isEmpty()) {
           if (!pack.isEmpty()) {
             uploadEventPack(pack);
-            LOG.debug("Saving File Tailer state");
-            stateProcessor.saveState(pack.getState());
-            LOG.debug("Cleanup event pack");
-            pack.clear();
           }
+          commitEventPacks(0);
           pipeListener.onIngest();
           break;
         }
-        queue.drainTo(events, pack.getFreeSize());
-        pack.addAll(events);
-        events.clear();
-        if (pack.isFull()) {
-          LOG.debug("Event pack is full");
+        long timeout = DRAIN_TIMEOUT_MS;
+        if (!pack.isEmpty() && packLingerMs > 0) {
+          timeout = Math.max(0, Math.min(timeout, packStartTime + packLingerMs - System.currentTimeMillis()));
+        }
+        if (queue.drainTo(events, pack.getFreeSize(), timeout, TimeUnit.MILLISECONDS) > 0) {
+          if (pack.isEmpty()) {
+            packStartTime = System.currentTimeMillis();
+          }
+          pack.addAll(events);
+          events.clear();
+        }
+        boolean packExpired = !pack.isEmpty() && packLingerMs > 0
+          && System.currentTimeMillis() - packStartTime >= packLingerMs;
+        if (pack.isFull() || packExpired) {
+          LOG.debug("Event pack is {}", pack.isFull() ? "full" : "expired");
           uploadEventPack(pack);
-          LOG.debug("Saving File Tailer state");
-          stateProcessor.saveState(pack.getState());
-          LOG.debug("Cleanup event pack");
-          pack.clear();
+          LOG.debug("Creating new event pack");
+          pack = new EventPack(packSize);
         }
+        commitEventPacks(maxPacksInFlight - 1);
       } catch (InterruptedException e) {
         LOG.info("Sink was interrupted");
         break;
@@ -114,26 +160,91 @@ public class FileTailerSink extends AbstractWorker {
     LOG.info("Sink stopped.");
   }
 
+  @Override
+  protected void shutDown() {
+    try {
+      commitEventPacks(0);
+    } catch (InterruptedException e) {
+      LOG.info("Sink was interrupted while waiting for the uploads in flight");
+    } catch (IOException e) {
+      LOG.warn("Exception while sending events", e);
+    }
+    retryExecutor.shutdown();
+    try {
+      stateProcessor.flush();
+    } catch (IOException e) {
+      LOG.warn("Exception while saving File Tailer state", e);
+    }
+  }
+
   /**
-   * Uploads all events in the pack; this method blocks until the entire package is uploaded.
+   * Starts the upload of all events in the pack; the pack is considered in flight until all its events are uploaded.
+   * A pack of several events is sent to the Stream in a single batch request.
    *
    * @param pack the event pack
    */
-  private void uploadEventPack(EventPack pack) throws InterruptedException, IOException {
+  private void uploadEventPack(EventPack pack) throws IOException {
     List<FileTailerEvent> events = pack.getEvents();
     UploadLatch upload = new UploadLatch(events.size());
 
+    if (events.size() == 1) {
+      uploadEvent(upload, events.get(0));
+    } else {
+      uploadEvents(upload, events, 0);
+    }
+    long bytes = 0;
     for (FileTailerEvent event : events) {
-      uploadEvent(upload, event);
+      bytes += event.getEventBody().remaining();
     }
+    inFlightPacks.add(new InFlightPack(upload, pack.getState(), bytes));
+  }
 
-    upload.await();
+  /**
+   * Saves the state of the uploaded packs in the order the packs were sent, so the saved state never passes
+   * a pack that is not uploaded yet. Blocks until no more than the given number of packs remain in flight.
+   *
+   * @param maxRemaining the maximum number of packs, which may remain in flight
+   * @throws IOException if a pack failed to upload
+   */
+  private void commitEventPacks(int maxRemaining) throws InterruptedException, IOException {
+    while (!inFlightPacks.isEmpty()) {
+      InFlightPack inFlightPack = inFlightPacks.peek();
+      if (inFlightPacks.size() > maxRemaining) {
+        inFlightPack.upload.await();
+      } else if (!inFlightPack.upload.isComplete()) {
+        break;
+      }
+      inFlightPacks.poll();
+      if (!inFlightPack.upload.isSuccessful()) {
+        List<FileTailerEvent> failedEvents = inFlightPack.upload.getFailedEvents();
+        LOG.debug("Failed to upload {} events ", failedEvents.size());
+        inFlightPacks.clear();
+        throw new IOException("Failed to upload events!");
+      }
+      LOG.debug("Saving File Tailer state");
+      stateProcessor.saveState(inFlightPack.state);
+      metricsProcessor.onCommitMetric(inFlightPack.bytes, inFlightPack.state.getLastModifyTime());
+    }
+  }
 
-    if (!upload.isSuccessful()) {
-      List<FileTailerEvent> failedEvents = upload.getFailedEvents();
-      LOG.debug("Failed to upload {} events ", failedEvents.size());
-      throw new IOException("Failed to upload events!");
+  /**
+   * Uploads a list of events in one batch, with multiple attempts made if necessary, up to the specified retry count.
+   *
+   * @param latch the latch
+   * @param events the events
+   * @param retryCount the number of attempts to upload events
+   */
+  private void uploadEvents(UploadLatch latch, List<FileTailerEvent> events, int retryCount) {
+    LOG.debug("Uploading {} events with writer {}. Attempt {} out of {} ",
+              events.size(), writer, retryCount, MAX_RETRY_COUNT);
+    List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(events.size());
+    for (FileTailerEvent event : events) {
+      buffers.add(event.getEventBody());
     }
+    long sendStartTime = System.currentTimeMillis();
+    metricsProcessor.onRequestStartMetric();
+    ListenableFuture<Void> resultFuture = writer.writeBatch(buffers);
+    Futures.addCallback(resultFuture, new BatchWriteCallback(events, latch, retryCount, sendStartTime));
   }
 
   /**
@@ -158,11 +269,28 @@ public class FileTailerSink extends AbstractWorker {
   private void uploadEvent(UploadLatch latch, FileTailerEvent event, int retryCount) throws IOException {
     LOG.debug("Uploading event {} with writer {}. Attempt {} out of {} ", event, writer, retryCount, MAX_RETRY_COUNT);
     long sendStartTime = System.currentTimeMillis();
-    ListenableFuture<Void> resultFuture = writer.write(event.getEventData(), event.getCharset());
+    metricsProcessor.onRequestStartMetric();
+    ListenableFuture<Void> resultFuture = writer.write(event.getEventBody());
     Futures.addCallback(resultFuture, new WriteCallback(event, latch, MAX_RETRY_COUNT, retryCount, sendStartTime));
   }
 
 
+  /**
+   * Hands a retry of a failed upload over to the retry thread.
+   *
+   * @param retry the retry
+   * @return false if the sink is stopped, so the upload is not retried
+   */
+  private boolean scheduleRetry(Runnable retry) {
+    try {
+      retryExecutor.execute(retry);
+      return true;
+    } catch (RejectedExecutionException e) {
+      LOG.debug("Sink is stopped; the failed upload is not retried");
+      return false;
+    }
+  }
+
   class WriteCallback implements FutureCallback<Void> {
     private final FileTailerEvent event;
     private final UploadLatch latch;
@@ -185,22 +313,97 @@ public class FileTailerSink extends AbstractWorker {
     @Override
     public void onSuccess(Void aVoid) {
       LOG.debug("Event {} successfully uploaded", event);
+      metricsProcessor.onRequestCompleteMetric();
       metricsProcessor.onIngestEventMetric((int) (System.currentTimeMillis() - sendStartTime));
       latch.reportSuccess();
     }
 
     @Override
     public void onFailure(Throwable throwable) {
+      metricsProcessor.onRequestCompleteMetric();
       if (maxRetryCount == retryCount) {
         LOG.debug("Failed to upload event {}", event);
         latch.reportFailure(event);
       } else {
-        try {
-          uploadEvent(latch, event, retryCount + 1);
-        } catch (IOException e) {
-          LOG.debug("Failed to upload event", e);
+        metricsProcessor.onRetryMetric();
+        boolean scheduled = scheduleRetry(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              uploadEvent(latch, event, retryCount + 1);
+            } catch (IOException e) {
+              LOG.debug("Failed to upload event", e);
+              latch.reportFailure(event);
+            }
+          }
+        });
+        if (!scheduled) {
+          latch.reportFailure(event);
+        }
+      }
+    }
+  }
+
+  /**
+   * An uploading pack, along with the state to save once it is uploaded and the total size of its events.
+   */
+  private static final class InFlightPack {
+    private final UploadLatch upload;
+    private final FileTailerState state;
+    private final long bytes;
+
+    private InFlightPack(UploadLatch upload, FileTailerState state, long bytes) {
+      this.upload = upload;
+      this.state = state;
+      this.bytes = bytes;
+    }
+  }
+
+  class BatchWriteCallback implements FutureCallback<Void> {
+    private final List<FileTailerEvent> events;
+    private final UploadLatch latch;
+    private final int retryCount;
+    private final long sendStartTime;
+
+    BatchWriteCallback(List<FileTailerEvent> events, UploadLatch latch, int retryCount, long sendStartTime) {
+      this.events = events;
+      this.latch = latch;
+      this.retryCount = retryCount;
+      this.sendStartTime = sendStartTime;
+    }
+
+    @Override
+    public void onSuccess(Void aVoid) {
+      LOG.debug("{} events successfully uploaded", events.size());
+      metricsProcessor.onRequestCompleteMetric();
+      int latency = (int) (System.currentTimeMillis() - sendStartTime);
+      for (int i = 0; i < events.size(); i++) {
+        metricsProcessor.onIngestEventMetric(latency);
+        latch.reportSuccess();
+      }
+    }
+
+    @Override
+    public void onFailure(Throwable throwable) {
+      metricsProcessor.onRequestCompleteMetric();
+      if (MAX_RETRY_COUNT == retryCount) {
+        LOG.debug("Failed to upload {} events", events.size(), throwable);
+        for (FileTailerEvent event : events) {
           latch.reportFailure(event);
         }
+      } else {
+        metricsProcessor.onRetryMetric();
+        boolean scheduled = scheduleRetry(new Runnable() {
+          @Override
+          public void run() {
+            uploadEvents(latch, events, retryCount + 1);
+          }
+        });
+        if (!scheduled) {
+          for (FileTailerEvent event : events) {
+            latch.reportFailure(event);
+          }
+        }
       }
     }
   }
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.state;
+
+import co.cask.cdap.filetailer.state.exception.FileTailerStateProcessorException;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AbstractScheduledService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoint service shared by the pipes. The state processors registered with the service do not write
+ * the saved states: they hand the states over to the service, which keeps only the newest state of each pipe
+ * and writes the states of all pipes changed since the previous pass once per flush interval, on its own thread.
+ */
+public class CheckpointService extends AbstractScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CheckpointService.class);
+
+  private final long flushIntervalMs;
+  private final ConcurrentMap<CoalescingStateProcessor, FileTailerState> dirtyStates =
+    new ConcurrentHashMap<CoalescingStateProcessor, FileTailerState>();
+
+  public CheckpointService(long flushIntervalMs) {
+    Preconditions.checkArgument(flushIntervalMs > 0, "Flush interval must be positive");
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  /**
+   * Registers the state processor of a pipe with this service.
+   *
+   * @param stateProcessor the state processor, which writes the states of the pipe
+   * @return the state processor to be used by the pipe, which hands the saved states over to this service
+   */
+  public FileTailerStateProcessor register(FileTailerStateProcessor stateProcessor) {
+    return new CoalescingStateProcessor(stateProcessor);
+  }
+
+  @Override
+  protected void runOneIteration() {
+    flushDirtyStates();
+  }
+
+  @Override
+  protected void shutDown() {
+    flushDirtyStates();
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Writes the newest state of every pipe, which saved a state since the previous pass.
+   */
+  void flushDirtyStates() {
+    int flushed = 0;
+    for (CoalescingStateProcessor stateProcessor : dirtyStates.keySet()) {
+      try {
+        if (stateProcessor.writeDirtyState()) {
+          flushed++;
+        }
+      } catch (FileTailerStateProcessorException e) {
+        LOG.warn("Cannot save File Tailer state: {}", e.getMessage(), e);
+      }
+    }
+    LOG.trace("Saved the states of {} pipes", flushed);
+  }
+
+  /**
+   * State processor of a pipe, which hands the saved states over to the service.
+   */
+  private final class CoalescingStateProcessor implements FileTailerStateProcessor {
+    private final FileTailerStateProcessor delegate;
+
+    private CoalescingStateProcessor(FileTailerStateProcessor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void saveState(FileTailerState state) {
+      if (state != null) {
+        dirtyStates.put(this, state);
+      }
+    }
+
+    @Override
+    public FileTailerState loadState() throws FileTailerStateProcessorException {
+      FileTailerState state = dirtyStates.get(this);
+      return state == null ? delegate.loadState() : state;
+    }
+
+    @Override
+    public synchronized void flush() throws FileTailerStateProcessorException {
+      writeDirtyState();
+      delegate.flush();
+    }
+
+    /**
+     * Writes the newest saved state, if it is not written yet. The state is taken and written under the lock
+     * of this processor, so a state is never overwritten with an older one.
+     *
+     * @return true if a state was written
+     * @throws FileTailerStateProcessorException in case the state can not be saved
+     */
+    private synchronized boolean writeDirtyState() throws FileTailerStateProcessorException {
+      FileTailerState state = dirtyStates.remove(this);
+      if (state == null) {
+        return false;
+      }
+      delegate.saveState(state);
+      return true;
+    }
+  }
+}
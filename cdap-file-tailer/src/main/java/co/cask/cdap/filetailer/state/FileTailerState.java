@@ -17,6 +17,8 @@
 package co.cask.cdap.filetailer.state;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * File Tailer State presentation
@@ -27,12 +29,46 @@ public class FileTailerState {
   private final long position;
   private final int hash;
   private final long lastModifyTime;
+  private final String fileKey;
+  private final long fingerprint;
+  private final int fingerprintLength;
+  private final List<FileTailerState> fileStates;
 
   public FileTailerState(String fileName, long position, int hash, long lastModifyTime) {
+    this(fileName, position, hash, lastModifyTime, null, 0, 0);
+  }
+
+  public FileTailerState(String fileName, long position, int hash, long lastModifyTime,
+                         String fileKey, long fingerprint, int fingerprintLength) {
     this.fileName = fileName;
     this.position = position;
     this.hash = hash;
     this.lastModifyTime = lastModifyTime;
+    this.fileKey = fileKey;
+    this.fingerprint = fingerprint;
+    this.fingerprintLength = fingerprintLength;
+    this.fileStates = null;
+  }
+
+  private FileTailerState(FileTailerState state, List<FileTailerState> fileStates) {
+    this.fileName = state.fileName;
+    this.position = state.position;
+    this.hash = state.hash;
+    this.lastModifyTime = state.lastModifyTime;
+    this.fileKey = state.fileKey;
+    this.fingerprint = state.fingerprint;
+    this.fingerprintLength = state.fingerprintLength;
+    this.fileStates = fileStates;
+  }
+
+  /**
+   * Creates a copy of this state, which also holds the states of several log files read at once.
+   *
+   * @param fileStates the latest state of each log file
+   * @return the state
+   */
+  public FileTailerState withFileStates(List<FileTailerState> fileStates) {
+    return new FileTailerState(this, fileStates);
   }
 
   /**
@@ -71,6 +107,42 @@ public class FileTailerState {
     return lastModifyTime;
   }
 
+  /**
+   * Retrieves the key that uniquely identifies the log file, such as the device and inode on Unix.
+   *
+   * @return the file key; <code>null</code> if it is not available
+   */
+  public String getFileKey() {
+    return fileKey;
+  }
+
+  /**
+   * Retrieves the hash of the first bytes of the log file.
+   *
+   * @return the fingerprint of the log file
+   */
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Retrieves the number of bytes at the beginning of the log file, which the fingerprint is calculated of.
+   *
+   * @return the fingerprint length; 0 if there is no fingerprint
+   */
+  public int getFingerprintLength() {
+    return fingerprintLength;
+  }
+
+  /**
+   * Retrieves the latest state of each log file, when several log files are read at once.
+   *
+   * @return the states of the log files; this state alone if it holds no file states
+   */
+  public List<FileTailerState> getFileStates() {
+    return fileStates == null ? Collections.singletonList(this) : fileStates;
+  }
+
   @Override
   public String toString() {
     return new StringBuffer("FileTailerState{")
@@ -78,6 +150,10 @@ public class FileTailerState {
       .append(", position=").append(position)
       .append(", hash='").append(hash).append('\'')
       .append(", lastModifyTime=").append(lastModifyTime)
+      .append(", fileKey='").append(fileKey).append('\'')
+      .append(", fingerprint=").append(fingerprint)
+      .append(", fingerprintLength=").append(fingerprintLength)
+      .append(", fileStates=").append(fileStates)
       .append('}').toString();
   }
 }
@@ -38,4 +38,10 @@ public interface FileTailerStateProcessor {
    * @return last saved state of File Tailer
    */
   FileTailerState loadState() throws FileTailerStateProcessorException;
+
+  /**
+   * Writes the last saved state, if it was not written yet, and releases the state file.
+   * Used when the File Tailer stops, as a state processor may defer writing the saved states.
+   */
+  void flush() throws FileTailerStateProcessorException;
 }
@@ -19,73 +19,127 @@ package co.cask.cdap.filetailer.state;
 import co.cask.cdap.filetailer.state.exception.FileTailerStateProcessorException;
 import com.google.common.base.Preconditions;
 import com.google.common.io.Closeables;
-import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
-import com.google.gson.stream.JsonWriter;
+import com.google.gson.JsonParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * File Tailer state processor
+ * File Tailer state processor.
+ * The states are appended to the state file as checkpoints, one JSON record per line, and the last complete
+ * record is loaded, so a write interrupted by a crash loses only the checkpoint being written.
+ * A checkpoint is written after every checkpointIntervalPacks saved states, or after checkpointIntervalMs since
+ * the previous checkpoint; the states saved in between are written only if they are the last ones when the
+ * processor is flushed, or, with a checkpoint interval time, once that time has elapsed without new states.
+ * Once compactionThreshold checkpoints are appended, the state file is replaced with one
+ * holding the latest checkpoint only, by writing a temporary file and renaming it over the state file.
  */
 public class FileTailerStateProcessorImpl implements FileTailerStateProcessor {
 
   private static final Logger LOG = LoggerFactory.getLogger(FileTailerStateProcessorImpl.class);
   private static final Charset UTF_8 = Charset.forName("UTF-8");
   private static final Gson GSON = new Gson();
+  private static final int DEFAULT_CHECKPOINT_INTERVAL_PACKS = 1;
+  private static final long DEFAULT_CHECKPOINT_INTERVAL_MS = 0;
+  private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final ScheduledExecutorService CHECKPOINT_TIMER = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("checkpoint-timer").setDaemon(true).build());
 
   private final File stateDir;
   private final File stateFile;
+  private final File tempFile;
+  private final int checkpointIntervalPacks;
+  private final long checkpointIntervalMs;
+  private final boolean sync;
+  private final int compactionThreshold;
+  private FileChannel checkpointLog;
+  private int checkpoints;
+  private FileTailerState pendingState;
+  private int pendingStates;
+  private long lastCheckpointTime;
+  private ScheduledFuture<?> checkpointTask;
 
   public FileTailerStateProcessorImpl(File stateDir, String stateFileName) {
+    this(stateDir, stateFileName, DEFAULT_CHECKPOINT_INTERVAL_PACKS, DEFAULT_CHECKPOINT_INTERVAL_MS, false,
+         DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  public FileTailerStateProcessorImpl(File stateDir, String stateFileName, int checkpointIntervalPacks,
+                                      long checkpointIntervalMs, boolean sync, int compactionThreshold) {
+    Preconditions.checkArgument(checkpointIntervalPacks > 0, "Checkpoint interval must be positive");
+    Preconditions.checkArgument(checkpointIntervalMs >= 0, "Checkpoint interval time can not be negative");
+    Preconditions.checkArgument(compactionThreshold > 0, "Compaction threshold must be positive");
     this.stateDir = stateDir;
-    stateFile = new File(stateDir, stateFileName);
+    this.stateFile = new File(stateDir, stateFileName);
+    this.tempFile = new File(stateDir, stateFileName + TEMP_FILE_SUFFIX);
+    this.checkpointIntervalPacks = checkpointIntervalPacks;
+    this.checkpointIntervalMs = checkpointIntervalMs;
+    this.sync = sync;
+    this.compactionThreshold = compactionThreshold;
   }
 
   @Override
-  public void saveState(FileTailerState state) throws FileTailerStateProcessorException {
+  public synchronized void saveState(FileTailerState state) throws FileTailerStateProcessorException {
     try {
       Preconditions.checkNotNull(state);
     } catch (NullPointerException e) {
       LOG.info("Cannot save null state");
       return;
     }
-    createDirs(stateDir);
-    LOG.debug("Start saving File Tailer state ..");
-    try {
-      JsonWriter jsonWriter = new JsonWriter(Files.newWriter(stateFile, UTF_8));
-      try {
-        GSON.toJson(state, FileTailerState.class, jsonWriter);
-        LOG.debug("File Tailer state saved successfully");
-      } finally {
-        try {
-          jsonWriter.close();
-        } catch (IOException e) {
-          LOG.error("Cannot close JSON Writer for file {}: {}", stateFile.getAbsolutePath(), e.getMessage(), e);
-        }
-      }
-    } catch (IOException e) {
-      LOG.error("Cannot close JSON Writer for file {}: {}", stateFile.getAbsolutePath(), e.getMessage(), e);
+    pendingState = state;
+    pendingStates++;
+    long now = System.currentTimeMillis();
+    if (pendingStates >= checkpointIntervalPacks
+      || (checkpointIntervalMs > 0 && now - lastCheckpointTime >= checkpointIntervalMs)) {
+      checkpoint(now);
     }
+    scheduleCheckpoint(now);
   }
 
   @Override
-  public FileTailerState loadState() throws FileTailerStateProcessorException {
+  public synchronized FileTailerState loadState() throws FileTailerStateProcessorException {
+    if (pendingState != null) {
+      return pendingState;
+    }
     if (!stateFile.exists()) {
       LOG.info("Not found state file: {}", stateFile.getAbsolutePath());
       return null;
     }
     LOG.debug("Start loading File Tailer state ..");
     try {
-      BufferedReader reader = Files.newReader(stateFile, UTF_8);
+      BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), UTF_8);
       try {
-        FileTailerState state = GSON.fromJson(reader, FileTailerState.class);
-        LOG.debug("File Tailer state loaded successfully");
+        FileTailerState state = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+          FileTailerState checkpoint = parseCheckpoint(line);
+          if (checkpoint != null) {
+            state = checkpoint;
+          }
+        }
+        if (state == null) {
+          LOG.warn("No complete checkpoint found in state file {}", stateFile.getAbsolutePath());
+        } else {
+          LOG.debug("File Tailer state loaded successfully");
+        }
         return state;
       } finally {
         Closeables.closeQuietly(reader);
@@ -96,6 +150,165 @@ public class FileTailerStateProcessorImpl implements FileTailerStateProcessor {
     }
   }
 
+  @Override
+  public synchronized void flush() throws FileTailerStateProcessorException {
+    if (checkpointTask != null) {
+      checkpointTask.cancel(false);
+      checkpointTask = null;
+    }
+    if (pendingState != null) {
+      checkpoint(System.currentTimeMillis());
+    }
+    closeCheckpointLog();
+  }
+
+  /**
+   * Schedules the checkpoint of the pending state once the checkpoint interval time has elapsed, so the last
+   * state of a pipe, which goes idle, is not left unwritten.
+   *
+   * @param now the current time
+   */
+  private void scheduleCheckpoint(long now) {
+    if (checkpointIntervalMs == 0 || pendingState == null || checkpointTask != null) {
+      return;
+    }
+    checkpointTask = CHECKPOINT_TIMER.schedule(new Runnable() {
+      @Override
+      public void run() {
+        checkpointPendingState();
+      }
+    }, Math.max(0, lastCheckpointTime + checkpointIntervalMs - now), TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void checkpointPendingState() {
+    checkpointTask = null;
+    long now = System.currentTimeMillis();
+    if (pendingState != null) {
+      checkpoint(now);
+    }
+    scheduleCheckpoint(now);
+  }
+
+  /**
+   * Writes the last saved state to the state file, compacting the file if needed. The state remains pending
+   * if it can not be written, so it is written with the next checkpoint.
+   *
+   * @param now the current time
+   */
+  private void checkpoint(long now) {
+    LOG.debug("Start saving File Tailer state ..");
+    ByteBuffer record = ByteBuffer.wrap((GSON.toJson(pendingState, FileTailerState.class) + "\n").getBytes(UTF_8));
+    try {
+      if (checkpointLog == null || checkpoints >= compactionThreshold) {
+        compact(record);
+      } else {
+        append(record);
+      }
+      LOG.debug("File Tailer state saved successfully");
+    } catch (IOException e) {
+      LOG.error("Cannot save File Tailer state to file {}: {}", stateFile.getAbsolutePath(), e.getMessage(), e);
+      closeCheckpointLog();
+      return;
+    }
+    pendingState = null;
+    pendingStates = 0;
+    lastCheckpointTime = now;
+  }
+
+  /**
+   * Appends a checkpoint to the state file.
+   *
+   * @param record the checkpoint record
+   * @throws IOException in case the checkpoint can not be written
+   */
+  private void append(ByteBuffer record) throws IOException {
+    while (record.hasRemaining()) {
+      checkpointLog.write(record);
+    }
+    if (sync) {
+      checkpointLog.force(false);
+    }
+    checkpoints++;
+  }
+
+  /**
+   * Replaces the state file with a new one, holding only the given checkpoint, and opens it for appending.
+   *
+   * @param record the checkpoint record
+   * @throws IOException in case the state file can not be replaced
+   */
+  private void compact(ByteBuffer record) throws IOException {
+    closeCheckpointLog();
+    createDirs(stateDir);
+    FileOutputStream out = new FileOutputStream(tempFile);
+    try {
+      FileChannel channel = out.getChannel();
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+      if (sync) {
+        channel.force(false);
+      }
+    } finally {
+      out.close();
+    }
+    try {
+      Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    if (sync) {
+      syncDir(stateDir);
+    }
+    checkpointLog = new FileOutputStream(stateFile, true).getChannel();
+    checkpoints = 1;
+  }
+
+  /**
+   * Forces the entries of a directory to the storage device, so that a file renamed in it is durable.
+   *
+   * @param directory the directory
+   */
+  private static void syncDir(File directory) {
+    try {
+      FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+      try {
+        channel.force(true);
+      } finally {
+        channel.close();
+      }
+    } catch (IOException e) {
+      // directories can not be opened on some platforms
+      LOG.debug("Cannot sync directory {}: {}", directory.getAbsolutePath(), e.getMessage());
+    }
+  }
+
+  /**
+   * Parses a checkpoint record.
+   *
+   * @param line the line of the state file
+   * @return the state; <code>null</code> if the line is not a complete checkpoint
+   */
+  private FileTailerState parseCheckpoint(String line) {
+    try {
+      return GSON.fromJson(line, FileTailerState.class);
+    } catch (JsonParseException e) {
+      LOG.warn("Skipping incomplete checkpoint in state file {}: {}", stateFile.getAbsolutePath(), line);
+      return null;
+    }
+  }
+
+  private void closeCheckpointLog() {
+    if (checkpointLog != null) {
+      try {
+        checkpointLog.close();
+      } catch (IOException e) {
+        LOG.warn("Exception during closing state file {}: {}", stateFile.getAbsolutePath(), e.getMessage(), e);
+      }
+      checkpointLog = null;
+    }
+  }
+
   /**
    * Creates all directories according to the {@link java.io.File directory}.
    *
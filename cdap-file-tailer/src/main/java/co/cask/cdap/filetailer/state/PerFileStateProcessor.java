@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer.state;
+
+import co.cask.cdap.filetailer.state.exception.FileTailerStateProcessorException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State processor of a pipe, which reads several log files at once. A saved state only holds the log files
+ * read since the previous one, so the processor keeps the latest state of every log file, and saves the states
+ * of all files together. The states of the log files, which do not exist anymore, are dropped on load,
+ * and at most every {@value #PRUNE_INTERVAL_MINUTES} minute on save, so the states of the rotated files
+ * removed from the work directory do not pile up.
+ */
+public class PerFileStateProcessor implements FileTailerStateProcessor {
+
+  private static final long PRUNE_INTERVAL_MINUTES = 1;
+
+  private final FileTailerStateProcessor delegate;
+  private final long pruneIntervalMs;
+  private final Map<String, FileTailerState> fileStates = new LinkedHashMap<String, FileTailerState>();
+  private long lastPruneTime;
+
+  public PerFileStateProcessor(FileTailerStateProcessor delegate) {
+    this(delegate, TimeUnit.MINUTES.toMillis(PRUNE_INTERVAL_MINUTES));
+  }
+
+  PerFileStateProcessor(FileTailerStateProcessor delegate, long pruneIntervalMs) {
+    this.delegate = delegate;
+    this.pruneIntervalMs = pruneIntervalMs;
+  }
+
+  @Override
+  public synchronized void saveState(FileTailerState state) throws FileTailerStateProcessorException {
+    if (state == null) {
+      return;
+    }
+    for (FileTailerState fileState : state.getFileStates()) {
+      fileStates.put(fileState.getFileName(), fileState);
+    }
+    long now = System.currentTimeMillis();
+    if (now - lastPruneTime >= pruneIntervalMs) {
+      pruneRemovedFiles();
+      lastPruneTime = now;
+    }
+    delegate.saveState(state.withFileStates(new ArrayList<FileTailerState>(fileStates.values())));
+  }
+
+  @Override
+  public synchronized FileTailerState loadState() throws FileTailerStateProcessorException {
+    FileTailerState state = delegate.loadState();
+    if (state != null && fileStates.isEmpty()) {
+      for (FileTailerState fileState : state.getFileStates()) {
+        if (new File(fileState.getFileName()).exists()) {
+          fileStates.put(fileState.getFileName(), fileState);
+        }
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Drops the states of the log files, which do not exist anymore. A file, which still exists, keeps its state
+   * even if it is read to its end, otherwise a restarted tailer would read it again from the beginning.
+   */
+  private void pruneRemovedFiles() {
+    Iterator<String> fileNames = fileStates.keySet().iterator();
+    while (fileNames.hasNext()) {
+      if (!new File(fileNames.next()).exists()) {
+        fileNames.remove();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws FileTailerStateProcessorException {
+    delegate.flush();
+  }
+}
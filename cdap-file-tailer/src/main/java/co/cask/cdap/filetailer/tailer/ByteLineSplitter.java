@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Set;
+
+/**
+ * Splits raw log data into lines by scanning for the record separator byte, without decoding the data to characters.
+ * Only usable with charsets in which the separator is encoded as a single byte that never occurs inside
+ * the encoding of any other character.
+ */
+final class ByteLineSplitter {
+
+  private static final Set<Charset> ASCII_COMPATIBLE_CHARSETS =
+    ImmutableSet.of(Charsets.US_ASCII, Charsets.ISO_8859_1, Charsets.UTF_8);
+
+  /**
+   * Handler of the lines found by the splitter.
+   */
+  interface LineHandler {
+
+    /**
+     * Processes one line. The line content is only valid for the duration of the call.
+     *
+     * @param buffer the buffer holding the line
+     * @param offset the absolute index of the first line byte in the buffer
+     * @param length the number of line bytes, the separator excluded
+     * @throws InterruptedException if the thread was interrupted
+     */
+    void onLine(ByteBuffer buffer, int offset, int length) throws InterruptedException;
+  }
+
+  private final byte separator;
+
+  ByteLineSplitter(byte separator) {
+    this.separator = separator;
+  }
+
+  /**
+   * Checks whether lines of the given charset can be split at the byte level.
+   *
+   * @param charset the charset of the log data
+   * @param separator the record separator
+   * @return {@code true} if the charset is ASCII-compatible and the separator is an ASCII character
+   */
+  static boolean isApplicable(Charset charset, char separator) {
+    return ASCII_COMPATIBLE_CHARSETS.contains(charset) && separator < 0x80;
+  }
+
+  /**
+   * Passes every complete line between the buffer position and limit to the handler.
+   * On return, the buffer position points to the first byte of the unterminated remainder, if any.
+   *
+   * @param buffer the buffer to scan
+   * @param handler the line handler
+   * @return the number of lines found
+   * @throws InterruptedException if the thread was interrupted
+   */
+  int split(ByteBuffer buffer, LineHandler handler) throws InterruptedException {
+    int lineStart = buffer.position();
+    int limit = buffer.limit();
+    int lines = 0;
+    for (int i = lineStart; i < limit; i++) {
+      if (buffer.get(i) == separator) {
+        handler.onLine(buffer, lineStart, i - lineStart);
+        lineStart = i + 1;
+        lines++;
+      }
+    }
+    buffer.position(lineStart);
+    return lines;
+  }
+
+  /**
+   * Copies a part of the buffer without changing its position and limit.
+   *
+   * @param buffer the buffer
+   * @param offset the absolute index of the first byte to copy
+   * @param length the number of bytes to copy
+   * @return the copied bytes
+   */
+  static byte[] copy(ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    if (buffer.hasArray()) {
+      System.arraycopy(buffer.array(), buffer.arrayOffset() + offset, bytes, 0, length);
+    } else {
+      ByteBuffer source = buffer.duplicate();
+      source.limit(offset + length);
+      source.position(offset);
+      source.get(bytes);
+    }
+    return bytes;
+  }
+
+  /**
+   * Computes the hash code of a line. The result is equal to the {@link String#hashCode()} of the decoded line
+   * for US-ASCII and ISO-8859-1 data, and for UTF-8 data made of ASCII characters only.
+   *
+   * @param line the line bytes
+   * @return the hash code
+   */
+  static int hash(byte[] line) {
+    int hash = 0;
+    for (byte b : line) {
+      hash = 31 * hash + (b & 0xff);
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.state.FileTailerState;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Identity of a log file, which does not change when the file is renamed: the file key, such as the device
+ * and inode on Unix, along with a fingerprint, the hash of the first bytes of the file.
+ */
+final class FileIdentity {
+
+  private static final HashFunction FINGERPRINT_HASH = Hashing.murmur3_128();
+
+  private final String fileKey;
+  private final long fingerprint;
+  private final int fingerprintLength;
+
+  private FileIdentity(String fileKey, long fingerprint, int fingerprintLength) {
+    this.fileKey = fileKey;
+    this.fingerprint = fingerprint;
+    this.fingerprintLength = fingerprintLength;
+  }
+
+  /**
+   * Retrieves the identity of a file.
+   *
+   * @param file the file
+   * @param fingerprintSize the maximum number of bytes of the fingerprint
+   * @return the identity; the fingerprint is shorter than the given size if so is the file
+   */
+  static FileIdentity of(File file, int fingerprintSize) {
+    int length = (int) Math.min(fingerprintSize, file.length());
+    Long fingerprint = length > 0 ? fingerprint(file, length) : null;
+    if (fingerprint == null) {
+      return new FileIdentity(getFileKey(file), 0, 0);
+    }
+    return new FileIdentity(getFileKey(file), fingerprint, length);
+  }
+
+  /**
+   * Retrieves the identity of the file of a saved state.
+   *
+   * @param state the state
+   * @return the identity saved in the state
+   */
+  static FileIdentity of(FileTailerState state) {
+    return new FileIdentity(state.getFileKey(), state.getFingerprint(), state.getFingerprintLength());
+  }
+
+  /**
+   * Retrieves the key that uniquely identifies the file, such as the device and inode on Unix.
+   *
+   * @param file the file
+   * @return the file key; <code>null</code> if it is not available
+   */
+  static String getFileKey(File file) {
+    try {
+      Object fileKey = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+      return fileKey == null ? null : fileKey.toString();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  String getFileKey() {
+    return fileKey;
+  }
+
+  long getFingerprint() {
+    return fingerprint;
+  }
+
+  int getFingerprintLength() {
+    return fingerprintLength;
+  }
+
+  /**
+   * Checks whether the identity allows to find the file.
+   *
+   * @return true if there is a file key or a fingerprint
+   */
+  boolean isAvailable() {
+    return fileKey != null || fingerprintLength > 0;
+  }
+
+  /**
+   * Checks whether the given file has the same file key.
+   *
+   * @param file the file
+   * @return true if the file keys are available and equal
+   */
+  boolean hasSameKey(File file) {
+    return fileKey != null && fileKey.equals(getFileKey(file));
+  }
+
+  /**
+   * Checks whether the given file starts with the bytes of the fingerprint.
+   *
+   * @param file the file
+   * @return true if there is a fingerprint, and the file starts with the same bytes
+   */
+  boolean hasSameFingerprint(File file) {
+    if (fingerprintLength == 0 || file.length() < fingerprintLength) {
+      return false;
+    }
+    Long fileFingerprint = fingerprint(file, fingerprintLength);
+    return fileFingerprint != null && fileFingerprint == fingerprint;
+  }
+
+  /**
+   * Checks whether the given file is this file: it has the same file key, and starts with the same bytes
+   * if there is a fingerprint.
+   *
+   * @param file the file
+   * @return true if the file is this file
+   */
+  boolean matches(File file) {
+    return hasSameKey(file) && (fingerprintLength == 0 || hasSameFingerprint(file));
+  }
+
+  private static Long fingerprint(File file, int length) {
+    try {
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+        byte[] bytes = new byte[length];
+        raf.readFully(bytes);
+        return FINGERPRINT_HASH.hashBytes(bytes).asLong();
+      } finally {
+        raf.close();
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorted index of the log files of a pipe, ordered by modification time.
+ * When watching is enabled, the index is updated incrementally from the work directory change events,
+ * so only created, modified and deleted files are examined; the directory is rescanned on event overflow only.
+ * Without watching, the directory is rescanned on every refresh.
+ * A watching index can also be used to wait for the work directory changes.
+ */
+final class LogFileIndex implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogFileIndex.class);
+  private static final Comparator<LogFileTime> LOG_FILE_COMPARATOR = new Comparator<LogFileTime>() {
+    @Override
+    public int compare(LogFileTime o1, LogFileTime o2) {
+      int res = o1.getModificationTime().compareTo(o2.getModificationTime());
+      if (res != 0) {
+        return res;
+      } else {
+        res = o2.getFileName().length() - o1.getFileName().length();
+      }
+      return (res != 0) ? res : o2.getFileName().compareTo(o1.getFileName());
+    }
+  };
+
+  private final File logDirectory;
+  private final LogFilter logFilter;
+  private final TreeMap<LogFileTime, File> logFiles = new TreeMap<LogFileTime, File>(LOG_FILE_COMPARATOR);
+  private final Map<String, LogFileTime> logFileTimes = new HashMap<String, LogFileTime>();
+  private WatchService watchService;
+  private boolean rescanNeeded = true;
+  private boolean changed;
+
+  LogFileIndex(File logDirectory, String logFileName, String rotationPattern, boolean watch) {
+    this.logDirectory = logDirectory;
+    this.logFilter = new LogFilter(logFileName, rotationPattern);
+    if (watch) {
+      try {
+        watchService = FileSystems.getDefault().newWatchService();
+        logDirectory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                       StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+      } catch (IOException e) {
+        LOG.warn("Can not watch log directory {}; it will be rescanned on every lookup: {}",
+                 logDirectory, e.getMessage());
+        close();
+      }
+    }
+  }
+
+  /**
+   * Brings the index up to date with the work directory.
+   */
+  void refresh() {
+    WatchKey key;
+    while (watchService != null && (key = watchService.poll()) != null) {
+      processEvents(key);
+    }
+    if (rescanNeeded || watchService == null) {
+      rescan();
+    }
+  }
+
+  /**
+   * Checks whether the work directory is watched.
+   *
+   * @return {@code true} if the index is updated from the work directory change events
+   */
+  boolean isWatching() {
+    return watchService != null;
+  }
+
+  /**
+   * Waits until the work directory changes, or the timeout elapses. Returns at once if a change was registered
+   * by {@link #refresh()} since the previous wait. The index is updated with the awaited changes.
+   * Sleeps for the whole timeout if the work directory is not watched.
+   *
+   * @param timeout the maximum time to wait, in milliseconds
+   * @throws InterruptedException if the thread was interrupted
+   */
+  void awaitChange(long timeout) throws InterruptedException {
+    if (watchService == null) {
+      Thread.sleep(timeout);
+      return;
+    }
+    if (!changed) {
+      WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+      if (key != null) {
+        processEvents(key);
+      }
+    }
+    changed = false;
+  }
+
+  /**
+   * Retrieves the least recently modified log file.
+   *
+   * @return the first log file; <code>null</code> if there are no log files
+   */
+  File getFirst() {
+    return logFiles.isEmpty() ? null : logFiles.firstEntry().getValue();
+  }
+
+  /**
+   * Retrieves the log file with the given name and modification time.
+   *
+   * @param modificationTime the modification time
+   * @param fileName the file name
+   * @return the log file; <code>null</code> if there is no such file
+   */
+  File get(long modificationTime, String fileName) {
+    return logFiles.get(new LogFileTime(modificationTime, fileName));
+  }
+
+  /**
+   * Retrieves the log file following the given one.
+   *
+   * @param modificationTime the modification time of the given log file
+   * @param fileName the name of the given log file
+   * @return the next log file; <code>null</code> if there is no such file
+   */
+  File getNext(long modificationTime, String fileName) {
+    Map.Entry<LogFileTime, File> entry = logFiles.higherEntry(new LogFileTime(modificationTime, fileName));
+    return entry == null ? null : entry.getValue();
+  }
+
+  /**
+   * Retrieves all log files.
+   *
+   * @return the log files, in the order of modification time
+   */
+  List<File> getAll() {
+    return new ArrayList<File>(logFiles.values());
+  }
+
+  /**
+   * Retrieves all log files following the given one.
+   *
+   * @param file the given log file
+   * @return the following log files, in the order of modification time; empty if the given file is not indexed
+   */
+  List<File> getAllAfter(File file) {
+    LogFileTime logFileTime = logFileTimes.get(file.getName());
+    if (logFileTime == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<File>(logFiles.tailMap(logFileTime, false).values());
+  }
+
+  /**
+   * Stops watching the work directory.
+   */
+  @Override
+  public void close() {
+    if (watchService != null) {
+      try {
+        watchService.close();
+      } catch (IOException e) {
+        LOG.warn("Exception during closing: {}", e.getMessage(), e);
+      }
+      watchService = null;
+    }
+  }
+
+  private void processEvents(WatchKey key) {
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        LOG.debug("Change events of log directory {} were lost", logDirectory);
+        rescanNeeded = true;
+      } else if (!rescanNeeded) {
+        update(((Path) event.context()).toString());
+      }
+    }
+    changed = true;
+    if (!key.reset()) {
+      LOG.warn("Log directory {} is no longer watched; it will be rescanned on every lookup", logDirectory);
+      close();
+    }
+  }
+
+  private void rescan() {
+    logFiles.clear();
+    logFileTimes.clear();
+    File[] dirFiles = logDirectory.listFiles(logFilter);
+    if (dirFiles != null) {
+      for (File file : dirFiles) {
+        add(file);
+      }
+    }
+    rescanNeeded = false;
+  }
+
+  private void update(String fileName) {
+    LogFileTime logFileTime = logFileTimes.remove(fileName);
+    if (logFileTime != null) {
+      logFiles.remove(logFileTime);
+    }
+    File file = new File(logDirectory, fileName);
+    if (logFilter.accept(logDirectory, fileName) && file.exists()) {
+      add(file);
+    }
+  }
+
+  private void add(File file) {
+    LogFileTime logFileTime = new LogFileTime(file.lastModified(), file.getName());
+    logFiles.put(logFileTime, file);
+    logFileTimes.put(file.getName(), logFileTime);
+  }
+
+  /**
+   * Sort key of a log file.
+   */
+  static final class LogFileTime {
+    private final long modificationTime;
+    private final String fileName;
+
+    LogFileTime(long modificationTime, String fileName) {
+      this.modificationTime = modificationTime;
+      this.fileName = fileName;
+    }
+
+    /**
+     * Retrieves the last modified time.
+     *
+     * @return the last modified time
+     */
+    public Long getModificationTime() {
+      return modificationTime;
+    }
+
+    /**
+     * Retrieves the file name.
+     *
+     * @return the file name
+     */
+    public String getFileName() {
+      return fileName;
+    }
+  }
+}
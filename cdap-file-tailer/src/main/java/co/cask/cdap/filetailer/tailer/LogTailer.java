@@ -21,6 +21,7 @@ import co.cask.cdap.filetailer.PipeListener;
 import co.cask.cdap.filetailer.config.PipeConfiguration;
 import co.cask.cdap.filetailer.event.FileTailerEvent;
 import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.metrics.ReadProgress;
 import co.cask.cdap.filetailer.queue.FileTailerQueue;
 import co.cask.cdap.filetailer.state.FileTailerState;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
@@ -33,33 +34,22 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
-import java.util.Comparator;
-import java.util.TreeMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.NotSupportedException;
 
 /**
  * Tailer daemon
  */
-public class LogTailer extends AbstractWorker {
+public class LogTailer extends AbstractWorker implements ReadProgress {
 
   private static final Logger LOG = LoggerFactory.getLogger(LogTailer.class);
   private static final String RAF_MODE = "r";
-  private static final int DEFAULT_BUFSIZE = 4096;
-  private static final Comparator<LogFileTime> logFileComparator = new Comparator<LogFileTime>() {
-    @Override
-    public int compare(LogFileTime o1, LogFileTime o2) {
-      int res = o1.getModificationTime().compareTo(o2.getModificationTime());
-      if (res != 0) {
-        return res;
-      } else {
-        res = o2.getFileName().length() - o1.getFileName().length();
-      }
-      return (res != 0) ? res : o2.getFileName().compareTo(o1.getFileName());
-    }
-  };
 
   private final long sleepInterval;
   private final File logDirectory;
@@ -74,10 +64,21 @@ public class LogTailer extends AbstractWorker {
   private final FileTailerMetricsProcessor metricsProcessor;
   private final String rotationPattern;
   private final CharsetDecoder decoder;
-  private final ByteBuffer readBuffer;
   private final CharBuffer decoded;
+  private final ByteLineSplitter lineSplitter;
+  private ByteBuffer readBuffer;
+  private LogFileIndex logFileIndex;
   private final boolean readRotatedFiles;
+  private final boolean watchWorkDir;
+  private final boolean mapRotatedFiles;
+  private final int mmapWindowSize;
+  private final int fingerprintSize;
+  private FileIdentity currentFileIdentity;
   private final PipeListener pipeListener;
+  private volatile File readingFile;
+  private volatile long readPosition;
+  private volatile long readModifyTime;
+  private volatile List<File> pendingFiles = Collections.emptyList();
 
   public LogTailer(PipeConfiguration loader, FileTailerQueue queue, FileTailerStateProcessor stateProcessor,
                    FileTailerMetricsProcessor metricsProcessor, PipeListener pipeListener) {
@@ -88,8 +89,9 @@ public class LogTailer extends AbstractWorker {
     }
     charset = Charset.forName(charsetName);
     decoder = charset.newDecoder();
-    readBuffer = ByteBuffer.allocate(DEFAULT_BUFSIZE);
-    decoded = CharBuffer.allocate(DEFAULT_BUFSIZE);
+    int readBufferSize = loader.getSourceConfiguration().getReadBufferSize();
+    readBuffer = ByteBuffer.allocate(readBufferSize);
+    decoded = CharBuffer.allocate(readBufferSize);
     this.queue = queue;
     this.fileTailerStateProcessor = stateProcessor;
     this.metricsProcessor = metricsProcessor;
@@ -99,10 +101,21 @@ public class LogTailer extends AbstractWorker {
     this.logFileName = loader.getSourceConfiguration().getFileName();
     this.entrySeparator = loader.getSourceConfiguration().getRecordSeparator();
     separatorByteLength = ((Character) entrySeparator).toString().getBytes(charset).length;
+    this.lineSplitter = ByteLineSplitter.isApplicable(charset, entrySeparator)
+      ? new ByteLineSplitter((byte) entrySeparator) : null;
     this.failureRetryLimit = loader.getSourceConfiguration().getFailureRetryLimit();
     this.failureSleepInterval = loader.getSourceConfiguration().getFailureSleepInterval();
     this.rotationPattern = loader.getSourceConfiguration().getRotationPattern();
     this.readRotatedFiles = loader.getSourceConfiguration().getReadRotatedFilesMode();
+    this.watchWorkDir = loader.getSourceConfiguration().getWatchWorkDirMode();
+    this.mmapWindowSize = loader.getSourceConfiguration().getMmapWindowSize();
+    this.fingerprintSize = loader.getSourceConfiguration().getFingerprintSize();
+    boolean mmapMode = loader.getSourceConfiguration().getReadMode() == ReadMode.MMAP;
+    if (mmapMode && lineSplitter == null) {
+      LOG.warn("Memory-mapped reading is not supported for charset {}; reading files through the file channel",
+               charsetName);
+    }
+    this.mapRotatedFiles = mmapMode && lineSplitter != null;
   }
 
   /**
@@ -116,6 +129,7 @@ public class LogTailer extends AbstractWorker {
       return;
     }
     FileTailerState fileTailerState = getSaveStateFromFile();
+    logFileIndex = new LogFileIndex(logDirectory, logFileName, rotationPattern, readRotatedFiles);
     try {
       if (fileTailerState == null) {
         LOG.info("File Tailer state was not found; start reading all logs from the directory from the beginning");
@@ -126,6 +140,8 @@ public class LogTailer extends AbstractWorker {
       }
     } catch (InterruptedException e) {
       LOG.info("Tailer daemon was interrupted");
+    } finally {
+      logFileIndex.close();
     }
     LOG.info("Tailer daemon stopped");
   }
@@ -146,32 +162,99 @@ public class LogTailer extends AbstractWorker {
 
   /**
    *  Method try start  tailer from save state.
-   *  If could not find log file with saved entry method finished
+   *  The log file of the saved state is found by its identity, so it may have been renamed since;
+   *  states saved without the identity are resumed from the log file with the saved name and modification time.
+   *  If the log file with the saved identity no longer holds the saved entry at the saved position, it was
+   *  rewritten in place; unless a copy of it holds the entry, it is read again from the beginning.
+   *  If the saved entry can not be found, reading starts from the log files modified after the saved state.
    *
    *  @throws  InterruptedException if thread was interrupted
    */
   private void runFromSaveState(FileTailerState fileTailerState) throws InterruptedException {
     long position = fileTailerState.getPosition();
     long lastModifytime = fileTailerState.getLastModifyTime();
-    String savedFilename = fileTailerState.getFileName();
+    File savedFile = new File(fileTailerState.getFileName());
     int hash = fileTailerState.getHash();
-    File currentLogFile = getNextLogFile(logDirectory.getAbsolutePath(), lastModifytime,
-                                         true, new File(savedFilename));
-    if (currentLogFile == null) {
-      LOG.info("Saved log file not exist. Exiting");
-      return;
-    }
+    FileIdentity savedIdentity = FileIdentity.of(fileTailerState);
     try {
-      FileChannel channel = tryOpenFile(currentLogFile);
-      if (!checkLine(channel, position, hash)) {
-        LOG.error("Can not find line from saved state. Exiting.. ");
-        return;
+      if (savedIdentity.isAvailable()) {
+        logFileIndex.refresh();
+        File identifiedFile = findLogFile(savedIdentity, savedFile);
+        File rewrittenFile = null;
+        if (identifiedFile != null && identifiedFile.length() > position) {
+          LOG.info("Saved log file {} was found as {}. Start reading log from save state", savedFile, identifiedFile);
+          if (tryResume(identifiedFile, position, hash)) {
+            return;
+          }
+          rewrittenFile = identifiedFile;
+        }
+        // a copy of the file, whose identity changed, is accepted if it holds the saved entry
+        for (File file : logFileIndex.getAll()) {
+          if (!file.equals(rewrittenFile) && savedIdentity.hasSameFingerprint(file)
+            && tryResume(file, position, hash)) {
+            return;
+          }
+        }
+        if (rewrittenFile != null) {
+          // the saved offset no longer starts an entry, so reading from it would yield a partial line
+          LOG.warn("Saved log entry was changed in file {}; reading it from the beginning", rewrittenFile);
+          FileChannel channel = tryOpenFile(rewrittenFile);
+          channel.position(0);
+          startReadingFromFile(channel, rewrittenFile);
+          return;
+        }
+      } else {
+        File currentLogFile = getNextLogFile(lastModifytime, true, savedFile);
+        if (currentLogFile != null && tryResume(currentLogFile, position, hash)) {
+          return;
+        }
       }
-      LOG.info("Saved log entry was found. Start reading log from save state");
-      startReadingFromFile(channel, currentLogFile);
     } catch (IOException e) {
-      return;
+      LOG.warn("Can not open log file from saved state: {}", e.getMessage());
     }
+    LOG.warn("Can not find line from saved state; start reading logs modified after {}", fileTailerState);
+    runAfter(lastModifytime, savedFile);
+  }
+
+  /**
+   *  Finds the log file with the given identity, preferring the file with the saved name.
+   *
+   *  @param identity the identity of the file
+   *  @param savedFile the saved log file
+   *  @return the log file; <code>null</code> if there is no such file
+   */
+  private File findLogFile(FileIdentity identity, File savedFile) {
+    File namesake = new File(logDirectory, savedFile.getName());
+    if (namesake.exists() && identity.matches(namesake)) {
+      return namesake;
+    }
+    for (File file : logFileIndex.getAll()) {
+      if (identity.matches(file)) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  /**
+   *  Starts reading the log file from the saved position, if the saved entry is found there.
+   *
+   *  @param file the log file
+   *  @param position the position of the saved entry
+   *  @param hash the hash of the saved entry
+   *  @return false if the saved entry is not found in the file
+   *  @throws IOException if the file can not be opened
+   *  @throws InterruptedException if thread was interrupted
+   */
+  private boolean tryResume(File file, long position, int hash) throws IOException, InterruptedException {
+    FileChannel channel = tryOpenFile(file);
+    if (!checkLine(channel, position, hash)) {
+      closeQuietly(channel);
+      return false;
+    }
+    LOG.info("Saved log entry was found in file {}. Start reading log from save state", file);
+    startReadingFromFile(channel, file);
+    return true;
   }
 
   /**
@@ -184,22 +267,52 @@ public class LogTailer extends AbstractWorker {
    */
   private void startReadingFromFile(FileChannel channel, File currentLogFile) throws InterruptedException {
     long modifyTime = currentLogFile.lastModified();
+    String currentFileKey = FileIdentity.getFileKey(currentLogFile);
+    currentFileIdentity = FileIdentity.of(currentLogFile, fingerprintSize);
     try {
+      setReadPosition(currentLogFile, channel.position());
+      pendingFiles = logFileIndex.getAllAfter(currentLogFile);
       while (isRunning()) {
-        modifyTime = tryReadFromFile(channel, entrySeparator, currentLogFile, modifyTime);
+        if (mapRotatedFiles && !currentLogFile.getName().equals(logFileName)) {
+          modifyTime = tryMapLinesFromFile(channel, currentLogFile, modifyTime);
+        } else if (lineSplitter != null) {
+          modifyTime = tryReadLinesFromFile(channel, currentLogFile, modifyTime);
+        } else {
+          modifyTime = tryReadFromFile(channel, entrySeparator, currentLogFile, modifyTime);
+        }
         if (!readRotatedFiles && pipeListener != null) {
           pipeListener.onRead();
           break;
         }
-        File newLog = getNextLogFile(logDirectory.getAbsolutePath(), modifyTime, false, currentLogFile);
+        File newLog = getNextLogFile(modifyTime, false, currentLogFile);
+        pendingFiles = newLog == null ? Collections.<File>emptyList() : logFileIndex.getAllAfter(newLog);
         if (newLog == null) {
           LOG.debug("Waiting for new log data from file {}", currentLogFile);
-          Thread.sleep(sleepInterval);
+          waitForLogData();
+        } else if (currentFileKey != null && newLog.getName().equals(currentLogFile.getName())
+          && currentFileKey.equals(FileIdentity.getFileKey(newLog))) {
+          modifyTime = newLog.lastModified();
+          if (newLog.length() < channel.position()) {
+            // truncated in place, as by a copytruncate rotation: the file is the same, but its content is new
+            LOG.info("File {} was truncated, reading it from the beginning", currentLogFile);
+            channel.position(0);
+            currentFileIdentity = FileIdentity.of(currentLogFile, fingerprintSize);
+            setReadPosition(currentLogFile, 0);
+          } else {
+            // the current file was appended to after its last modification time had been read
+            LOG.debug("Continue reading file {}", currentLogFile);
+            if (currentFileIdentity.getFingerprintLength() < fingerprintSize) {
+              currentFileIdentity = FileIdentity.of(currentLogFile, fingerprintSize);
+            }
+          }
         } else {
           LOG.debug("Reading file {}", newLog);
           currentLogFile = newLog;
           closeQuietly(channel);
           channel  = (new RandomAccessFile(currentLogFile, RAF_MODE)).getChannel();
+          currentFileKey = FileIdentity.getFileKey(currentLogFile);
+          currentFileIdentity = FileIdentity.of(currentLogFile, fingerprintSize);
+          setReadPosition(currentLogFile, 0);
         }
       }
     } catch (IOException e) {
@@ -209,25 +322,95 @@ public class LogTailer extends AbstractWorker {
     }
   }
 
+  @Override
+  public long getReadLagBytes() {
+    File file = readingFile;
+    if (file == null) {
+      return 0;
+    }
+    long lag = Math.max(0, file.length() - readPosition);
+    for (File pendingFile : pendingFiles) {
+      if (!pendingFile.getName().equals(file.getName())) {
+        lag += pendingFile.length();
+      }
+    }
+    return lag;
+  }
+
+  @Override
+  public long getReadLagSeconds() {
+    File file = readingFile;
+    if (file == null || getReadLagBytes() == 0) {
+      return 0;
+    }
+    long latestModifyTime = file.lastModified();
+    for (File pendingFile : pendingFiles) {
+      latestModifyTime = Math.max(latestModifyTime, pendingFile.lastModified());
+    }
+    long modifyTime = readModifyTime == 0 ? file.lastModified() : readModifyTime;
+    return TimeUnit.MILLISECONDS.toSeconds(Math.max(0, latestModifyTime - modifyTime));
+  }
+
+  @Override
+  public long getReadModifyTime() {
+    return readModifyTime;
+  }
+
+  /**
+   *  Records the position up to which the log entries of the file are read.
+   *
+   *  @param file the log file being read
+   *  @param position the read position
+   */
+  private void setReadPosition(File file, long position) {
+    readPosition = position;
+    readingFile = file;
+  }
+
+  /**
+   *  Records the progress of reading the current log file.
+   *
+   *  @param position the position up to which the log entries are read
+   *  @param modifyTime the modification time of the log file when its last entry was read
+   */
+  private void updateReadPosition(long position, long modifyTime) {
+    readPosition = position;
+    readModifyTime = modifyTime;
+  }
+
   /**
    *  Method start reading log from all log directory
    *
    *  @throws InterruptedException if thread was interrupted
    */
   private void runWithOutRestore() throws InterruptedException {
+    runAfter(0L, new File(logFileName));
+  }
+
+  /**
+   *  Method start reading log from the log files following the given one, waiting for them if needed
+   *
+   *  @param modifyTime the modification time of the given log file; 0 to read all log directory
+   *  @param file the given log file
+   *  @throws InterruptedException if thread was interrupted
+   */
+  private void runAfter(long modifyTime, File file) throws InterruptedException {
     File logFile = null;
     FileChannel channel;
     while (logFile == null && isRunning()) {
-      logFile = getNextLogFile(logDirectory.getAbsolutePath(), 0L, false, new File(logFileName));
+      logFile = getNextLogFile(modifyTime, false, file);
       if (logFile == null) {
         try {
-          Thread.sleep(sleepInterval);
+          waitForLogData();
         } catch (InterruptedException e) {
           LOG.info("Tailer daemon was interrupted");
           return;
         }
       }
     }
+    if (logFile == null) {
+      return;
+    }
     try {
       channel = tryOpenFile(logFile);
     } catch (IOException e) {
@@ -236,6 +419,20 @@ public class LogTailer extends AbstractWorker {
     startReadingFromFile(channel, logFile);
   }
 
+  /**
+   *  Waits for new log data. In the watch work directory mode, the wait ends as soon as the work directory
+   *  changes; otherwise, or if the directory can not be watched, sleeps for sleepInterval.
+   *
+   *  @throws InterruptedException if thread was interrupted
+   */
+  private void waitForLogData() throws InterruptedException {
+    if (watchWorkDir && logFileIndex.isWatching()) {
+      logFileIndex.awaitChange(sleepInterval);
+    } else {
+      Thread.sleep(sleepInterval);
+    }
+  }
+
   /**
    *  Method start reading log from all log directory
    *
@@ -244,71 +441,34 @@ public class LogTailer extends AbstractWorker {
   private boolean checkLine(FileChannel channel, long position, int hash) throws IOException, InterruptedException {
     channel.position(position);
     String line = tryReadLine(channel, entrySeparator);
-    return line.length() > 0 && line.hashCode() == hash;
+    if (line.length() == 0) {
+      return false;
+    }
+    //states saved by the decoding reader hold String hash codes, which differ for non-ASCII UTF-8 lines
+    return line.hashCode() == hash
+      || (lineSplitter != null && ByteLineSplitter.hash(line.getBytes(charset)) == hash);
   }
 
   /**
    *  Method get next log file if exist
    *
-   *  @param logDir current log directory
    *  @param currentTime time of the last current log file modification
    *  @param fromSaveState if starting from save state
    *  @param currFile current log file name
    *  @return  next log file
    */
-  private File getNextLogFile(String logDir, Long currentTime, boolean fromSaveState, File currFile) {
-    File[] dirFiles = new File(logDir).listFiles(new LogFilter(logFileName, rotationPattern));
-    TreeMap<LogFileTime, File> logFilesTimesMap = new TreeMap<LogFileTime, File>(logFileComparator);
-    for (File f : dirFiles) {
-      logFilesTimesMap.put(new LogFileTime(f.lastModified(), f.getName()), f);
-    }
-    if (currentTime == 0 && logFilesTimesMap.size() > 0) {
-      return logFilesTimesMap.firstEntry().getValue();
-    }
-    if (fromSaveState && logFilesTimesMap.containsKey(new LogFileTime(currentTime, currFile.getName()))) {
-      return logFilesTimesMap.get(new LogFileTime(currentTime, currFile.getName()));
+  private File getNextLogFile(Long currentTime, boolean fromSaveState, File currFile) {
+    logFileIndex.refresh();
+    if (currentTime == 0) {
+      return logFileIndex.getFirst();
     }
-    boolean currentFileChanged = true;
-    for (LogFileTime logFileTime : logFilesTimesMap.keySet()) {
-      if (logFileTime.getModificationTime().equals(currentTime)) {
-        currentFileChanged = false;
-        break;
+    if (fromSaveState) {
+      File savedFile = logFileIndex.get(currentTime, currFile.getName());
+      if (savedFile != null) {
+        return savedFile;
       }
     }
-    if (currentFileChanged && logFilesTimesMap.higherKey(new LogFileTime(currentTime, currFile.getName())) == null) {
-      return null;
-    }
-    LogFileTime key = logFilesTimesMap.higherKey(new LogFileTime(currentTime, currFile.getName()));
-
-    return key == null ? null : logFilesTimesMap.get(key);
-  }
-
-  class LogFileTime {
-    private final long modificationTime;
-    private final String fileName;
-
-    LogFileTime(long modificationTime, String fileName) {
-      this.modificationTime = modificationTime;
-      this.fileName = fileName;
-    }
-
-    /**
-     * Retrieves the last modified time.
-     *
-     * @return the last modified time
-     */
-    public Long getModificationTime() {
-      return modificationTime;
-    }
-
-    /**
-     * Retrieves the file name.
-     *
-     * @return the file name
-     */
-    public String getFileName() {
-      return fileName;
-    }
+    return logFileIndex.getNext(currentTime, currFile.getName());
   }
 
   /**
@@ -435,14 +595,13 @@ public class LogTailer extends AbstractWorker {
               int lineHash = line.hashCode();
               LOG.debug("From log file {} read entry: {}", currentLogFile, line);
               modifyTime = currentLogFile.lastModified();
-              queue.put(new FileTailerEvent(new FileTailerState(currentLogFile.toString(),
-                                                                position, lineHash, modifyTime),
-                                            line, charset));
+              queue.put(new FileTailerEvent(newState(currentLogFile, position, lineHash, modifyTime), line, charset));
               metricsProcessor.onReadEventMetric(line.getBytes(charset).length);
               position += line.getBytes(charset).length + separatorByteLength;
               sb.setLength(0);
             }
           }
+          updateReadPosition(position, modifyTime);
         } else {
           break;
         }
@@ -454,6 +613,142 @@ public class LogTailer extends AbstractWorker {
     return modifyTime;
   }
 
+  /**
+   *  Try read log file, splitting it into lines at the byte level.
+   *  An unterminated line at the end of the file is left unread until its separator is written.
+   *
+   *  @param channel FileChannel steam
+   *  @param currentLogFile current log file
+   *  @return last modified time of current log file
+   *  @throws IOException in case could not read entry after failureRetryLimit attempts
+   *  @throws InterruptedException in case thread was interrupted
+   */
+  private long tryReadLinesFromFile(FileChannel channel, File currentLogFile,
+                                    long modifyTime) throws IOException, InterruptedException {
+    int retryNumber = 0;
+    EventLineHandler handler = new EventLineHandler(currentLogFile, channel.position(), modifyTime);
+    readBuffer.clear();
+    while (isRunning()) {
+      if (retryNumber > failureRetryLimit && failureRetryLimit > 0) {
+        LOG.error("fail to read line  after {} attempts", retryNumber);
+        throw new IOException();
+      }
+      try {
+        int len = channel.read(readBuffer);
+        if (len < 0) {
+          break;
+        }
+        readBuffer.flip();
+        handler.modifyTime = currentLogFile.lastModified();
+        lineSplitter.split(readBuffer, handler);
+        updateReadPosition(handler.position, handler.modifyTime);
+        if (readBuffer.position() == 0 && readBuffer.limit() == readBuffer.capacity()) {
+          LOG.debug("Log entry from file {} does not fit into {} bytes", currentLogFile, readBuffer.capacity());
+          readBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2).put(readBuffer);
+        } else {
+          readBuffer.compact();
+        }
+      } catch (IOException e) {
+        retryNumber++;
+        Thread.sleep(failureSleepInterval);
+      }
+    }
+    channel.position(handler.position);
+    return handler.modifyTime;
+  }
+
+  /**
+   *  Try read rotated log file, mapping it into memory in windows of mmapWindowSize bytes
+   *  and splitting each window into lines in place.
+   *  The window is enlarged if a single log entry does not fit into it. A failed window is retried at most
+   *  failureRetryLimit times in a row. The windows are not unmapped explicitly: a mapping is only released
+   *  once its buffer is garbage collected, so a large backlog may keep many windows mapped for a while.
+   *
+   *  @param channel FileChannel steam
+   *  @param currentLogFile current log file, which is not written anymore
+   *  @return last modified time of current log file
+   *  @throws IOException in case could not read entry after failureRetryLimit attempts
+   *  @throws InterruptedException in case thread was interrupted
+   */
+  private long tryMapLinesFromFile(FileChannel channel, File currentLogFile,
+                                   long modifyTime) throws IOException, InterruptedException {
+    int retryNumber = 0;
+    EventLineHandler handler = new EventLineHandler(currentLogFile, channel.position(), modifyTime);
+    long windowSize = mmapWindowSize;
+    while (isRunning()) {
+      if (retryNumber > failureRetryLimit && failureRetryLimit > 0) {
+        LOG.error("fail to map log file {} after {} attempts", currentLogFile, retryNumber);
+        throw new IOException(String.format("Cannot map log file %s at position %d after %d attempts",
+                                            currentLogFile, handler.position, retryNumber));
+      }
+      try {
+        long windowStart = handler.position;
+        long length = Math.min(windowSize, channel.size() - windowStart);
+        if (length <= 0) {
+          break;
+        }
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        handler.modifyTime = currentLogFile.lastModified();
+        lineSplitter.split(window, handler);
+        updateReadPosition(handler.position, handler.modifyTime);
+        retryNumber = 0;
+        if (handler.position == windowStart) {
+          if (length < windowSize) {
+            break;
+          }
+          LOG.debug("Log entry from file {} does not fit into {} bytes", currentLogFile, windowSize);
+          windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+        }
+      } catch (IOException e) {
+        retryNumber++;
+        Thread.sleep(failureSleepInterval);
+      }
+    }
+    channel.position(handler.position);
+    return handler.modifyTime;
+  }
+
+  /**
+   * Puts the lines found by the {@link ByteLineSplitter} into the queue, keeping track of the read position.
+   */
+  private final class EventLineHandler implements ByteLineSplitter.LineHandler {
+    private final File logFile;
+    private long position;
+    private long modifyTime;
+
+    private EventLineHandler(File logFile, long position, long modifyTime) {
+      this.logFile = logFile;
+      this.position = position;
+      this.modifyTime = modifyTime;
+    }
+
+    @Override
+    public void onLine(ByteBuffer buffer, int offset, int length) throws InterruptedException {
+      byte[] line = ByteLineSplitter.copy(buffer, offset, length);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("From log file {} read entry: {}", logFile, new String(line, charset));
+      }
+      queue.put(new FileTailerEvent(newState(logFile, position, ByteLineSplitter.hash(line), modifyTime),
+                                    ByteBuffer.wrap(line), charset));
+      metricsProcessor.onReadEventMetric(length);
+      position += length + separatorByteLength;
+    }
+  }
+
+  /**
+   * Creates the state of a read log entry, along with the identity of the log file.
+   *
+   * @param logFile the log file
+   * @param position the position of the entry
+   * @param hash the hash of the entry
+   * @param modifyTime the modification time of the log file
+   * @return the state
+   */
+  private FileTailerState newState(File logFile, long position, int hash, long modifyTime) {
+    return new FileTailerState(logFile.toString(), position, hash, modifyTime, currentFileIdentity.getFileKey(),
+                               currentFileIdentity.getFingerprint(), currentFileIdentity.getFingerprintLength());
+  }
+
   /**
    * Closes the channel.
    *
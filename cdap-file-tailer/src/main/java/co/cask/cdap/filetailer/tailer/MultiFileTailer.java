@@ -0,0 +1,579 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.event.FileTailerEvent;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.metrics.ReadProgress;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerState;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import co.cask.cdap.filetailer.state.exception.FileTailerStateProcessorException;
+import com.google.common.util.concurrent.AbstractIdleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import javax.ws.rs.NotSupportedException;
+
+/**
+ * Tailer of all log files of the work directory, whose names match the file pattern of the pipe.
+ * The tailer takes no thread of its own: the files with unread data are read by the threads of a
+ * {@link ReaderPool}, either a pool of the pipe, or a pool shared by the tailers of all pipes.
+ * A reader reads at most {@value #READ_TURN_BUFFERS} buffers of a file before the file goes to the end of
+ * the reader queue, so the files are read in turns, and a busy file does not hold back the others.
+ * The events of all files are put into the queue of the pipe. A reader never waits for room in the queue:
+ * when the queue is full, the read turn ends, and the file is handed over to the readers again once the queue
+ * has room, so a stalled pipe does not hold the readers shared with other pipes.
+ * A file replaced under the same name is read to its end before the new file is opened; a truncated file
+ * is read again from its beginning. The state of every file is saved with the states of the pipe; on restart,
+ * a file renamed since, e.g. by a rotation, is read from the state saved under its previous name.
+ */
+public class MultiFileTailer extends AbstractIdleService implements ReadProgress {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MultiFileTailer.class);
+  private static final String RAF_MODE = "r";
+  private static final int READ_TURN_BUFFERS = 16;
+  private static final long STOP_TIMEOUT_MS = 5000;
+
+  private final File logDirectory;
+  private final Pattern filePattern;
+  private final Charset charset;
+  private final byte separator;
+  private final ByteLineSplitter lineSplitter;
+  private final int readBufferSize;
+  private final int fingerprintSize;
+  private final String pipeName;
+  private final FileTailerQueue queue;
+  private final FileTailerStateProcessor stateProcessor;
+  private final FileTailerMetricsProcessor metricsProcessor;
+  private final ReaderPool readerPool;
+  private final boolean sharedReaderPool;
+  private final Map<String, TailedFile> files = new ConcurrentHashMap<String, TailedFile>();
+  private Map<String, FileTailerState> savedStates;
+
+  /**
+   * Creates a tailer, whose files are read by a pool of reader threads of the pipe.
+   */
+  public MultiFileTailer(PipeConfiguration loader, FileTailerQueue queue, FileTailerStateProcessor stateProcessor,
+                         FileTailerMetricsProcessor metricsProcessor) {
+    this(loader, queue, stateProcessor, metricsProcessor,
+         new ReaderPool(loader.getPipeName(), loader.getSourceConfiguration().getReaderThreads(),
+                        loader.getSourceConfiguration().getSleepInterval()), false);
+  }
+
+  /**
+   * Creates a tailer, whose files are read by a pool of reader threads shared with other pipes.
+   */
+  public MultiFileTailer(PipeConfiguration loader, FileTailerQueue queue, FileTailerStateProcessor stateProcessor,
+                         FileTailerMetricsProcessor metricsProcessor, ReaderPool readerPool) {
+    this(loader, queue, stateProcessor, metricsProcessor, readerPool, true);
+  }
+
+  private MultiFileTailer(PipeConfiguration loader, FileTailerQueue queue, FileTailerStateProcessor stateProcessor,
+                          FileTailerMetricsProcessor metricsProcessor, ReaderPool readerPool,
+                          boolean sharedReaderPool) {
+    SourceConfiguration sourceConf = loader.getSourceConfiguration();
+    String charsetName = sourceConf.getCharsetName();
+    if (!Charset.isSupported(charsetName)) {
+      LOG.error("Charset {} is not supported", charsetName);
+      throw new NotSupportedException("Charset " + charsetName + " is not supported");
+    }
+    charset = Charset.forName(charsetName);
+    char entrySeparator = sourceConf.getRecordSeparator();
+    if (!ByteLineSplitter.isApplicable(charset, entrySeparator)) {
+      LOG.error("Charset {} is not supported for tailing the files matched by a pattern", charsetName);
+      throw new NotSupportedException("Charset " + charsetName + " is not supported for a file pattern");
+    }
+    this.separator = (byte) entrySeparator;
+    this.lineSplitter = new ByteLineSplitter(separator);
+    this.logDirectory = sourceConf.getWorkDir();
+    String pattern = sourceConf.getFilePattern();
+    this.filePattern = Pattern.compile(pattern == null ? Pattern.quote(sourceConf.getFileName()) : pattern);
+    this.readBufferSize = sourceConf.getReadBufferSize();
+    this.fingerprintSize = sourceConf.getFingerprintSize();
+    this.pipeName = loader.getPipeName();
+    this.queue = queue;
+    this.stateProcessor = stateProcessor;
+    this.metricsProcessor = metricsProcessor;
+    this.readerPool = readerPool;
+    this.sharedReaderPool = sharedReaderPool;
+  }
+
+  @Override
+  protected void startUp() {
+    if (!logDirectory.exists()) {
+      LOG.error("Incorrect path to log directory; directory {} does not exist", logDirectory.getAbsolutePath());
+      return;
+    }
+    savedStates = getSavedFileStates();
+    if (!sharedReaderPool) {
+      readerPool.startAsync().awaitRunning();
+    }
+    readerPool.register(this);
+  }
+
+  /**
+   * Stops reading: the read turns in progress are interrupted, and the log files are closed.
+   */
+  @Override
+  protected void shutDown() throws InterruptedException {
+    readerPool.unregister(this);
+    for (TailedFile tailedFile : files.values()) {
+      tailedFile.interruptReader();
+    }
+    long stopTime = System.currentTimeMillis() + STOP_TIMEOUT_MS;
+    for (TailedFile tailedFile : files.values()) {
+      while (tailedFile.scheduled.get() && System.currentTimeMillis() < stopTime) {
+        Thread.sleep(10);
+      }
+    }
+    if (!sharedReaderPool) {
+      readerPool.stopAsync().awaitTerminated();
+    }
+    for (TailedFile tailedFile : files.values()) {
+      tailedFile.close();
+    }
+    files.clear();
+    LOG.info("Tailer daemon stopped");
+  }
+
+  @Override
+  public String toString() {
+    return pipeName;
+  }
+
+  @Override
+  public long getReadLagBytes() {
+    long lag = 0;
+    for (TailedFile tailedFile : files.values()) {
+      lag += Math.max(0, tailedFile.file.length() - tailedFile.position);
+    }
+    return lag;
+  }
+
+  @Override
+  public long getReadLagSeconds() {
+    long lag = 0;
+    for (TailedFile tailedFile : files.values()) {
+      long modifyTime = tailedFile.file.lastModified();
+      if (tailedFile.file.length() > tailedFile.position) {
+        long readModifyTime = tailedFile.readModifyTime == 0 ? modifyTime : tailedFile.readModifyTime;
+        lag = Math.max(lag, modifyTime - readModifyTime);
+      }
+    }
+    return TimeUnit.MILLISECONDS.toSeconds(lag);
+  }
+
+  @Override
+  public long getReadModifyTime() {
+    long readModifyTime = 0;
+    for (TailedFile tailedFile : files.values()) {
+      readModifyTime = Math.max(readModifyTime, tailedFile.readModifyTime);
+    }
+    return readModifyTime;
+  }
+
+  /**
+   *  Retrieves the saved states of the log files.
+   *
+   *  @return the states by log file name; empty if the state was not saved yet
+   */
+  private Map<String, FileTailerState> getSavedFileStates() {
+    Map<String, FileTailerState> savedStates = new HashMap<String, FileTailerState>();
+    try {
+      FileTailerState state = stateProcessor.loadState();
+      if (state != null) {
+        for (FileTailerState fileState : state.getFileStates()) {
+          savedStates.put(fileState.getFileName(), fileState);
+        }
+      }
+    } catch (FileTailerStateProcessorException e) {
+      LOG.info("File Tailer state was not found; start reading all matching logs from the beginning");
+    }
+    return savedStates;
+  }
+
+  /**
+   *  Finds the log files matching the file pattern, and hands the files with unread data over to the readers.
+   *  Called by the scanner thread of the reader pool.
+   */
+  void scan() {
+    if (!isRunning()) {
+      return;
+    }
+    File[] matchingFiles = logDirectory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return filePattern.matcher(file.getName()).matches() && file.isFile();
+      }
+    });
+    Set<String> names = new HashSet<String>();
+    if (matchingFiles != null) {
+      for (File file : matchingFiles) {
+        names.add(file.getName());
+        TailedFile tailedFile = files.get(file.getName());
+        if (tailedFile == null) {
+          try {
+            tailedFile = new TailedFile(file, findSavedState(file));
+          } catch (IOException e) {
+            LOG.warn("Cannot open log file {}: {}", file, e.getMessage());
+            continue;
+          }
+          files.put(file.getName(), tailedFile);
+        } else {
+          tailedFile.checkReplaced();
+        }
+        schedule(tailedFile);
+      }
+    }
+    for (TailedFile tailedFile : files.values()) {
+      if (!names.contains(tailedFile.file.getName())) {
+        tailedFile.removed = true;
+        schedule(tailedFile);
+      }
+    }
+  }
+
+  /**
+   *  Finds the saved state of a log file: the state saved under its name, unless another file has the name now,
+   *  or else the state of the file saved under its name before it was renamed.
+   *
+   *  @param file the log file
+   *  @return the saved state; <code>null</code> if none was saved
+   */
+  private FileTailerState findSavedState(File file) {
+    FileTailerState savedState = savedStates.get(file.toString());
+    if (savedState != null) {
+      FileIdentity savedIdentity = FileIdentity.of(savedState);
+      if (!savedIdentity.isAvailable() || savedIdentity.matches(file)) {
+        return savedStates.remove(file.toString());
+      }
+    }
+    for (Iterator<FileTailerState> iterator = savedStates.values().iterator(); iterator.hasNext(); ) {
+      FileTailerState renamedState = iterator.next();
+      FileIdentity savedIdentity = FileIdentity.of(renamedState);
+      if (savedIdentity.isAvailable() && savedIdentity.matches(file)) {
+        LOG.info("Log file {} was renamed from {} since its state was saved", file, renamedState.getFileName());
+        iterator.remove();
+        return renamedState;
+      }
+    }
+    return savedState;
+  }
+
+  /**
+   *  Hands a file over to the readers, unless it is already waiting to be read, it has no unread data,
+   *  or the queue of the pipe is full; in the latter case the file is handed over by a later scan.
+   *
+   *  @param tailedFile the file
+   */
+  private void schedule(TailedFile tailedFile) {
+    if (!tailedFile.hasUnreadData() || queue.remainingCapacity() == 0
+      || !tailedFile.scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      readerPool.execute(new ReadTurn(tailedFile));
+    } catch (RejectedExecutionException e) {
+      // the tailer is stopping
+      tailedFile.scheduled.set(false);
+    }
+  }
+
+  /**
+   * Turn of a reader thread to read a file.
+   */
+  private final class ReadTurn implements Runnable {
+    private final TailedFile tailedFile;
+
+    private ReadTurn(TailedFile tailedFile) {
+      this.tailedFile = tailedFile;
+    }
+
+    @Override
+    public void run() {
+      boolean readTurnUsed = false;
+      try {
+        if (tailedFile.setReader(Thread.currentThread())) {
+          readTurnUsed = tailedFile.read();
+        }
+      } catch (InterruptedException e) {
+        LOG.debug("Reading log file {} was interrupted", tailedFile.file);
+      } catch (IOException e) {
+        if (isRunning()) {
+          LOG.warn("Cannot read log file {}; retrying later: {}", tailedFile.file, e.getMessage());
+        }
+      } finally {
+        tailedFile.setReader(null);
+        tailedFile.scheduled.set(false);
+      }
+      if (readTurnUsed && isRunning()) {
+        schedule(tailedFile);
+      }
+    }
+  }
+
+  /**
+   * Log file matching the file pattern, read by one reader thread at a time. The identity of the file and
+   * the replaced flag are guarded by the monitor of the file, as the scanner thread checks them, while the reader
+   * thread opens the new file of a replaced one.
+   */
+  private final class TailedFile {
+    private final File file;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private FileChannel channel;
+    private FileIdentity identity;
+    private volatile long position;
+    private volatile long readModifyTime;
+    private volatile FileTailerEvent pendingEvent;
+    private volatile boolean replaced;
+    private volatile boolean removed;
+    private Thread reader;
+
+    private TailedFile(File file, FileTailerState savedState) throws IOException {
+      this.file = file;
+      open();
+      if (savedState != null) {
+        FileIdentity savedIdentity = FileIdentity.of(savedState);
+        if ((!savedIdentity.isAvailable() || savedIdentity.matches(file)) &&
+          channel.size() > savedState.getPosition()) {
+          LOG.info("Start reading log file {} from save state", file);
+          position = skipSavedLine(savedState.getPosition(), savedState.getHash());
+          readModifyTime = savedState.getLastModifyTime();
+        } else {
+          LOG.warn("Log file {} was replaced since its state was saved; start reading it from the beginning", file);
+        }
+      }
+    }
+
+    /**
+     * Sets the thread, which reads the file in the current read turn. The interrupted status of the thread
+     * is cleared at the end of the turn, so an interruption never affects the next turn of the thread.
+     *
+     * @param thread the reader thread; <code>null</code> at the end of the read turn
+     * @return false if the tailer is stopping, so the file must not be read
+     */
+    private synchronized boolean setReader(Thread thread) {
+      if (thread == null) {
+        reader = null;
+        Thread.interrupted();
+        return false;
+      }
+      if (!isRunning()) {
+        return false;
+      }
+      reader = thread;
+      return true;
+    }
+
+    private synchronized void interruptReader() {
+      if (reader != null) {
+        reader.interrupt();
+      }
+    }
+
+    private void open() throws IOException {
+      channel = new RandomAccessFile(file, RAF_MODE).getChannel();
+      position = 0;
+      synchronized (this) {
+        identity = FileIdentity.of(file, fingerprintSize);
+        replaced = false;
+      }
+    }
+
+    private void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOG.warn("Exception during closing: {}", e.getMessage(), e);
+      }
+    }
+
+    /**
+     * Marks the file as replaced, if a file with another file key has its name now.
+     */
+    private synchronized void checkReplaced() {
+      removed = false;
+      if (identity.getFileKey() != null && !identity.hasSameKey(file)) {
+        replaced = true;
+      }
+    }
+
+    private boolean hasUnreadData() {
+      return pendingEvent != null || replaced || removed || file.length() != position;
+    }
+
+    /**
+     * Skips the line of the saved state.
+     *
+     * @param savedPosition the position of the saved line
+     * @param hash the hash of the saved line
+     * @return the position after the saved line
+     * @throws IOException in case the file can not be read
+     */
+    private long skipSavedLine(long savedPosition, int hash) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(readBufferSize);
+      channel.position(savedPosition);
+      while (channel.read(buffer) >= 0) {
+        for (int i = 0; i < buffer.position(); i++) {
+          if (buffer.get(i) == separator) {
+            if (ByteLineSplitter.hash(ByteLineSplitter.copy(buffer, 0, i)) != hash) {
+              LOG.warn("Saved log entry was changed in file {}; continue reading after it", file);
+            }
+            return savedPosition + i + 1;
+          }
+        }
+        if (!buffer.hasRemaining()) {
+          buffer.flip();
+          buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+        }
+      }
+      return savedPosition;
+    }
+
+    /**
+     * Reads the complete lines of the file, at most {@value #READ_TURN_BUFFERS} buffers of them.
+     * At the end of a replaced file, the new file is opened; at the end of a removed file, the file is closed.
+     * If the queue is full, the turn ends, and the event, which did not fit, is put first in the next turn.
+     *
+     * @return true if the read turn was used up, or a new file was opened, so there may be more data to read
+     * @throws IOException in case the file can not be read
+     * @throws InterruptedException in case thread was interrupted
+     */
+    private boolean read() throws IOException, InterruptedException {
+      if (pendingEvent != null) {
+        if (!queue.offer(pendingEvent)) {
+          return false;
+        }
+        pendingEvent = null;
+      }
+      if (channel.size() < position) {
+        LOG.info("Log file {} was truncated; start reading it from the beginning", file);
+        position = 0;
+      }
+      if (identity.getFingerprintLength() < fingerprintSize && channel.size() > identity.getFingerprintLength()) {
+        refreshFingerprint();
+      }
+      channel.position(position);
+      EventLineHandler handler = new EventLineHandler(position, readModifyTime);
+      ByteBuffer buffer = ByteBuffer.allocate(readBufferSize);
+      try {
+        for (int i = 0; i < READ_TURN_BUFFERS && isRunning(); i++) {
+          if (channel.read(buffer) < 0) {
+            return onEndOfFile();
+          }
+          buffer.flip();
+          handler.modifyTime = file.lastModified();
+          lineSplitter.split(buffer, handler);
+          if (pendingEvent != null) {
+            LOG.trace("Queue of pipe {} is full; reading log file {} later", pipeName, file);
+            return false;
+          }
+          if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            LOG.debug("Log entry from file {} does not fit into {} bytes", file, buffer.capacity());
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+          } else {
+            buffer.compact();
+          }
+        }
+        return true;
+      } finally {
+        position = handler.position;
+        readModifyTime = handler.modifyTime;
+      }
+    }
+
+    /**
+     * Takes the longer fingerprint of a growing file, unless the file was replaced, so the name belongs to
+     * another file now.
+     */
+    private synchronized void refreshFingerprint() {
+      if (!replaced) {
+        identity = FileIdentity.of(file, fingerprintSize);
+      }
+    }
+
+    private boolean onEndOfFile() throws IOException {
+      if (replaced) {
+        LOG.info("Log file {} was replaced; start reading the new file", file);
+        close();
+        open();
+        return true;
+      }
+      if (removed) {
+        LOG.info("Log file {} was removed", file);
+        close();
+        files.remove(file.getName());
+      }
+      return false;
+    }
+
+    /**
+     * Puts the lines of the file into the queue, keeping track of the read position. Once an event does not fit
+     * into the queue, it is kept as the pending event of the file, and the following lines are left unread.
+     */
+    private final class EventLineHandler implements ByteLineSplitter.LineHandler {
+      private long position;
+      private long modifyTime;
+
+      private EventLineHandler(long position, long modifyTime) {
+        this.position = position;
+        this.modifyTime = modifyTime;
+      }
+
+      @Override
+      public void onLine(ByteBuffer buffer, int offset, int length) {
+        if (pendingEvent != null) {
+          return;
+        }
+        byte[] line = ByteLineSplitter.copy(buffer, offset, length);
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("From log file {} read entry: {}", file, new String(line, charset));
+        }
+        FileTailerState state = new FileTailerState(file.toString(), position, ByteLineSplitter.hash(line), modifyTime,
+                                                    identity.getFileKey(), identity.getFingerprint(),
+                                                    identity.getFingerprintLength());
+        FileTailerEvent event = new FileTailerEvent(state, ByteBuffer.wrap(line), charset);
+        metricsProcessor.onReadEventMetric(length);
+        position += length + 1;
+        if (!queue.offer(event)) {
+          pendingEvent = event;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+/**
+ * Log file reading mode of the tailer.
+ */
+public enum ReadMode {
+  /**
+   * All files are read through the file channel into the read buffer.
+   */
+  CHANNEL,
+  /**
+   * Rotated files are memory-mapped in large windows; the active log file is read through the file channel.
+   */
+  MMAP
+}
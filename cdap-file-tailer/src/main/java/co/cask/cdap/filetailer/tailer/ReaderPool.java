@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer.tailer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed pool of reader threads, which read the log files of one or several {@link MultiFileTailer}s.
+ * A scanner thread looks for new data in the log files of all registered tailers once per sleep interval,
+ * and hands only the files with unread data over to the readers; tailers without new data take no thread.
+ */
+public class ReaderPool extends AbstractScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReaderPool.class);
+
+  private final String name;
+  private final int readerThreads;
+  private final long sleepInterval;
+  private final List<MultiFileTailer> tailers = new CopyOnWriteArrayList<MultiFileTailer>();
+  private volatile ExecutorService readers;
+
+  public ReaderPool(String name, int readerThreads, long sleepInterval) {
+    Preconditions.checkArgument(readerThreads > 0, "Number of reader threads must be positive");
+    Preconditions.checkArgument(sleepInterval > 0, "Sleep interval must be positive");
+    this.name = name;
+    this.readerThreads = readerThreads;
+    this.sleepInterval = sleepInterval;
+  }
+
+  /**
+   * Starts looking for new data in the log files of the tailer.
+   *
+   * @param tailer the tailer
+   */
+  void register(MultiFileTailer tailer) {
+    tailers.add(tailer);
+  }
+
+  /**
+   * Stops looking for new data in the log files of the tailer.
+   *
+   * @param tailer the tailer
+   */
+  void unregister(MultiFileTailer tailer) {
+    tailers.remove(tailer);
+  }
+
+  /**
+   * Executes a read turn on one of the reader threads.
+   *
+   * @param readTurn the read turn
+   * @throws java.util.concurrent.RejectedExecutionException if the pool is stopped
+   */
+  void execute(Runnable readTurn) {
+    readers.execute(readTurn);
+  }
+
+  @Override
+  protected void startUp() {
+    readers = Executors.newFixedThreadPool(readerThreads, new ThreadFactoryBuilder()
+      .setNameFormat("file-tailer-reader-" + name + "-%d").setDaemon(true).build());
+  }
+
+  @Override
+  protected void runOneIteration() {
+    for (MultiFileTailer tailer : tailers) {
+      try {
+        tailer.scan();
+      } catch (RuntimeException e) {
+        LOG.warn("Cannot look for new data in the log files of tailer {}: {}", tailer, e.getMessage(), e);
+      }
+    }
+  }
+
+  @Override
+  protected void shutDown() throws InterruptedException {
+    readers.shutdownNow();
+    if (!readers.awaitTermination(sleepInterval, TimeUnit.MILLISECONDS)) {
+      LOG.warn("Reader threads did not stop in {} ms", sleepInterval);
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(0, sleepInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected String serviceName() {
+    return "file-tailer-scanner-" + name;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the threads and the heap taken by a {@link PipeManager} running many pipes, each one tailing its own
+ * log file to a stub Stream server, either with a tailer thread and writer threads per pipe, or with the reader
+ * and writer threads shared by all pipes. Each mode should run in a fresh JVM, with the test classpath:
+ * {@code java co.cask.cdap.filetailer.PipeFootprintBenchmark [per-pipe|shared] [pipes]}
+ */
+public class PipeFootprintBenchmark {
+
+  private static final int DEFAULT_PIPES = 1000;
+  private static final int LINES_PER_FILE = 10;
+  private static final int SHARED_READER_THREADS = 4;
+  private static final int SHARED_WRITER_THREADS = 16;
+  private static final long SETTLE_TIME_MS = 15000;
+  private static final byte[] STREAM_INFO = "{\"ttl\":86400000}".getBytes(Charsets.UTF_8);
+
+  public static void main(String[] args) throws Exception {
+    boolean shared = args.length > 0 && "shared".equals(args[0]);
+    int pipes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PIPES;
+    final AtomicLong writeRequests = new AtomicLong();
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        while (body.read() >= 0) {
+          // the request body is discarded
+        }
+        if ("POST".equals(exchange.getRequestMethod())) {
+          writeRequests.incrementAndGet();
+        }
+        exchange.sendResponseHeaders(200, STREAM_INFO.length);
+        OutputStream response = exchange.getResponseBody();
+        response.write(STREAM_INFO);
+        response.close();
+      }
+    });
+    server.start();
+    File dir = Files.createTempDir();
+    try {
+      File confFile = writeConfiguration(dir, pipes, shared, server.getAddress().getPort());
+      long startTime = System.currentTimeMillis();
+      PipeManager pipeManager = new PipeManager(confFile);
+      pipeManager.startAsync().awaitRunning();
+      long startupTime = System.currentTimeMillis() - startTime;
+      Thread.sleep(SETTLE_TIME_MS);
+      System.gc();
+      System.gc();
+      long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+      int peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+      System.out.printf("mode=%s pipes=%d startup=%d ms threads=%d peakThreads=%d heapUsed=%d MB " +
+                          "writeRequests=%d/%d%n", shared ? "shared" : "per-pipe", pipes, startupTime, threads,
+                        peakThreads, heapUsed >> 20, writeRequests.get(), pipes * LINES_PER_FILE);
+      pipeManager.stopAsync().awaitTerminated();
+    } finally {
+      server.stop(0);
+      FileUtils.deleteDirectory(dir);
+    }
+    // the writer threads of the pipes outlive them
+    System.exit(0);
+  }
+
+  private static File writeConfiguration(File dir, int pipes, boolean shared, int port) throws IOException {
+    File logDir = new File(dir, "logs");
+    Properties properties = new Properties();
+    StringBuilder pipeNames = new StringBuilder();
+    for (int i = 0; i < pipes; i++) {
+      String pipe = "pipe" + i;
+      String logFileName = "app-" + i + ".log";
+      pipeNames.append(i == 0 ? "" : ",").append(pipe);
+      properties.setProperty("pipes." + pipe + ".name", pipe);
+      properties.setProperty("pipes." + pipe + ".queue_size", "100");
+      properties.setProperty("pipes." + pipe + ".source.work_dir", logDir.getAbsolutePath());
+      properties.setProperty("pipes." + pipe + ".source.file_name", logFileName);
+      properties.setProperty("pipes." + pipe + ".source.sleep_interval", "1000");
+      properties.setProperty("pipes." + pipe + ".sink.stream_name", "stream");
+      properties.setProperty("pipes." + pipe + ".sink.host", "localhost");
+      properties.setProperty("pipes." + pipe + ".sink.port", Integer.toString(port));
+      StringBuilder lines = new StringBuilder();
+      for (int line = 0; line < LINES_PER_FILE; line++) {
+        lines.append("log entry ").append(line).append(" of pipe ").append(i).append('\n');
+      }
+      Files.createParentDirs(new File(logDir, logFileName));
+      Files.write(lines.toString(), new File(logDir, logFileName), Charsets.UTF_8);
+    }
+    properties.setProperty("pipes", pipeNames.toString());
+    properties.setProperty("daemon_dir", new File(dir, "state").getAbsolutePath());
+    if (shared) {
+      properties.setProperty("shared_reader_threads", Integer.toString(SHARED_READER_THREADS));
+      properties.setProperty("shared_reader_sleep_interval", "1000");
+      properties.setProperty("shared_writer_threads", Integer.toString(SHARED_WRITER_THREADS));
+    }
+    File confFile = new File(dir, "file-tailer.properties");
+    OutputStream out = new FileOutputStream(confFile);
+    try {
+      properties.store(out, null);
+    } finally {
+      out.close();
+    }
+    return confFile;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer;
+
+import co.cask.cdap.client.StreamWriter;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.sink.FileTailerSink;
+import co.cask.cdap.filetailer.sink.SinkStrategy;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import co.cask.cdap.filetailer.tailer.LogTailer;
+import co.cask.cdap.filetailer.tailer.TailerLogUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pipe tests
+ */
+public class PipeTest {
+  private static final int QUEUE_SIZE = 100;
+  private static final int PACK_SIZE = 10;
+  private static final long WARM_UP_TIME_MS = 500;
+  private static final long IDLE_TIME_MS = 2000;
+  private static final double MAX_IDLE_CPU_LOAD = 0.1;
+
+  @Before
+  public void prepare() throws Exception {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test
+  public void idlePipeDoesNotSpinTest() throws Exception {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadBean.isThreadCpuTimeSupported());
+    threadBean.setThreadCpuTimeEnabled(true);
+
+    FileTailerQueue queue = new FileTailerQueue(QUEUE_SIZE);
+    FileTailerStateProcessor stateProcessor = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerMetricsProcessor metricsProcessor = Mockito.mock(FileTailerMetricsProcessor.class);
+    LogTailer tailer = new LogTailer(TailerLogUtils.loadConfig(), queue, stateProcessor, metricsProcessor, null);
+    FileTailerSink sink = new FileTailerSink(queue, Mockito.mock(StreamWriter.class), SinkStrategy.LOADBALANCE,
+                                             stateProcessor, metricsProcessor, null, PACK_SIZE);
+    Pipe pipe = new Pipe(tailer, sink);
+    pipe.startAsync().awaitRunning();
+    try {
+      Thread.sleep(WARM_UP_TIME_MS);
+      List<Long> threadIds = getPipeThreadIds();
+      Assert.assertEquals(2, threadIds.size());
+
+      long startCpuTime = getCpuTime(threadBean, threadIds);
+      long startTime = System.nanoTime();
+      Thread.sleep(IDLE_TIME_MS);
+      long cpuTime = getCpuTime(threadBean, threadIds) - startCpuTime;
+      long wallTime = System.nanoTime() - startTime;
+
+      Assert.assertTrue("Idle pipe used " + cpuTime / 1000000 + " ms of CPU time in " + wallTime / 1000000 + " ms",
+                        cpuTime < wallTime * MAX_IDLE_CPU_LOAD);
+    } finally {
+      pipe.stopAsync().awaitTerminated();
+    }
+  }
+
+  private static List<Long> getPipeThreadIds() {
+    List<Long> threadIds = new ArrayList<Long>();
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals(LogTailer.class.getSimpleName())
+        || thread.getName().equals(FileTailerSink.class.getSimpleName())) {
+        threadIds.add(thread.getId());
+      }
+    }
+    return threadIds;
+  }
+
+  private static long getCpuTime(ThreadMXBean threadBean, List<Long> threadIds) {
+    long cpuTime = 0;
+    for (long threadId : threadIds) {
+      cpuTime += Math.max(0, threadBean.getThreadCpuTime(threadId));
+    }
+    return cpuTime;
+  }
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.List;
+import java.util.Properties;
 
 public class ConfigurationImplTest {
 
@@ -51,4 +52,21 @@ public class ConfigurationImplTest {
 
     configuration.getPipeConfigurations();
   }
+
+  @Test
+  public void sharedReadersRequireFilePatternTest() throws ConfigurationLoadingException {
+    Properties properties = new Properties();
+    properties.setProperty("pipes", "pipe1");
+    properties.setProperty("shared_reader_threads", "2");
+    properties.setProperty("pipes.pipe1.source.file_pattern", "app.*\\.log");
+    Assert.assertEquals(1, new ConfigurationImpl(properties).getPipeConfigurations().size());
+
+    properties.remove("pipes.pipe1.source.file_pattern");
+    try {
+      new ConfigurationImpl(properties).getPipeConfigurations();
+      Assert.fail("A pipe without a file pattern cannot be read by the shared readers");
+    } catch (ConfigurationLoaderException e) {
+      Assert.assertTrue(e.getMessage().contains("file_pattern"));
+    }
+  }
 }
@@ -18,6 +18,7 @@ package co.cask.cdap.filetailer.config;
 
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoaderException;
 import co.cask.cdap.filetailer.config.exception.ConfigurationLoadingException;
+import co.cask.cdap.filetailer.tailer.ReadMode;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -42,6 +43,10 @@ public class PipeConfigurationImplTest {
     Assert.assertEquals("logEventStream", pipeConfiguration.getSinkConfiguration().getStreamName());
 
     Assert.assertEquals(60000, pipeConfiguration.getSourceConfiguration().getFailureSleepInterval());
+
+    Assert.assertEquals(ReadMode.CHANNEL, pipeConfiguration.getSourceConfiguration().getReadMode());
+
+    Assert.assertEquals(4096, pipeConfiguration.getSourceConfiguration().getReadBufferSize());
   }
 
   @Test(expected = ConfigurationLoaderException.class)
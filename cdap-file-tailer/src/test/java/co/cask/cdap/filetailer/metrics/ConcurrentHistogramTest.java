@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concurrent histogram tests
+ */
+public class ConcurrentHistogramTest {
+  private static final int THREADS = 8;
+  private static final int VALUES_PER_THREAD = 100000;
+  private static final double MAX_RELATIVE_ERROR = 1.0 / 16;
+
+  @Test
+  public void testPercentiles() {
+    ConcurrentHistogram histogram = new ConcurrentHistogram();
+    for (int i = 1; i <= 10000; i++) {
+      histogram.record(i);
+    }
+    ConcurrentHistogram.Snapshot snapshot = histogram.getSnapshotAndReset();
+
+    Assert.assertEquals(10000, snapshot.getCount());
+    Assert.assertEquals(10000L * 10001 / 2, snapshot.getSum());
+    Assert.assertEquals(1, snapshot.getMin());
+    Assert.assertEquals(10000, snapshot.getMax());
+    assertClose(5000, snapshot.getValueAtPercentile(50));
+    assertClose(9500, snapshot.getValueAtPercentile(95));
+    assertClose(9900, snapshot.getValueAtPercentile(99));
+    assertClose(9990, snapshot.getValueAtPercentile(99.9));
+    Assert.assertEquals(10000, snapshot.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    ConcurrentHistogram histogram = new ConcurrentHistogram();
+    histogram.record(3);
+    histogram.record(7);
+    histogram.record(-1);
+    ConcurrentHistogram.Snapshot snapshot = histogram.getSnapshotAndReset();
+
+    Assert.assertEquals(0, snapshot.getMin());
+    Assert.assertEquals(3, snapshot.getValueAtPercentile(50));
+    Assert.assertEquals(7, snapshot.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void testResetStartsNewInterval() {
+    ConcurrentHistogram histogram = new ConcurrentHistogram();
+    histogram.record(Long.MAX_VALUE);
+    Assert.assertEquals(Long.MAX_VALUE, histogram.getSnapshotAndReset().getValueAtPercentile(50));
+
+    ConcurrentHistogram.Snapshot snapshot = histogram.getSnapshotAndReset();
+    Assert.assertEquals(0, snapshot.getCount());
+    Assert.assertEquals(0, snapshot.getMin());
+    Assert.assertEquals(0, snapshot.getMax());
+    Assert.assertEquals(0, snapshot.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    final ConcurrentHistogram histogram = new ConcurrentHistogram();
+    List<Thread> threads = new ArrayList<Thread>(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int j = 1; j <= VALUES_PER_THREAD; j++) {
+            histogram.record(j);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    ConcurrentHistogram.Snapshot snapshot = histogram.getSnapshotAndReset();
+
+    Assert.assertEquals((long) THREADS * VALUES_PER_THREAD, snapshot.getCount());
+    Assert.assertEquals((long) THREADS * VALUES_PER_THREAD * (VALUES_PER_THREAD + 1) / 2, snapshot.getSum());
+    Assert.assertEquals(1, snapshot.getMin());
+    Assert.assertEquals(VALUES_PER_THREAD, snapshot.getMax());
+  }
+
+  private static void assertClose(long expected, long actual) {
+    Assert.assertTrue("Expected about " + expected + " but was " + actual,
+                      Math.abs(actual - expected) <= expected * MAX_RELATIVE_ERROR);
+  }
+}
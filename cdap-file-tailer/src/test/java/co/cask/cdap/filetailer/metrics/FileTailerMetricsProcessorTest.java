@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import com.google.common.base.Suppliers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * File Tailer metrics processor tests
+ */
+public class FileTailerMetricsProcessorTest {
+
+  @Test
+  public void testCumulativeMetrics() {
+    FileTailerMetricsProcessor metricsProcessor =
+      new FileTailerMetricsProcessor(new File("."), "stats", 60000, "cumulative", "test.log");
+    metricsProcessor.onReadEventMetric(10);
+    metricsProcessor.onReadEventMetric(20);
+    metricsProcessor.onRequestStartMetric();
+    metricsProcessor.onRequestStartMetric();
+    metricsProcessor.onRequestCompleteMetric();
+    metricsProcessor.onRetryMetric();
+    metricsProcessor.onIngestEventMetric(5);
+    metricsProcessor.setQueueDepthGauge(Suppliers.ofInstance(7L));
+
+    Assert.assertEquals(2, metricsProcessor.getLinesRead());
+    Assert.assertEquals(30, metricsProcessor.getBytesRead());
+    Assert.assertEquals(1, metricsProcessor.getEventsIngested());
+    Assert.assertEquals(5, metricsProcessor.getWriteLatencySum());
+    Assert.assertEquals(1, metricsProcessor.getRetries());
+    Assert.assertEquals(1, metricsProcessor.getInFlightRequests());
+    Assert.assertEquals(7, metricsProcessor.getQueueDepth());
+    Assert.assertEquals(0, metricsProcessor.getReadLagBytes());
+  }
+
+  @Test
+  public void testLag() {
+    FileTailerMetricsProcessor metricsProcessor =
+      new FileTailerMetricsProcessor(new File("."), "stats", 60000, "lag", "test.log");
+    ReadProgress readProgress = Mockito.mock(ReadProgress.class);
+    Mockito.when(readProgress.getReadLagBytes()).thenReturn(100L);
+    Mockito.when(readProgress.getReadLagSeconds()).thenReturn(3L);
+    Mockito.when(readProgress.getReadModifyTime()).thenReturn(50000L);
+    metricsProcessor.setReadProgress(readProgress);
+    for (int i = 0; i < 3; i++) {
+      metricsProcessor.onReadEventMetric(10);
+    }
+    Assert.assertEquals(100, metricsProcessor.getReadLagBytes());
+    Assert.assertEquals(3, metricsProcessor.getReadLagSeconds());
+    Assert.assertEquals(30, metricsProcessor.getCommitLagBytes());
+    Assert.assertEquals(0, metricsProcessor.getCommitLagSeconds());
+
+    metricsProcessor.onCommitMetric(20, 30000L);
+    Assert.assertEquals(10, metricsProcessor.getCommitLagBytes());
+    Assert.assertEquals(20, metricsProcessor.getCommitLagSeconds());
+
+    metricsProcessor.onCommitMetric(10, 50000L);
+    Assert.assertEquals(0, metricsProcessor.getCommitLagBytes());
+    Assert.assertEquals(0, metricsProcessor.getCommitLagSeconds());
+  }
+
+  @Test
+  public void testMBeanRegistration() throws Exception {
+    FileTailerMetricsProcessor metricsProcessor =
+      new FileTailerMetricsProcessor(new File("."), "stats", 60000, "jmx \"pipe\"", "test.log");
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = FileTailerMetricsProcessor.getObjectName("jmx \"pipe\"");
+
+    metricsProcessor.startUp();
+    try {
+      metricsProcessor.onReadEventMetric(42);
+      Assert.assertEquals("jmx \"pipe\"", mbeanServer.getAttribute(name, "PipeName"));
+      Assert.assertEquals(1L, mbeanServer.getAttribute(name, "LinesRead"));
+      Assert.assertEquals(42L, mbeanServer.getAttribute(name, "BytesRead"));
+    } finally {
+      metricsProcessor.shutDown();
+    }
+    Assert.assertFalse(mbeanServer.isRegistered(name));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the per-event overhead of the ingest metric, recorded by 16 concurrent write callback threads,
+ * compared with the former unsynchronized updates of {@link AtomicInteger} totals and extremes.
+ * Run with the test classpath: {@code java co.cask.cdap.filetailer.metrics.MetricsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(16)
+@Fork(1)
+public class MetricsBenchmark {
+
+  private static final int MAX_LATENCY = 1000;
+
+  private final FileTailerMetricsProcessor metricsProcessor =
+    new FileTailerMetricsProcessor(new File("."), "stats", 60000, "pipe", "test.log");
+
+  private final AtomicInteger totalEventsIngested = new AtomicInteger();
+  private final AtomicInteger totalWriteLatency = new AtomicInteger();
+  private final AtomicInteger writes = new AtomicInteger();
+  private final AtomicInteger minWriteLatency = new AtomicInteger();
+  private final AtomicInteger maxWriteLatency = new AtomicInteger();
+
+  @Benchmark
+  public void stripedIngestMetric() {
+    metricsProcessor.onIngestEventMetric(ThreadLocalRandom.current().nextInt(MAX_LATENCY));
+  }
+
+  /**
+   * Mirrors the former ingest metric, which lost concurrent updates.
+   */
+  @Benchmark
+  public void atomicIntegerIngestMetric() {
+    int latency = ThreadLocalRandom.current().nextInt(MAX_LATENCY);
+    totalEventsIngested.incrementAndGet();
+    totalWriteLatency.set(totalWriteLatency.get() + latency);
+    writes.incrementAndGet();
+    if (minWriteLatency.get() > latency || minWriteLatency.get() == 0) {
+      minWriteLatency.set(latency);
+    }
+    if (maxWriteLatency.get() < latency) {
+      maxWriteLatency.set(latency);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MetricsBenchmark.class.getSimpleName()).build()).run();
+  }
+}
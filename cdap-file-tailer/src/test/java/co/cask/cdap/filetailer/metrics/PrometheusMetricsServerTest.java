@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+
+/**
+ * Prometheus metrics server tests
+ */
+public class PrometheusMetricsServerTest {
+
+  @Test
+  public void testMetricsEndpoint() throws Exception {
+    FileTailerMetricsProcessor metricsProcessor =
+      new FileTailerMetricsProcessor(new File("."), "stats", 60000, "web\\logs", "test.log");
+    metricsProcessor.onReadEventMetric(100);
+    metricsProcessor.onIngestEventMetric(12);
+    metricsProcessor.onRetryMetric();
+
+    PrometheusMetricsServer server =
+      new PrometheusMetricsServer(0, Collections.singletonList(metricsProcessor));
+    server.startAsync().awaitRunning();
+    try {
+      InetSocketAddress address = server.getBindAddress();
+      Assert.assertTrue(address.getAddress().isLoopbackAddress());
+      URL url = new URL("http://localhost:" + address.getPort() + "/metrics");
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      Assert.assertEquals(200, connection.getResponseCode());
+      Assert.assertTrue(connection.getContentType().startsWith("text/plain"));
+      InputStream in = connection.getInputStream();
+      String body;
+      try {
+        body = new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+      } finally {
+        in.close();
+      }
+
+      Assert.assertTrue(body.contains("# TYPE filetailer_lines_read_total counter\n"));
+      Assert.assertTrue(body.contains("filetailer_lines_read_total{pipe=\"web\\\\logs\"} 1\n"));
+      Assert.assertTrue(body.contains("filetailer_bytes_read_total{pipe=\"web\\\\logs\"} 100\n"));
+      Assert.assertTrue(body.contains("filetailer_events_ingested_total{pipe=\"web\\\\logs\"} 1\n"));
+      Assert.assertTrue(body.contains("filetailer_retries_total{pipe=\"web\\\\logs\"} 1\n"));
+      Assert.assertTrue(body.contains("filetailer_queue_depth{pipe=\"web\\\\logs\"} 0\n"));
+      Assert.assertTrue(body.contains("filetailer_write_latency_ms{pipe=\"web\\\\logs\",quantile=\"0.99\"} "));
+      Assert.assertTrue(body.contains("filetailer_write_latency_ms_sum{pipe=\"web\\\\logs\"} 12\n"));
+      Assert.assertTrue(body.contains("filetailer_write_latency_ms_count{pipe=\"web\\\\logs\"} 1\n"));
+    } finally {
+      server.stopAsync().awaitTerminated();
+    }
+  }
+}
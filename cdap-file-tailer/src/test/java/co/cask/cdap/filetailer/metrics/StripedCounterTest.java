@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Striped counter tests
+ */
+public class StripedCounterTest {
+  private static final int THREADS = 16;
+  private static final int INCREMENTS_PER_THREAD = 100000;
+
+  @Test
+  public void testConcurrentIncrements() throws InterruptedException {
+    final StripedCounter counter = new StripedCounter();
+    List<Thread> threads = new ArrayList<Thread>(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < INCREMENTS_PER_THREAD; j++) {
+            counter.increment();
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertEquals((long) THREADS * INCREMENTS_PER_THREAD, counter.sum());
+  }
+
+  @Test
+  public void testSumThenReset() {
+    StripedCounter counter = new StripedCounter();
+    counter.add(Integer.MAX_VALUE);
+    counter.add(Integer.MAX_VALUE);
+    Assert.assertEquals(2L * Integer.MAX_VALUE, counter.sumThenReset());
+    Assert.assertEquals(0, counter.sum());
+  }
+}
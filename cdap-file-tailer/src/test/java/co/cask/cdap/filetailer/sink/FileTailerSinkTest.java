@@ -24,12 +24,25 @@ import co.cask.cdap.filetailer.state.FileTailerState;
 import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -40,6 +53,10 @@ public class FileTailerSinkTest {
   public static final int DEFAULT_QUEUE_SIZE = 10;
   public static final int TEST_EVENTS_SIZE = 20;
   public static final int CUSTOM_PACK_SIZE = 10;
+  public static final int MAX_PACKS_IN_FLIGHT = 3;
+  public static final int PARTIAL_PACK_SIZE = 3;
+  public static final long PACK_LINGER_MS = 200;
+  private static final ByteBuffer TEST_EVENT_BODY = ByteBuffer.wrap("test".getBytes(Charset.defaultCharset()));
 
   @Test
   public void basicTestWithDefaultPackSize() throws Exception {
@@ -58,7 +75,7 @@ public class FileTailerSinkTest {
       queue.put(new FileTailerEvent(new FileTailerState("file", 0L, 42, 0L), "test", Charset.defaultCharset()));
     }
 
-    Mockito.verify(writerMock, Mockito.timeout(10000).times(TEST_EVENTS_SIZE)).write("test", Charset.defaultCharset());
+    Mockito.verify(writerMock, Mockito.timeout(10000).times(TEST_EVENTS_SIZE)).write(TEST_EVENT_BODY);
 
     sink.stopAsync();
   }
@@ -81,8 +98,9 @@ public class FileTailerSinkTest {
         queue.put(new FileTailerEvent(new FileTailerState("file", 0L, 42, 0L), "test", Charset.defaultCharset()));
       }
 
-      Mockito.verify(writerMock,
-                     Mockito.timeout(10000).times(TEST_EVENTS_SIZE)).write("test", Charset.defaultCharset());
+      Mockito.verify(writerMock, Mockito.timeout(10000).times(TEST_EVENTS_SIZE / CUSTOM_PACK_SIZE))
+        .writeBatch(Matchers.anyListOf(ByteBuffer.class));
+      Mockito.verify(writerMock, Mockito.never()).write(TEST_EVENT_BODY);
     } finally {
       sink.stopAsync();
     }
@@ -128,6 +146,141 @@ public class FileTailerSinkTest {
     org.junit.Assert.assertTrue(success);
   }
 
+  @Test
+  public void windowedTestSavesContiguouslyUploadedState() throws Exception {
+    FileTailerStateProcessor stateProcessor = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerMetricsProcessor metricsProcessor = Mockito.mock(FileTailerMetricsProcessor.class);
+
+    FileTailerQueue queue = new FileTailerQueue(DEFAULT_QUEUE_SIZE);
+
+    final List<SettableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<SettableFuture<Void>>());
+    StreamWriter writerMock = Mockito.mock(StreamWriter.class);
+    Mockito.doAnswer(new Answer<ListenableFuture<Void>>() {
+      @Override
+      public ListenableFuture<Void> answer(InvocationOnMock invocationOnMock) throws Throwable {
+        SettableFuture<Void> future = SettableFuture.create();
+        futures.add(future);
+        return future;
+      }
+    }).when(writerMock).writeBatch(Matchers.anyListOf(ByteBuffer.class));
+
+    FileTailerSink sink = new FileTailerSink(queue, writerMock, SinkStrategy.LOADBALANCE,
+                                             stateProcessor, metricsProcessor, null, CUSTOM_PACK_SIZE,
+                                             MAX_PACKS_IN_FLIGHT);
+    try {
+      sink.startAsync();
+
+      for (int i = 0; i < MAX_PACKS_IN_FLIGHT * CUSTOM_PACK_SIZE; i++) {
+        queue.put(new FileTailerEvent(new FileTailerState("file", i, 42, 0L), "test", Charset.defaultCharset()));
+      }
+
+      //all packs are sent before any of them is acknowledged
+      Mockito.verify(writerMock, Mockito.timeout(10000).times(MAX_PACKS_IN_FLIGHT))
+        .writeBatch(Matchers.anyListOf(ByteBuffer.class));
+
+      futures.get(1).set(null);
+      Thread.sleep(500);
+      Mockito.verify(stateProcessor, Mockito.never()).saveState(Matchers.any(FileTailerState.class));
+
+      futures.get(0).set(null);
+      ArgumentCaptor<FileTailerState> states = ArgumentCaptor.forClass(FileTailerState.class);
+      Mockito.verify(stateProcessor, Mockito.timeout(10000).times(2)).saveState(states.capture());
+      Assert.assertEquals(CUSTOM_PACK_SIZE - 1, states.getAllValues().get(0).getPosition());
+      Assert.assertEquals(2 * CUSTOM_PACK_SIZE - 1, states.getAllValues().get(1).getPosition());
+    } finally {
+      for (SettableFuture<Void> future : futures) {
+        future.set(null);
+      }
+      sink.stopAsync();
+    }
+  }
+
+  @Test
+  public void lingerTestFlushesPartialPack() throws Exception {
+    FileTailerStateProcessor stateProcessor = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerMetricsProcessor metricsProcessor = Mockito.mock(FileTailerMetricsProcessor.class);
+
+    FileTailerQueue queue = new FileTailerQueue(DEFAULT_QUEUE_SIZE);
+
+    StreamWriter writerMock = getDummyStreamWriter();
+    FileTailerSink sink = new FileTailerSink(queue, writerMock, SinkStrategy.LOADBALANCE,
+                                             stateProcessor, metricsProcessor, null, CUSTOM_PACK_SIZE, 1,
+                                             PACK_LINGER_MS);
+    try {
+      sink.startAsync();
+
+      for (int i = 0; i < PARTIAL_PACK_SIZE; i++) {
+        queue.put(new FileTailerEvent(new FileTailerState("file", i, 42, 0L), "test", Charset.defaultCharset()));
+      }
+
+      ArgumentCaptor<List> batch = ArgumentCaptor.forClass(List.class);
+      Mockito.verify(writerMock, Mockito.timeout(10000)).writeBatch(batch.capture());
+      Assert.assertEquals(PARTIAL_PACK_SIZE, batch.getValue().size());
+      Mockito.verify(stateProcessor, Mockito.timeout(10000)).saveState(Matchers.any(FileTailerState.class));
+    } finally {
+      sink.stopAsync();
+    }
+  }
+
+  @Test
+  public void retryTestWithFullWindow() throws Exception {
+    FileTailerStateProcessor stateProcessor = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerMetricsProcessor metricsProcessor = Mockito.mock(FileTailerMetricsProcessor.class);
+
+    FileTailerQueue queue = new FileTailerQueue(DEFAULT_QUEUE_SIZE);
+
+    // a writer with room for one write in progress, whose writes are completed by one I/O thread,
+    // and whose first write fails once the next one is waiting for room
+    final Semaphore window = new Semaphore(1, true);
+    final ExecutorService ioThread = Executors.newSingleThreadExecutor();
+    final AtomicInteger writes = new AtomicInteger();
+    StreamWriter writerMock = Mockito.mock(StreamWriter.class);
+    Mockito.doAnswer(new Answer<ListenableFuture<Void>>() {
+      @Override
+      public ListenableFuture<Void> answer(InvocationOnMock invocationOnMock) throws Throwable {
+        window.acquire();
+        final boolean failed = writes.incrementAndGet() == 1;
+        final SettableFuture<Void> future = SettableFuture.create();
+        ioThread.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              TimeUnit.MILLISECONDS.sleep(PACK_LINGER_MS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            window.release();
+            if (failed) {
+              future.setException(new IOException("Failed to write"));
+            } else {
+              future.set(null);
+            }
+          }
+        });
+        return future;
+      }
+    }).when(writerMock).writeBatch(Matchers.anyListOf(ByteBuffer.class));
+
+    FileTailerSink sink = new FileTailerSink(queue, writerMock, SinkStrategy.LOADBALANCE,
+                                             stateProcessor, metricsProcessor, null, CUSTOM_PACK_SIZE,
+                                             MAX_PACKS_IN_FLIGHT);
+    try {
+      sink.startAsync();
+
+      for (int i = 0; i < 2 * CUSTOM_PACK_SIZE; i++) {
+        queue.put(new FileTailerEvent(new FileTailerState("file", i, 42, 0L), "test", Charset.defaultCharset()));
+      }
+
+      // the failed pack is retried once the second pack makes room, and both packs are committed
+      Mockito.verify(stateProcessor, Mockito.timeout(10000).times(2)).saveState(Matchers.any(FileTailerState.class));
+      Assert.assertEquals(3, writes.get());
+      Mockito.verify(metricsProcessor).onRetryMetric();
+    } finally {
+      sink.stopAsync();
+      ioThread.shutdownNow();
+    }
+  }
+
   private StreamWriter getDummyConcurrentWriter(final AtomicInteger count) {
     StreamWriter writerMock = Mockito.mock(StreamWriter.class);
 
@@ -137,13 +290,22 @@ public class FileTailerSinkTest {
         count.incrementAndGet();
         return Futures.immediateFuture((Void) null);
       }
-    }).when(writerMock).write("test", Charset.defaultCharset());
+    }).when(writerMock).write(TEST_EVENT_BODY);
+    Mockito.doAnswer(new Answer<ListenableFuture<Void>>() {
+      @Override
+      public ListenableFuture<Void> answer(InvocationOnMock invocationOnMock) throws Throwable {
+        count.addAndGet(((List) invocationOnMock.getArguments()[0]).size());
+        return Futures.immediateFuture((Void) null);
+      }
+    }).when(writerMock).writeBatch(Matchers.anyListOf(ByteBuffer.class));
     return writerMock;
   }
 
   private StreamWriter getDummyStreamWriter() {
     StreamWriter writerMock = Mockito.mock(StreamWriter.class);
-    Mockito.when(writerMock.write("test", Charset.defaultCharset())).thenReturn(Futures.immediateFuture((Void) null));
+    Mockito.when(writerMock.write(TEST_EVENT_BODY)).thenReturn(Futures.immediateFuture((Void) null));
+    Mockito.when(writerMock.writeBatch(Matchers.anyListOf(ByteBuffer.class)))
+      .thenReturn(Futures.immediateFuture((Void) null));
     return writerMock;
   }
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.state;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/**
+ * Checkpoint service tests
+ */
+public class CheckpointServiceTest {
+
+  @Test
+  public void coalesceStatesTest() throws Exception {
+    CheckpointService checkpointService = new CheckpointService(60000);
+    FileTailerStateProcessor first = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor second = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor idle = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor firstPipe = checkpointService.register(first);
+    FileTailerStateProcessor secondPipe = checkpointService.register(second);
+    checkpointService.register(idle);
+
+    FileTailerState lastState = null;
+    for (int i = 1; i <= 100; i++) {
+      lastState = new FileTailerState("file", i, i, i);
+      firstPipe.saveState(lastState);
+    }
+    FileTailerState secondState = new FileTailerState("other", 1, 1, 1);
+    secondPipe.saveState(secondState);
+    Assert.assertSame(lastState, firstPipe.loadState());
+    Mockito.verify(first, Mockito.never()).saveState(Matchers.any(FileTailerState.class));
+
+    checkpointService.flushDirtyStates();
+
+    Mockito.verify(first).saveState(lastState);
+    Mockito.verify(second).saveState(secondState);
+    Mockito.verify(idle, Mockito.never()).saveState(Matchers.any(FileTailerState.class));
+
+    checkpointService.flushDirtyStates();
+    Mockito.verify(first, Mockito.times(1)).saveState(Matchers.any(FileTailerState.class));
+  }
+
+  @Test(timeout = 10000)
+  public void flushTest() throws Exception {
+    CheckpointService checkpointService = new CheckpointService(100);
+    FileTailerStateProcessor delegate = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor pipe = checkpointService.register(delegate);
+    checkpointService.startAsync().awaitRunning();
+    try {
+      FileTailerState state = new FileTailerState("file", 1, 1, 1);
+      pipe.saveState(state);
+      Mockito.verify(delegate, Mockito.timeout(5000)).saveState(state);
+
+      state = new FileTailerState("file", 2, 2, 2);
+      pipe.saveState(state);
+      pipe.flush();
+      Mockito.verify(delegate).saveState(state);
+      Mockito.verify(delegate).flush();
+    } finally {
+      checkpointService.stopAsync().awaitTerminated();
+    }
+    Mockito.verify(delegate, Mockito.times(2)).saveState(Matchers.any(FileTailerState.class));
+  }
+}
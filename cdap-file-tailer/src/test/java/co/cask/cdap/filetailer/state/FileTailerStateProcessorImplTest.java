@@ -17,10 +17,13 @@
 package co.cask.cdap.filetailer.state;
 
 import co.cask.cdap.filetailer.state.exception.FileTailerStateProcessorException;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 
 public class FileTailerStateProcessorImplTest {
 
@@ -47,4 +50,68 @@ public class FileTailerStateProcessorImplTest {
     new File("/tmp/ft_state_dir/ft.state").delete();
     new File("/tmp/ft_state_dir").delete();
   }
+
+  @Test
+  public void incompleteCheckpointTest() throws IOException {
+    File stateDir = new File("/tmp/ft_state_dir");
+    FileTailerStateProcessor stateProcessor = new FileTailerStateProcessorImpl(stateDir, "ft.state");
+    stateProcessor.saveState(new FileTailerState("name", 101, 1, 102));
+    stateProcessor.saveState(new FileTailerState("name", 202, 2, 203));
+    stateProcessor.flush();
+    File file = new File(stateDir, "ft.state");
+    // a crash in the middle of appending a checkpoint
+    Files.append("{\"fileName\":\"name\",\"position\":30", file, Charsets.UTF_8);
+
+    FileTailerState loadedState = new FileTailerStateProcessorImpl(stateDir, "ft.state").loadState();
+
+    Assert.assertEquals(202, loadedState.getPosition());
+    Assert.assertEquals(2, loadedState.getHash());
+
+    file.delete();
+    stateDir.delete();
+  }
+
+  @Test
+  public void checkpointIntervalTest() throws IOException {
+    File stateDir = new File("/tmp/ft_state_dir");
+    File file = new File(stateDir, "ft.state");
+    FileTailerStateProcessor stateProcessor = new FileTailerStateProcessorImpl(stateDir, "ft.state", 3, 0, true, 2);
+    for (int i = 1; i <= 7; i++) {
+      stateProcessor.saveState(new FileTailerState("name", i, i, i));
+    }
+    // the 3rd state is compacted, the 6th state is appended, the 7th state is pending
+    Assert.assertEquals(2, Files.readLines(file, Charsets.UTF_8).size());
+    Assert.assertEquals(6, new FileTailerStateProcessorImpl(stateDir, "ft.state").loadState().getPosition());
+
+    stateProcessor.saveState(new FileTailerState("name", 8, 8, 8));
+    stateProcessor.saveState(new FileTailerState("name", 9, 9, 9));
+    // the 9th state reaches the compaction threshold
+    Assert.assertEquals(1, Files.readLines(file, Charsets.UTF_8).size());
+    Assert.assertFalse(new File(stateDir, "ft.state.tmp").exists());
+
+    stateProcessor.saveState(new FileTailerState("name", 10, 10, 10));
+    stateProcessor.flush();
+    Assert.assertEquals(10, new FileTailerStateProcessorImpl(stateDir, "ft.state").loadState().getPosition());
+
+    file.delete();
+    stateDir.delete();
+  }
+  @Test(timeout = 10000)
+  public void idlePendingStateTest() throws Exception {
+    File stateDir = new File("/tmp/ft_state_dir");
+    File file = new File(stateDir, "ft.state");
+    FileTailerStateProcessor stateProcessor =
+      new FileTailerStateProcessorImpl(stateDir, "ft.state", 100, 200, true, 1000);
+    stateProcessor.saveState(new FileTailerState("name", 1, 1, 1));
+    stateProcessor.saveState(new FileTailerState("name", 2, 2, 2));
+    // the pipe goes idle: the pending state is written once the checkpoint interval time has elapsed
+    Assert.assertEquals(1, new FileTailerStateProcessorImpl(stateDir, "ft.state").loadState().getPosition());
+    while (new FileTailerStateProcessorImpl(stateDir, "ft.state").loadState().getPosition() != 2) {
+      Thread.sleep(50);
+    }
+    stateProcessor.flush();
+
+    file.delete();
+    stateDir.delete();
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer.state;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per file state processor tests
+ */
+public class PerFileStateProcessorTest {
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @Test
+  public void pruneRemovedFilesTest() throws Exception {
+    File rotated = tmpFolder.newFile("app.log.1");
+    File current = tmpFolder.newFile("app.log");
+    FileTailerStateProcessor delegate = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor stateProcessor = new PerFileStateProcessor(delegate, 0);
+
+    FileTailerState rotatedState = new FileTailerState(rotated.toString(), 10, 1, 1);
+    FileTailerState currentState = new FileTailerState(current.toString(), 10, 2, 2);
+    stateProcessor.saveState(currentState.withFileStates(Arrays.asList(rotatedState, currentState)));
+    Assert.assertTrue(rotated.delete());
+    FileTailerState nextState = new FileTailerState(current.toString(), 20, 3, 3);
+    stateProcessor.saveState(nextState);
+
+    ArgumentCaptor<FileTailerState> savedState = ArgumentCaptor.forClass(FileTailerState.class);
+    Mockito.verify(delegate, Mockito.times(2)).saveState(savedState.capture());
+    List<FileTailerState> savedStates = savedState.getAllValues();
+    Assert.assertEquals(2, savedStates.get(0).getFileStates().size());
+    Assert.assertEquals(Arrays.asList(nextState), savedStates.get(1).getFileStates());
+  }
+}
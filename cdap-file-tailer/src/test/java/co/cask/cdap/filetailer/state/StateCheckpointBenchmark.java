@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of states saved per second by {@link FileTailerStateProcessorImpl}, with a checkpoint
+ * after every state or every 100 states, with and without forcing the checkpoints to the storage device,
+ * compared with the former rewriting of the whole state file on every save.
+ * Run with the test classpath and logging at INFO level, as the test logging configuration logs every checkpoint:
+ * {@code java -Dlogback.configurationFile=<INFO config> co.cask.cdap.filetailer.state.StateCheckpointBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StateCheckpointBenchmark {
+
+  private static final Gson GSON = new Gson();
+
+  @Param({"1", "100"})
+  private int checkpointIntervalPacks;
+
+  @Param({"false", "true"})
+  private boolean sync;
+
+  private File stateDir;
+  private File legacyStateFile;
+  private FileTailerStateProcessor stateProcessor;
+  private long position;
+
+  @Setup
+  public void setUp() {
+    stateDir = Files.createTempDir();
+    legacyStateFile = new File(stateDir, "legacy.state");
+    stateProcessor = new FileTailerStateProcessorImpl(stateDir, "test.state", checkpointIntervalPacks, 0, sync, 1000);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    stateProcessor.flush();
+    for (File file : stateDir.listFiles()) {
+      file.delete();
+    }
+    stateDir.delete();
+  }
+
+  @Benchmark
+  public void checkpoint() throws IOException {
+    position += 100;
+    stateProcessor.saveState(new FileTailerState("/var/log/test.log", position, 42, 1451606400000L));
+  }
+
+  /**
+   * Mirrors the former state processor, which truncated and rewrote the state file on every save.
+   */
+  @Benchmark
+  public void rewrite() throws IOException {
+    position += 100;
+    JsonWriter jsonWriter = new JsonWriter(Files.newWriter(legacyStateFile, Charsets.UTF_8));
+    try {
+      GSON.toJson(new FileTailerState("/var/log/test.log", position, 42, 1451606400000L), FileTailerState.class,
+                  jsonWriter);
+    } finally {
+      jsonWriter.close();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StateCheckpointBenchmark.class.getSimpleName()).build()).run();
+  }
+}
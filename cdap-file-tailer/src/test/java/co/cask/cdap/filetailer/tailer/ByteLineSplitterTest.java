@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import com.google.common.base.Charsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte level line splitter tests
+ */
+public class ByteLineSplitterTest {
+
+  @Test
+  public void testSplitKeepsUnterminatedRemainder() throws InterruptedException {
+    ByteBuffer buffer = ByteBuffer.wrap("first\nsecond\n\nthi".getBytes(Charsets.UTF_8));
+    List<String> lines = new ArrayList<String>();
+
+    int count = new ByteLineSplitter((byte) '\n').split(buffer, new CollectingHandler(lines, Charsets.UTF_8));
+
+    Assert.assertEquals(3, count);
+    Assert.assertEquals("first", lines.get(0));
+    Assert.assertEquals("second", lines.get(1));
+    Assert.assertEquals("", lines.get(2));
+    Assert.assertEquals("thi", Charsets.UTF_8.decode(buffer).toString());
+  }
+
+  @Test
+  public void testSplitDirectBuffer() throws InterruptedException {
+    byte[] data = "ünïcödé\nline\n".getBytes(Charsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+    buffer.put(data).flip();
+    List<String> lines = new ArrayList<String>();
+
+    new ByteLineSplitter((byte) '\n').split(buffer, new CollectingHandler(lines, Charsets.UTF_8));
+
+    Assert.assertEquals(2, lines.size());
+    Assert.assertEquals("ünïcödé", lines.get(0));
+    Assert.assertEquals("line", lines.get(1));
+    Assert.assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  public void testHashMatchesStringHash() {
+    String asciiLine = "2016-01-01 00:00:00 INFO Log entry";
+    Assert.assertEquals(asciiLine.hashCode(), ByteLineSplitter.hash(asciiLine.getBytes(Charsets.UTF_8)));
+    String latinLine = "Café déjà vu";
+    Assert.assertEquals(latinLine.hashCode(), ByteLineSplitter.hash(latinLine.getBytes(Charsets.ISO_8859_1)));
+  }
+
+  @Test
+  public void testIsApplicable() {
+    Assert.assertTrue(ByteLineSplitter.isApplicable(Charsets.UTF_8, '\n'));
+    Assert.assertTrue(ByteLineSplitter.isApplicable(Charsets.ISO_8859_1, '\n'));
+    Assert.assertFalse(ByteLineSplitter.isApplicable(Charsets.UTF_16, '\n'));
+    Assert.assertFalse(ByteLineSplitter.isApplicable(Charsets.UTF_8, '§'));
+  }
+
+  private static final class CollectingHandler implements ByteLineSplitter.LineHandler {
+    private final List<String> lines;
+    private final Charset charset;
+
+    private CollectingHandler(List<String> lines, Charset charset) {
+      this.lines = lines;
+      this.charset = charset;
+    }
+
+    @Override
+    public void onLine(ByteBuffer buffer, int offset, int length) {
+      lines.add(new String(ByteLineSplitter.copy(buffer, offset, length), charset));
+    }
+  }
+}
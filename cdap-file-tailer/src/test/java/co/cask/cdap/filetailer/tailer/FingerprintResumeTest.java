@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.event.FileTailerEvent;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerState;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import org.apache.commons.lang.RandomStringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File Tailer resume by file identity tests
+ */
+public class FingerprintResumeTest {
+  private static final String LOG_FILE_NAME = "test.log";
+  private static final int ENTRY_NUMBER = 10;
+  private static final int READ_ENTRY_NUMBER = 5;
+  private static final int LINE_SIZE = 20;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws IOException {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test(timeout = 30000)
+  public void resumeRenamedFileTest() throws Exception {
+    File logFile = new File(workDir, LOG_FILE_NAME);
+    List<String> lines = writeLines(logFile, ENTRY_NUMBER);
+
+    FileTailerQueue queue = new FileTailerQueue(ENTRY_NUMBER * 2);
+    LogTailer tailer = createTailer(queue, null);
+    tailer.startAsync();
+    FileTailerState state;
+    try {
+      FileTailerEvent event = null;
+      for (int i = 0; i < READ_ENTRY_NUMBER; i++) {
+        event = queue.take();
+      }
+      state = event.getState();
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+    Assert.assertNotNull(state.getFileKey());
+    Assert.assertTrue(state.getFingerprintLength() > 0);
+
+    // the log file is rotated, with a different modification time, and a new log file is started
+    File rotatedFile = new File(workDir, LOG_FILE_NAME + ".1");
+    Assert.assertTrue(logFile.renameTo(rotatedFile));
+    Assert.assertTrue(rotatedFile.setLastModified(state.getLastModifyTime() - TimeUnit.HOURS.toMillis(1)));
+    lines.addAll(writeLines(logFile, ENTRY_NUMBER));
+
+    queue = new FileTailerQueue(ENTRY_NUMBER * 2);
+    tailer = createTailer(queue, state);
+    tailer.startAsync();
+    try {
+      for (String line : lines.subList(READ_ENTRY_NUMBER, lines.size())) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void unknownStateTest() throws Exception {
+    File logFile = new File(workDir, LOG_FILE_NAME);
+    List<String> lines = writeLines(logFile, ENTRY_NUMBER);
+    FileTailerState state = new FileTailerState(new File(workDir, "missing.log").toString(), 42, 42,
+                                                logFile.lastModified() - TimeUnit.HOURS.toMillis(1),
+                                                "(dev=0,ino=0)", 42, 10);
+
+    FileTailerQueue queue = new FileTailerQueue(ENTRY_NUMBER * 2);
+    LogTailer tailer = createTailer(queue, state);
+    tailer.startAsync();
+    try {
+      // the log files modified after the saved state are read instead of stopping the pipe
+      for (String line : lines) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void copyTruncateTest() throws Exception {
+    File logFile = new File(workDir, LOG_FILE_NAME);
+    List<String> lines = writeLines(logFile, ENTRY_NUMBER);
+
+    FileTailerQueue queue = new FileTailerQueue(ENTRY_NUMBER * 2);
+    LogTailer tailer = createTailer(queue, null);
+    tailer.startAsync();
+    try {
+      for (String line : lines) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+      // the log file is copied and truncated in place, keeping its file key, and new entries are written
+      String fileKey = FileIdentity.getFileKey(logFile);
+      new FileOutputStream(logFile).close();
+      List<String> newLines = writeLines(logFile, READ_ENTRY_NUMBER);
+      Assert.assertEquals(fileKey, FileIdentity.getFileKey(logFile));
+      for (String line : newLines) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void rewrittenInPlaceTest() throws Exception {
+    File logFile = new File(workDir, LOG_FILE_NAME);
+    List<String> lines = writeLines(logFile, ENTRY_NUMBER);
+    int prefixNumber = 2;
+    int prefixLength = (LINE_SIZE + 1) * prefixNumber;
+    FileIdentity identity = FileIdentity.of(logFile, prefixLength);
+    String savedLine = lines.get(READ_ENTRY_NUMBER);
+    FileTailerState state = new FileTailerState(logFile.toString(), (LINE_SIZE + 1) * READ_ENTRY_NUMBER,
+                                                savedLine.hashCode(), logFile.lastModified(),
+                                                identity.getFileKey(), identity.getFingerprint(),
+                                                identity.getFingerprintLength());
+    Assume.assumeNotNull(state.getFileKey());
+
+    // the log file is rewritten in place: it keeps its file key and its first entries, so it still matches
+    List<String> newLines = new ArrayList<String>(lines.subList(0, prefixNumber));
+    new FileOutputStream(logFile).close();
+    for (String line : newLines) {
+      TailerLogUtils.writeLineToFile(logFile.getAbsolutePath(), line);
+    }
+    newLines.addAll(writeLines(logFile, ENTRY_NUMBER - prefixNumber));
+    Assert.assertTrue(identity.matches(logFile));
+
+    FileTailerQueue queue = new FileTailerQueue(ENTRY_NUMBER * 2);
+    LogTailer tailer = createTailer(queue, state);
+    tailer.startAsync();
+    try {
+      // the saved offset does not start an entry of the new content, so the file is read from the beginning
+      for (String line : newLines) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+  }
+
+  private List<String> writeLines(File file, int number) throws IOException {
+    List<String> lines = new ArrayList<String>(number);
+    for (int i = 0; i < number; i++) {
+      String line = RandomStringUtils.randomAlphanumeric(LINE_SIZE);
+      TailerLogUtils.writeLineToFile(file.getAbsolutePath(), line);
+      lines.add(line);
+    }
+    return lines;
+  }
+
+  private LogTailer createTailer(FileTailerQueue queue, FileTailerState state) throws IOException {
+    FileTailerStateProcessor stateProcessor = Mockito.mock(FileTailerStateProcessor.class);
+    Mockito.when(stateProcessor.loadState()).thenReturn(state);
+    return new LogTailer(getConfig(), queue, stateProcessor, Mockito.mock(FileTailerMetricsProcessor.class), null);
+  }
+
+  private PipeConfiguration getConfig() {
+    SourceConfiguration sourceConfig = Mockito.mock(SourceConfiguration.class);
+    Mockito.when(sourceConfig.getWorkDir()).thenReturn(workDir);
+    Mockito.when(sourceConfig.getFileName()).thenReturn(LOG_FILE_NAME);
+    Mockito.when(sourceConfig.getRotationPattern()).thenReturn(LOG_FILE_NAME + "(.*)");
+    Mockito.when(sourceConfig.getCharsetName()).thenReturn("UTF-8");
+    Mockito.when(sourceConfig.getRecordSeparator()).thenReturn('\n');
+    Mockito.when(sourceConfig.getSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getFailureSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getReadRotatedFilesMode()).thenReturn(true);
+    Mockito.when(sourceConfig.getReadMode()).thenReturn(ReadMode.CHANNEL);
+    Mockito.when(sourceConfig.getReadBufferSize()).thenReturn(4096);
+    Mockito.when(sourceConfig.getFingerprintSize()).thenReturn(1024);
+    PipeConfiguration pipeConfig = Mockito.mock(PipeConfiguration.class);
+    Mockito.when(pipeConfig.getSourceConfiguration()).thenReturn(sourceConfig);
+    return pipeConfig;
+  }
+}
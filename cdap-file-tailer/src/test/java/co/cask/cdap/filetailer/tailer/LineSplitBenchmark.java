@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.lang.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte level line splitting of {@link LogTailer} with the character decoding path,
+ * reading 4 MB of log data through a 4 KB buffer as the tailer does.
+ * Run with the test classpath: {@code java co.cask.cdap.filetailer.tailer.LineSplitBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LineSplitBenchmark {
+
+  private static final int DATA_SIZE = 4 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 4096;
+  private static final char SEPARATOR = '\n';
+
+  @Param({"UTF-8", "ISO-8859-1"})
+  private String charsetName;
+
+  @Param({"80", "1000"})
+  private int lineLength;
+
+  private Charset charset;
+  private byte[] data;
+  private ByteBuffer readBuffer;
+  private CharBuffer decoded;
+  private CharsetDecoder decoder;
+  private ByteLineSplitter splitter;
+
+  @Setup
+  public void setUp() {
+    charset = Charset.forName(charsetName);
+    StringBuilder sb = new StringBuilder(DATA_SIZE);
+    while (sb.length() < DATA_SIZE) {
+      sb.append(RandomStringUtils.randomAlphanumeric(lineLength)).append(SEPARATOR);
+    }
+    data = sb.toString().getBytes(charset);
+    readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    decoded = CharBuffer.allocate(BUFFER_SIZE);
+    decoder = charset.newDecoder();
+    splitter = new ByteLineSplitter((byte) SEPARATOR);
+  }
+
+  /**
+   * Mirrors the decoding loop of the tailer: decode chunk, build a String per line, hash and encode it back
+   * to get its byte length.
+   */
+  @Benchmark
+  public long decodingSplit(Blackhole blackhole) {
+    long position = 0;
+    StringBuilder sb = new StringBuilder();
+    ByteBuffer source = ByteBuffer.wrap(data);
+    while (source.hasRemaining()) {
+      readBuffer.clear();
+      decoded.clear();
+      int len = Math.min(readBuffer.remaining(), source.remaining());
+      readBuffer.put(source.array(), source.position(), len);
+      source.position(source.position() + len);
+      readBuffer.flip();
+      decoder.decode(readBuffer, decoded, false);
+      decoded.flip();
+      for (int i = 0; i < decoded.length(); i++) {
+        char ch = decoded.charAt(i);
+        if (ch != SEPARATOR) {
+          sb.append(ch);
+        } else {
+          String line = sb.toString();
+          blackhole.consume(line.hashCode());
+          blackhole.consume(line);
+          position += line.getBytes(charset).length + 1;
+          sb.setLength(0);
+        }
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Splits the chunks at the byte level, copying each line once and hashing its bytes.
+   */
+  @Benchmark
+  public long byteSplit(final Blackhole blackhole) throws InterruptedException {
+    final long[] position = new long[1];
+    ByteLineSplitter.LineHandler handler = new ByteLineSplitter.LineHandler() {
+      @Override
+      public void onLine(ByteBuffer buffer, int offset, int length) {
+        byte[] line = ByteLineSplitter.copy(buffer, offset, length);
+        blackhole.consume(ByteLineSplitter.hash(line));
+        blackhole.consume(line);
+        position[0] += length + 1;
+      }
+    };
+    ByteBuffer source = ByteBuffer.wrap(data);
+    readBuffer.clear();
+    while (source.hasRemaining()) {
+      int len = Math.min(readBuffer.remaining(), source.remaining());
+      readBuffer.put(source.array(), source.position(), len);
+      source.position(source.position() + len);
+      readBuffer.flip();
+      splitter.split(readBuffer, handler);
+      readBuffer.compact();
+    }
+    return position[0];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(LineSplitBenchmark.class.getSimpleName()).build()).run();
+  }
+}
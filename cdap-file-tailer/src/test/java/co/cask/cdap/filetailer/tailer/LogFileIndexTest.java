@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Log file index tests
+ */
+public class LogFileIndexTest {
+  private static final String LOG_FILE_NAME = "test.log";
+  private static final String ROTATION_PATTERN = LOG_FILE_NAME + "(.*)";
+  private static final long START_TIME = 1000000000000L;
+  private static final long WAIT_TIMEOUT = 10000;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws Exception {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test
+  public void testLookups() throws IOException {
+    File rotated = createLogFile(LOG_FILE_NAME + ".1", START_TIME);
+    File active = createLogFile(LOG_FILE_NAME, START_TIME + 1000);
+    createLogFile("other.txt", START_TIME - 1000);
+
+    LogFileIndex index = new LogFileIndex(workDir, LOG_FILE_NAME, ROTATION_PATTERN, false);
+    try {
+      index.refresh();
+      Assert.assertEquals(rotated, index.getFirst());
+      Assert.assertEquals(rotated, index.get(START_TIME, rotated.getName()));
+      Assert.assertNull(index.get(START_TIME + 1000, rotated.getName()));
+      Assert.assertEquals(active, index.getNext(START_TIME, rotated.getName()));
+      Assert.assertNull(index.getNext(START_TIME + 1000, active.getName()));
+    } finally {
+      index.close();
+    }
+  }
+
+  @Test
+  public void testIncrementalUpdates() throws Exception {
+    File rotated = createLogFile(LOG_FILE_NAME + ".1", START_TIME);
+    LogFileIndex index = new LogFileIndex(workDir, LOG_FILE_NAME, ROTATION_PATTERN, true);
+    try {
+      index.refresh();
+      Assert.assertEquals(rotated, index.getFirst());
+      Assert.assertNull(index.getNext(START_TIME, rotated.getName()));
+
+      File active = createLogFile(LOG_FILE_NAME, START_TIME + 1000);
+      long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+      while (index.getNext(START_TIME, rotated.getName()) == null && System.currentTimeMillis() < deadline) {
+        Thread.sleep(100);
+        index.refresh();
+      }
+      Assert.assertEquals(active, index.getNext(START_TIME, rotated.getName()));
+
+      Assert.assertTrue(rotated.delete());
+      deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+      while (!active.equals(index.getFirst()) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(100);
+        index.refresh();
+      }
+      Assert.assertEquals(active, index.getFirst());
+    } finally {
+      index.close();
+    }
+  }
+
+  private File createLogFile(String name, long modificationTime) throws IOException {
+    File file = new File(workDir, name);
+    TailerLogUtils.writeLineToFile(file.getAbsolutePath(), name);
+    Assert.assertTrue(file.setLastModified(modificationTime));
+    return file;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import org.apache.commons.lang.RandomStringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File Tailer memory-mapped read mode tests
+ */
+public class MmapReadModeTest {
+  private static final String LOG_FILE_NAME = "test.log";
+  private static final int ROTATED_FILES_NUMBER = 3;
+  private static final int ENTRY_NUMBER = 20;
+  private static final int LINE_SIZE = 20;
+  private static final int LONG_LINE_SIZE = 300;
+  private static final int MMAP_WINDOW_SIZE = 64;
+  private static final int READ_BUFFER_SIZE = 16;
+  private static final int QUEUE_SIZE = 200;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws IOException {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test(timeout = 30000)
+  public void readRotatedAndActiveFilesTest() throws Exception {
+    List<String> logList = new ArrayList<String>();
+    long modifyTime = System.currentTimeMillis() - (ROTATED_FILES_NUMBER + 1) * 10000L;
+    for (int i = ROTATED_FILES_NUMBER; i >= 0; i--) {
+      String fileName = i == 0 ? LOG_FILE_NAME : LOG_FILE_NAME + i;
+      File file = new File(workDir, fileName);
+      for (int j = 0; j < ENTRY_NUMBER; j++) {
+        String line = RandomStringUtils.randomAlphanumeric(j == ENTRY_NUMBER / 2 ? LONG_LINE_SIZE : LINE_SIZE);
+        TailerLogUtils.writeLineToFile(file.getAbsolutePath(), line);
+        logList.add(line);
+      }
+      modifyTime += 10000L;
+      Assert.assertTrue(file.setLastModified(modifyTime));
+    }
+
+    FileTailerQueue queue = new FileTailerQueue(QUEUE_SIZE);
+    LogTailer tailer = new LogTailer(getMmapConfig(), queue, Mockito.mock(FileTailerStateProcessor.class),
+                                     Mockito.mock(FileTailerMetricsProcessor.class), null);
+    tailer.startAsync();
+    try {
+      for (String line : logList) {
+        Assert.assertEquals(line, queue.take().getEventData());
+      }
+    } finally {
+      tailer.stopAsync();
+    }
+  }
+
+  private PipeConfiguration getMmapConfig() {
+    SourceConfiguration sourceConfig = Mockito.mock(SourceConfiguration.class);
+    Mockito.when(sourceConfig.getWorkDir()).thenReturn(workDir);
+    Mockito.when(sourceConfig.getFileName()).thenReturn(LOG_FILE_NAME);
+    Mockito.when(sourceConfig.getRotationPattern()).thenReturn(LOG_FILE_NAME + "(.*)");
+    Mockito.when(sourceConfig.getCharsetName()).thenReturn("UTF-8");
+    Mockito.when(sourceConfig.getRecordSeparator()).thenReturn('\n');
+    Mockito.when(sourceConfig.getSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getFailureSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getReadRotatedFilesMode()).thenReturn(true);
+    Mockito.when(sourceConfig.getReadMode()).thenReturn(ReadMode.MMAP);
+    Mockito.when(sourceConfig.getReadBufferSize()).thenReturn(READ_BUFFER_SIZE);
+    Mockito.when(sourceConfig.getMmapWindowSize()).thenReturn(MMAP_WINDOW_SIZE);
+    PipeConfiguration pipeConfig = Mockito.mock(PipeConfiguration.class);
+    Mockito.when(pipeConfig.getSourceConfiguration()).thenReturn(sourceConfig);
+    return pipeConfig;
+  }
+}
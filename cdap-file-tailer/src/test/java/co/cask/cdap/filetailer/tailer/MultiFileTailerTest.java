@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.event.FileTailerEvent;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerState;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import co.cask.cdap.filetailer.state.PerFileStateProcessor;
+import org.apache.commons.lang.RandomStringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tailing of the log files matched by a file pattern tests
+ */
+public class MultiFileTailerTest {
+  private static final String FILE_PATTERN = "app-[0-9]+\\.log";
+  private static final int LINE_SIZE = 20;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws IOException {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test(timeout = 30000)
+  public void fairReadingTest() throws Exception {
+    int fileNumber = 5;
+    int entryNumber = 200;
+    Map<String, List<String>> lines = new HashMap<String, List<String>>();
+    for (int i = 0; i < fileNumber; i++) {
+      File logFile = new File(workDir, "app-" + i + ".log");
+      lines.put(logFile.toString(), writeLines(logFile, entryNumber));
+    }
+    writeLines(new File(workDir, "other.log"), entryNumber);
+
+    FileTailerQueue queue = new FileTailerQueue(fileNumber * entryNumber);
+    MultiFileTailer tailer = createTailer(queue, Mockito.mock(FileTailerStateProcessor.class));
+    tailer.startAsync();
+    Map<String, List<String>> readLines = new HashMap<String, List<String>>();
+    Set<String> filesReadFirst = new HashSet<String>();
+    try {
+      for (int i = 0; i < fileNumber * entryNumber; i++) {
+        FileTailerEvent event = queue.take();
+        String fileName = event.getState().getFileName();
+        if (i < fileNumber * entryNumber / 3) {
+          filesReadFirst.add(fileName);
+        }
+        if (!readLines.containsKey(fileName)) {
+          readLines.put(fileName, new ArrayList<String>());
+        }
+        readLines.get(fileName).add(event.getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+    Assert.assertEquals(lines, readLines);
+    // the files are read in turns, so all of them are read from before any of them is read to its end
+    Assert.assertEquals(lines.keySet(), filesReadFirst);
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test(timeout = 30000)
+  public void resumeFromFileStatesTest() throws Exception {
+    int entryNumber = 10;
+    List<File> logFiles = Arrays.asList(new File(workDir, "app-0.log"), new File(workDir, "app-1.log"),
+                                        new File(workDir, "app-2.log"));
+    Map<String, List<String>> lines = new HashMap<String, List<String>>();
+    for (File logFile : logFiles) {
+      lines.put(logFile.toString(), writeLines(logFile, entryNumber));
+    }
+
+    FileTailerStateProcessor delegate = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor stateProcessor = new PerFileStateProcessor(delegate);
+    FileTailerQueue queue = new FileTailerQueue(logFiles.size() * entryNumber);
+    MultiFileTailer tailer = createTailer(queue, stateProcessor);
+    tailer.startAsync();
+    Map<String, List<FileTailerState>> states = new HashMap<String, List<FileTailerState>>();
+    try {
+      for (int i = 0; i < logFiles.size() * entryNumber; i++) {
+        FileTailerState state = queue.take().getState();
+        if (!states.containsKey(state.getFileName())) {
+          states.put(state.getFileName(), new ArrayList<FileTailerState>());
+        }
+        states.get(state.getFileName()).add(state);
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+
+    // two packs are committed: the first one holds entries of two files, the second one of the third file
+    FileTailerState first = states.get(logFiles.get(0).toString()).get(4);
+    FileTailerState second = states.get(logFiles.get(1).toString()).get(6);
+    FileTailerState third = states.get(logFiles.get(2).toString()).get(2);
+    stateProcessor.saveState(second.withFileStates(Arrays.asList(first, second)));
+    stateProcessor.saveState(third);
+    ArgumentCaptor<FileTailerState> savedState = ArgumentCaptor.forClass(FileTailerState.class);
+    Mockito.verify(delegate, Mockito.times(2)).saveState(savedState.capture());
+    Assert.assertEquals(3, savedState.getValue().getFileStates().size());
+
+    for (File logFile : logFiles) {
+      lines.get(logFile.toString()).addAll(writeLines(logFile, entryNumber));
+    }
+    delegate = Mockito.mock(FileTailerStateProcessor.class);
+    Mockito.when(delegate.loadState()).thenReturn(savedState.getValue());
+    queue = new FileTailerQueue(logFiles.size() * entryNumber * 2);
+    tailer = createTailer(queue, new PerFileStateProcessor(delegate));
+    tailer.startAsync();
+    Map<String, List<String>> readLines = new HashMap<String, List<String>>();
+    try {
+      for (int i = 0; i < entryNumber * 2 * logFiles.size() - 5 - 7 - 3; i++) {
+        FileTailerEvent event = queue.take();
+        String fileName = event.getState().getFileName();
+        if (!readLines.containsKey(fileName)) {
+          readLines.put(fileName, new ArrayList<String>());
+        }
+        readLines.get(fileName).add(event.getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+    }
+    Assert.assertEquals(lines.get(logFiles.get(0).toString()).subList(5, entryNumber * 2),
+                        readLines.get(logFiles.get(0).toString()));
+    Assert.assertEquals(lines.get(logFiles.get(1).toString()).subList(7, entryNumber * 2),
+                        readLines.get(logFiles.get(1).toString()));
+    Assert.assertEquals(lines.get(logFiles.get(2).toString()).subList(3, entryNumber * 2),
+                        readLines.get(logFiles.get(2).toString()));
+    Assert.assertEquals(0, queue.size());
+  }
+
+  @Test(timeout = 30000)
+  public void sharedReaderPoolTest() throws Exception {
+    int entryNumber = 100;
+    List<String> patternLines = writeLines(new File(workDir, "app-0.log"), entryNumber);
+    List<String> singleFileLines = writeLines(new File(workDir, "single.log"), entryNumber);
+
+    ReaderPool readerPool = new ReaderPool("shared", 1, 100);
+    FileTailerQueue patternQueue = new FileTailerQueue(entryNumber);
+    FileTailerQueue singleFileQueue = new FileTailerQueue(entryNumber);
+    PipeConfiguration singleFileConfig = getConfig();
+    Mockito.when(singleFileConfig.getSourceConfiguration().getFilePattern()).thenReturn(null);
+    Mockito.when(singleFileConfig.getSourceConfiguration().getFileName()).thenReturn("single.log");
+    MultiFileTailer patternTailer =
+      new MultiFileTailer(getConfig(), patternQueue, Mockito.mock(FileTailerStateProcessor.class),
+                          Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    MultiFileTailer singleFileTailer =
+      new MultiFileTailer(singleFileConfig, singleFileQueue, Mockito.mock(FileTailerStateProcessor.class),
+                          Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    readerPool.startAsync().awaitRunning();
+    patternTailer.startAsync().awaitRunning();
+    singleFileTailer.startAsync().awaitRunning();
+    try {
+      // both pipes are read by the single reader thread of the shared pool
+      for (int i = 0; i < entryNumber; i++) {
+        Assert.assertEquals(patternLines.get(i), patternQueue.take().getEventData());
+        Assert.assertEquals(singleFileLines.get(i), singleFileQueue.take().getEventData());
+      }
+    } finally {
+      patternTailer.stopAsync().awaitTerminated();
+      singleFileTailer.stopAsync().awaitTerminated();
+      readerPool.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void stalledPipeTest() throws Exception {
+    int entryNumber = 100;
+    List<String> stalledLines = writeLines(new File(workDir, "app-0.log"), entryNumber);
+    List<String> singleFileLines = writeLines(new File(workDir, "single.log"), entryNumber);
+
+    ReaderPool readerPool = new ReaderPool("shared", 1, 100);
+    FileTailerQueue stalledQueue = new FileTailerQueue(1);
+    FileTailerQueue singleFileQueue = new FileTailerQueue(entryNumber);
+    PipeConfiguration singleFileConfig = getConfig();
+    Mockito.when(singleFileConfig.getSourceConfiguration().getFilePattern()).thenReturn(null);
+    Mockito.when(singleFileConfig.getSourceConfiguration().getFileName()).thenReturn("single.log");
+    MultiFileTailer stalledTailer =
+      new MultiFileTailer(getConfig(), stalledQueue, Mockito.mock(FileTailerStateProcessor.class),
+                          Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    MultiFileTailer singleFileTailer =
+      new MultiFileTailer(singleFileConfig, singleFileQueue, Mockito.mock(FileTailerStateProcessor.class),
+                          Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    readerPool.startAsync().awaitRunning();
+    stalledTailer.startAsync().awaitRunning();
+    singleFileTailer.startAsync().awaitRunning();
+    try {
+      // the queue of the stalled pipe is not drained, yet the single reader thread still reads the other pipe
+      for (String line : singleFileLines) {
+        Assert.assertEquals(line, singleFileQueue.take().getEventData());
+      }
+      Assert.assertEquals(0, stalledQueue.remainingCapacity());
+      // once drained, the stalled pipe goes on without losing the entries, which did not fit into its queue
+      for (String line : stalledLines) {
+        Assert.assertEquals(line, stalledQueue.take().getEventData());
+      }
+    } finally {
+      stalledTailer.stopAsync().awaitTerminated();
+      singleFileTailer.stopAsync().awaitTerminated();
+      readerPool.stopAsync().awaitTerminated();
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void sharedReaderPoolRestartAfterRotationTest() throws Exception {
+    int entryNumber = 10;
+    File logFile = new File(workDir, "app-0.log");
+    File rotatedFile = new File(workDir, "app-1.log");
+    List<String> rotatedLines = writeLines(logFile, entryNumber);
+
+    FileTailerStateProcessor delegate = Mockito.mock(FileTailerStateProcessor.class);
+    FileTailerStateProcessor stateProcessor = new PerFileStateProcessor(delegate);
+    ReaderPool readerPool = new ReaderPool("shared", 1, 100);
+    FileTailerQueue queue = new FileTailerQueue(entryNumber);
+    MultiFileTailer tailer = new MultiFileTailer(getConfig(), queue, stateProcessor,
+                                                 Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    readerPool.startAsync().awaitRunning();
+    tailer.startAsync().awaitRunning();
+    List<FileTailerState> states = new ArrayList<FileTailerState>();
+    try {
+      for (int i = 0; i < entryNumber; i++) {
+        states.add(queue.take().getState());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+      readerPool.stopAsync().awaitTerminated();
+    }
+    // the first 6 entries are uploaded, then the log file is rotated while the tailer is stopped
+    stateProcessor.saveState(states.get(5));
+    ArgumentCaptor<FileTailerState> savedState = ArgumentCaptor.forClass(FileTailerState.class);
+    Mockito.verify(delegate).saveState(savedState.capture());
+    Assert.assertTrue(logFile.renameTo(rotatedFile));
+    List<String> newLines = writeLines(logFile, entryNumber);
+
+    delegate = Mockito.mock(FileTailerStateProcessor.class);
+    Mockito.when(delegate.loadState()).thenReturn(savedState.getValue());
+    readerPool = new ReaderPool("shared", 1, 100);
+    queue = new FileTailerQueue(entryNumber * 2);
+    tailer = new MultiFileTailer(getConfig(), queue, new PerFileStateProcessor(delegate),
+                                 Mockito.mock(FileTailerMetricsProcessor.class), readerPool);
+    readerPool.startAsync().awaitRunning();
+    tailer.startAsync().awaitRunning();
+    Map<String, List<String>> readLines = new HashMap<String, List<String>>();
+    readLines.put(logFile.toString(), new ArrayList<String>());
+    readLines.put(rotatedFile.toString(), new ArrayList<String>());
+    try {
+      for (int i = 0; i < entryNumber * 2 - 6; i++) {
+        FileTailerEvent event = queue.take();
+        readLines.get(event.getState().getFileName()).add(event.getEventData());
+      }
+    } finally {
+      tailer.stopAsync().awaitTerminated();
+      readerPool.stopAsync().awaitTerminated();
+    }
+    // the rotated file is read on from the state saved under its previous name, the new file from its beginning
+    Assert.assertEquals(rotatedLines.subList(6, entryNumber), readLines.get(rotatedFile.toString()));
+    Assert.assertEquals(newLines, readLines.get(logFile.toString()));
+    Assert.assertEquals(0, queue.size());
+  }
+
+  private List<String> writeLines(File file, int number) throws IOException {
+    List<String> lines = new ArrayList<String>(number);
+    for (int i = 0; i < number; i++) {
+      String line = RandomStringUtils.randomAlphanumeric(LINE_SIZE);
+      TailerLogUtils.writeLineToFile(file.getAbsolutePath(), line);
+      lines.add(line);
+    }
+    return lines;
+  }
+
+  private MultiFileTailer createTailer(FileTailerQueue queue, FileTailerStateProcessor stateProcessor) {
+    return new MultiFileTailer(getConfig(), queue, stateProcessor, Mockito.mock(FileTailerMetricsProcessor.class));
+  }
+
+  private PipeConfiguration getConfig() {
+    SourceConfiguration sourceConfig = Mockito.mock(SourceConfiguration.class);
+    Mockito.when(sourceConfig.getWorkDir()).thenReturn(workDir);
+    Mockito.when(sourceConfig.getFilePattern()).thenReturn(FILE_PATTERN);
+    Mockito.when(sourceConfig.getReaderThreads()).thenReturn(2);
+    Mockito.when(sourceConfig.getCharsetName()).thenReturn("UTF-8");
+    Mockito.when(sourceConfig.getRecordSeparator()).thenReturn('\n');
+    Mockito.when(sourceConfig.getSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getReadBufferSize()).thenReturn(64);
+    Mockito.when(sourceConfig.getFingerprintSize()).thenReturn(1024);
+    PipeConfiguration pipeConfig = Mockito.mock(PipeConfiguration.class);
+    Mockito.when(pipeConfig.getSourceConfiguration()).thenReturn(sourceConfig);
+    Mockito.when(pipeConfig.getPipeName()).thenReturn("pipe");
+    return pipeConfig;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import org.apache.commons.lang.RandomStringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * File Tailer read lag tests
+ */
+public class ReadLagTest {
+  private static final String LOG_FILE_NAME = "test.log";
+  private static final int ROTATED_FILES_NUMBER = 3;
+  private static final int ENTRY_NUMBER = 20;
+  private static final int LINE_SIZE = 20;
+  private static final int QUEUE_SIZE = 10;
+  private static final long MODIFY_TIME_STEP = 10000L;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws IOException {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test(timeout = 30000)
+  public void readLagTest() throws Exception {
+    long modifyTime = System.currentTimeMillis() - (ROTATED_FILES_NUMBER + 1) * MODIFY_TIME_STEP;
+    for (int i = ROTATED_FILES_NUMBER; i >= 0; i--) {
+      File file = new File(workDir, i == 0 ? LOG_FILE_NAME : LOG_FILE_NAME + i);
+      for (int j = 0; j < ENTRY_NUMBER; j++) {
+        TailerLogUtils.writeLineToFile(file.getAbsolutePath(), RandomStringUtils.randomAlphanumeric(LINE_SIZE));
+      }
+      modifyTime += MODIFY_TIME_STEP;
+      Assert.assertTrue(file.setLastModified(modifyTime));
+    }
+    long fileSize = new File(workDir, LOG_FILE_NAME).length();
+
+    FileTailerQueue queue = new FileTailerQueue(QUEUE_SIZE);
+    LogTailer tailer = new LogTailer(getConfig(), queue, Mockito.mock(FileTailerStateProcessor.class),
+                                     Mockito.mock(FileTailerMetricsProcessor.class), null);
+    tailer.startAsync();
+    try {
+      while (queue.size() < QUEUE_SIZE) {
+        Thread.sleep(10);
+      }
+      // the tailer is blocked in the oldest rotated file, all the following files are unread
+      Assert.assertTrue(tailer.getReadLagBytes() >= ROTATED_FILES_NUMBER * fileSize);
+      Assert.assertEquals(ROTATED_FILES_NUMBER * MODIFY_TIME_STEP / 1000, tailer.getReadLagSeconds());
+
+      for (int i = 0; i < (ROTATED_FILES_NUMBER + 1) * ENTRY_NUMBER; i++) {
+        queue.take();
+      }
+      while (tailer.getReadLagBytes() > 0) {
+        Thread.sleep(10);
+      }
+      Assert.assertEquals(0, tailer.getReadLagSeconds());
+      Assert.assertEquals(modifyTime, tailer.getReadModifyTime());
+    } finally {
+      tailer.stopAsync();
+    }
+  }
+
+  private PipeConfiguration getConfig() {
+    SourceConfiguration sourceConfig = Mockito.mock(SourceConfiguration.class);
+    Mockito.when(sourceConfig.getWorkDir()).thenReturn(workDir);
+    Mockito.when(sourceConfig.getFileName()).thenReturn(LOG_FILE_NAME);
+    Mockito.when(sourceConfig.getRotationPattern()).thenReturn(LOG_FILE_NAME + "(.*)");
+    Mockito.when(sourceConfig.getCharsetName()).thenReturn("UTF-8");
+    Mockito.when(sourceConfig.getRecordSeparator()).thenReturn('\n');
+    Mockito.when(sourceConfig.getSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getFailureSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getReadRotatedFilesMode()).thenReturn(true);
+    Mockito.when(sourceConfig.getReadMode()).thenReturn(ReadMode.CHANNEL);
+    Mockito.when(sourceConfig.getReadBufferSize()).thenReturn(64);
+    PipeConfiguration pipeConfig = Mockito.mock(PipeConfiguration.class);
+    Mockito.when(pipeConfig.getSourceConfiguration()).thenReturn(sourceConfig);
+    return pipeConfig;
+  }
+}
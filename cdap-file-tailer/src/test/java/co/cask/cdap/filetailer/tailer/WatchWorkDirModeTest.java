@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.filetailer.tailer;
+
+import co.cask.cdap.filetailer.config.PipeConfiguration;
+import co.cask.cdap.filetailer.config.SourceConfiguration;
+import co.cask.cdap.filetailer.metrics.FileTailerMetricsProcessor;
+import co.cask.cdap.filetailer.queue.FileTailerQueue;
+import co.cask.cdap.filetailer.state.FileTailerStateProcessor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * File Tailer watch work directory mode tests
+ */
+public class WatchWorkDirModeTest {
+  private static final String LOG_FILE_NAME = "test.log";
+  private static final long SLEEP_INTERVAL = 60000;
+  private static final long MAX_LATENCY = 5000;
+  private static final int ENTRY_NUMBER = 5;
+  private static final int QUEUE_SIZE = 100;
+
+  private File workDir;
+
+  @Before
+  public void prepare() throws Exception {
+    TailerLogUtils.createTestDirIfNeed();
+    TailerLogUtils.clearTestDir();
+    workDir = TailerLogUtils.loadConfig().getSourceConfiguration().getWorkDir();
+  }
+
+  @After
+  public void clean() throws IOException {
+    TailerLogUtils.deleteTestDir();
+  }
+
+  @Test(timeout = 30000)
+  public void wakeUpOnChangeTest() throws Exception {
+    String filePath = new File(workDir, LOG_FILE_NAME).getAbsolutePath();
+    TailerLogUtils.writeLineToFile(filePath, "line0");
+
+    FileTailerQueue queue = new FileTailerQueue(QUEUE_SIZE);
+    LogTailer tailer = new LogTailer(getWatchConfig(), queue, Mockito.mock(FileTailerStateProcessor.class),
+                                     Mockito.mock(FileTailerMetricsProcessor.class), null);
+    tailer.startAsync();
+    try {
+      Assert.assertEquals("line0", queue.take().getEventData());
+      for (int i = 1; i <= ENTRY_NUMBER; i++) {
+        //give the tailer time to reach the end of the file and start waiting
+        Thread.sleep(500);
+        long writeTime = System.currentTimeMillis();
+        TailerLogUtils.writeLineToFile(filePath, "line" + i);
+        Assert.assertEquals("line" + i, queue.take().getEventData());
+        Assert.assertTrue(System.currentTimeMillis() - writeTime < MAX_LATENCY);
+      }
+    } finally {
+      tailer.stopAsync();
+    }
+  }
+
+  private PipeConfiguration getWatchConfig() {
+    SourceConfiguration sourceConfig = Mockito.mock(SourceConfiguration.class);
+    Mockito.when(sourceConfig.getWorkDir()).thenReturn(workDir);
+    Mockito.when(sourceConfig.getFileName()).thenReturn(LOG_FILE_NAME);
+    Mockito.when(sourceConfig.getRotationPattern()).thenReturn(LOG_FILE_NAME + "(.*)");
+    Mockito.when(sourceConfig.getCharsetName()).thenReturn("UTF-8");
+    Mockito.when(sourceConfig.getRecordSeparator()).thenReturn('\n');
+    Mockito.when(sourceConfig.getSleepInterval()).thenReturn(SLEEP_INTERVAL);
+    Mockito.when(sourceConfig.getFailureSleepInterval()).thenReturn(100L);
+    Mockito.when(sourceConfig.getReadRotatedFilesMode()).thenReturn(true);
+    Mockito.when(sourceConfig.getWatchWorkDirMode()).thenReturn(true);
+    Mockito.when(sourceConfig.getReadMode()).thenReturn(ReadMode.CHANNEL);
+    Mockito.when(sourceConfig.getReadBufferSize()).thenReturn(4096);
+    Mockito.when(sourceConfig.getMmapWindowSize()).thenReturn(4096);
+    PipeConfiguration pipeConfig = Mockito.mock(PipeConfiguration.class);
+    Mockito.when(pipeConfig.getSourceConfiguration()).thenReturn(sourceConfig);
+    return pipeConfig;
+  }
+}
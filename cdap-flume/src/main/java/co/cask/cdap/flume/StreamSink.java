@@ -18,12 +18,15 @@ package co.cask.cdap.flume;
 
 import co.cask.cdap.client.StreamClient;
 import co.cask.cdap.client.StreamWriter;
+import co.cask.cdap.client.rest.Compression;
 import co.cask.cdap.client.rest.RestStreamClient;
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
 import co.cask.cdap.security.authentication.client.basic.BasicAuthenticationClient;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.flume.Channel;
 import org.apache.flume.ChannelException;
 import org.apache.flume.Context;
@@ -41,6 +44,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 
@@ -57,6 +63,11 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
   private static final String DEFAULT_VERSION = "v3";
   private static final int DEFAULT_PORT = 11015;
   private static final String DEFAULT_NAMESPACE = "default";
+  private static final String DEFAULT_COMPRESSION = "none";
+  private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+  private static final int DEFAULT_BATCH_SIZE = 1;
+  private static final int DEFAULT_MAX_IN_FLIGHT_WRITES = 0;
+  private static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 0;
   private static final String DEFAULT_AUTH_CLIENT = BasicAuthenticationClient.class.getName();
 
   private String host;
@@ -66,6 +77,11 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
   private int writerPoolSize;
   private String version;
   private String namespace;
+  private Compression compression;
+  private int compressionThreshold;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private int maxInFlightWrites;
+  private long maxInFlightBytes;
   private String streamName;
   private StreamWriter writer;
   private StreamClient streamClient;
@@ -88,11 +104,17 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
     version = context.getString("version", DEFAULT_VERSION);
     writerPoolSize = context.getInteger("writerPoolSize", DEFAULT_WRITER_POOL_SIZE);
     namespace = context.getString("namespace", DEFAULT_NAMESPACE);
+    compression = Compression.valueOf(context.getString("compression", DEFAULT_COMPRESSION).toUpperCase());
+    compressionThreshold = context.getInteger("compressionThreshold", DEFAULT_COMPRESSION_THRESHOLD);
+    batchSize = context.getInteger("batchSize", DEFAULT_BATCH_SIZE);
+    maxInFlightWrites = context.getInteger("maxInFlightWrites", DEFAULT_MAX_IN_FLIGHT_WRITES);
+    maxInFlightBytes = context.getLong("maxInFlightBytes", DEFAULT_MAX_IN_FLIGHT_BYTES);
     streamName = context.getString("streamName");
     authClientClassName = context.getString("authClientClass", DEFAULT_AUTH_CLIENT);
     authClientPropertiesPath = context.getString("authClientProperties", "");
     Preconditions.checkState(host != null, "No hostname specified");
     Preconditions.checkState(streamName != null, "No stream name specified");
+    Preconditions.checkState(batchSize > 0, "Batch size must be positive");
   }
 
   @Override
@@ -115,16 +137,22 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
     try {
       tryReopenClientConnection();
       transaction.begin();
-      Event event = channel.take();
-      if (event != null) {
+      List<Event> events = new ArrayList<Event>(batchSize);
+      Event event;
+      while (events.size() < batchSize && (event = channel.take()) != null) {
+        events.add(event);
+      }
+      if (events.isEmpty()) {
+        status = Status.BACKOFF;
+      } else {
         try {
-          writer.write(ByteBuffer.wrap(event.getBody()), event.getHeaders()).get();
-          LOG.trace("Success write to stream: {} ", streamName);
+          writeEvents(events).get();
+          LOG.trace("Success write {} events to stream: {} ", events.size(), streamName);
         } catch (Throwable t) {
           if (t instanceof ExecutionException) {
             t = t.getCause();
           }
-          LOG.error("Error during writing event to stream {}", streamName, t);
+          LOG.error("Error during writing events to stream {}", streamName, t);
           throw new EventDeliveryException("Failed to send events to stream: " + streamName, t);
         }
       }
@@ -149,6 +177,36 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
     return status;
   }
 
+  /**
+   * Starts writing the events to the stream. Consecutive events with the same headers are sent
+   * in a single batch request, and all requests are sent concurrently.
+   *
+   * @param events the events taken from the channel
+   * @return the future that completes when all events are written
+   */
+  private ListenableFuture<List<Void>> writeEvents(List<Event> events) {
+    List<ListenableFuture<Void>> futures = new ArrayList<ListenableFuture<Void>>();
+    int start = 0;
+    while (start < events.size()) {
+      Map<String, String> headers = events.get(start).getHeaders();
+      int end = start + 1;
+      while (end < events.size() && headers.equals(events.get(end).getHeaders())) {
+        end++;
+      }
+      if (end - start == 1) {
+        futures.add(writer.write(ByteBuffer.wrap(events.get(start).getBody()), headers));
+      } else {
+        List<ByteBuffer> bodies = new ArrayList<ByteBuffer>(end - start);
+        for (Event event : events.subList(start, end)) {
+          bodies.add(ByteBuffer.wrap(event.getBody()));
+        }
+        futures.add(writer.writeBatch(bodies, headers));
+      }
+      start = end;
+    }
+    return Futures.allAsList(futures);
+  }
+
   private void tryReopenClientConnection() throws IOException {
     if (writer == null) {
       LOG.debug("Trying to reopen stream writer {} ", streamName);
@@ -173,6 +231,10 @@ public class StreamSink implements Sink, LifecycleAware, Configurable {
       builder.writerPoolSize(writerPoolSize);
       builder.version(version);
       builder.namespace(namespace);
+      builder.compression(compression);
+      builder.compressionThreshold(compressionThreshold);
+      builder.maxInFlightWrites(maxInFlightWrites);
+      builder.maxInFlightBytes(maxInFlightBytes);
       try {
         authClient = (AuthenticationClient) Class.forName(authClientClassName).newInstance();
         authClient.setConnectionInfo(host, port, sslEnabled);
@@ -17,23 +17,39 @@
 import co.cask.cdap.client.StreamWriter;
 import co.cask.cdap.client.rest.RestStreamWriter;
 import co.cask.cdap.flume.StreamSink;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.flume.Channel;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
 import org.apache.flume.EventDeliveryException;
+import org.apache.flume.Sink;
 import org.apache.flume.Transaction;
+import org.apache.flume.event.EventBuilder;
 import org.apache.flume.event.SimpleEvent;
+import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
 import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 /**
  * CDAP Sink Test.
  */
 public class StreamSinkTest {
 
+  private static final int BATCH_SIZE = 5;
+  private static final Map<String, String> TEST_HEADERS = ImmutableMap.of("header", "value");
+
   @Test(expected = EventDeliveryException.class)
   public void eventRollbackWhenWriterFailsTest() throws Exception {
     MockStreamSink sink = new MockStreamSink();
@@ -48,6 +64,62 @@ public class StreamSinkTest {
     sink.process();
   }
 
+  @Test
+  public void emptyChannelBackoffTest() throws Exception {
+    Channel channel = MockStreamSink.getMockChannel(null);
+    MockStreamSink sink = new MockStreamSink(channel);
+    StreamWriter writer = getPassMockWriter();
+    sink.setWriter(writer);
+    Assert.assertEquals(Sink.Status.BACKOFF, sink.process());
+    Mockito.verifyZeroInteractions(writer);
+    Mockito.verify(channel.getTransaction()).commit();
+  }
+
+  @Test
+  public void batchProcessingTest() throws Exception {
+    Event first = EventBuilder.withBody("first", Charsets.UTF_8, TEST_HEADERS);
+    Event second = EventBuilder.withBody("second", Charsets.UTF_8, TEST_HEADERS);
+    Event third = EventBuilder.withBody("third", Charsets.UTF_8);
+    Channel channel = MockStreamSink.getMockChannel(first, second, third, null);
+    MockStreamSink sink = new MockStreamSink(channel);
+    sink.configure(getBatchContext());
+    StreamWriter writer = getPassMockWriter();
+    sink.setWriter(writer);
+
+    Assert.assertEquals(Sink.Status.READY, sink.process());
+
+    ArgumentCaptor<List> batchCaptor = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(writer).writeBatch(batchCaptor.capture(), Matchers.eq(TEST_HEADERS));
+    Assert.assertEquals(Arrays.asList(ByteBuffer.wrap(first.getBody()), ByteBuffer.wrap(second.getBody())),
+                        batchCaptor.getValue());
+    Mockito.verify(writer).write(ByteBuffer.wrap(third.getBody()), third.getHeaders());
+    Mockito.verify(channel.getTransaction()).commit();
+  }
+
+  @Test
+  public void batchRollbackWhenWriteFailsTest() throws Exception {
+    Event event = EventBuilder.withBody("event", Charsets.UTF_8, TEST_HEADERS);
+    Channel channel = MockStreamSink.getMockChannel(event, event, event, null);
+    MockStreamSink sink = new MockStreamSink(channel);
+    sink.configure(getBatchContext());
+    StreamWriter writer = getPassMockWriter();
+    Mockito.doReturn(Futures.immediateFailedFuture(new IOException())).when(writer).writeBatch(
+      Matchers.anyListOf(ByteBuffer.class), Matchers.anyMapOf(String.class, String.class));
+    sink.setWriter(writer);
+    try {
+      sink.process();
+      Assert.fail("Expected EventDeliveryException");
+    } catch (EventDeliveryException e) {
+      Mockito.verify(channel.getTransaction()).rollback();
+      Mockito.verify(channel.getTransaction(), Mockito.never()).commit();
+    }
+  }
+
+  private Context getBatchContext() {
+    return new Context(ImmutableMap.of("host", "localhost", "streamName", "stream",
+                                       "batchSize", String.valueOf(BATCH_SIZE)));
+  }
+
   public StreamWriter getFailMockWriter() {
     RestStreamWriter mockWriter = Mockito.mock(RestStreamWriter.class);
     Mockito.doThrow(new RuntimeException()).when(mockWriter).write(
@@ -59,15 +131,27 @@ public class StreamSinkTest {
     RestStreamWriter mockWriter = Mockito.mock(RestStreamWriter.class);
     Mockito.doReturn(Futures.immediateFuture((Void) null)).when(mockWriter).write(
       org.mockito.Matchers.any(ByteBuffer.class), org.mockito.Matchers.anyMap());
+    Mockito.doReturn(Futures.immediateFuture((Void) null)).when(mockWriter).writeBatch(
+      Matchers.anyListOf(ByteBuffer.class), Matchers.anyMapOf(String.class, String.class));
     return mockWriter;
   }
 
 }
 
 class MockStreamSink extends StreamSink {
+  private final Channel channel;
+
+  MockStreamSink() {
+    this(getMockChannel(new SimpleEvent()));
+  }
+
+  MockStreamSink(Channel channel) {
+    this.channel = channel;
+  }
+
   @Override
   public synchronized Channel getChannel() {
-    return getMockChannel();
+    return channel;
   }
 
   public void setWriter(StreamWriter mockWriter) throws NoSuchFieldException, IllegalAccessException {
@@ -77,7 +161,7 @@ class MockStreamSink extends StreamSink {
     writerField.set(this, mockWriter);
   }
 
-  private Channel getMockChannel() {
+  static Channel getMockChannel(Event event, Event... events) {
     Channel channel = Mockito.mock(Channel.class);
     Transaction transaction = Mockito.mock(Transaction.class);
 
@@ -86,8 +170,7 @@ class MockStreamSink extends StreamSink {
     Mockito.doNothing().when(transaction).close();
     Mockito.doNothing().when(transaction).rollback();
     Mockito.when(channel.getTransaction()).thenReturn(transaction);
-    Mockito.when(channel.take()).thenReturn(new SimpleEvent());
+    Mockito.when(channel.take()).thenReturn(event, events);
     return channel;
   }
 }
-
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -74,6 +75,56 @@ public interface StreamWriter extends Closeable {
    */
   ListenableFuture<Void> write(ByteBuffer buffer, Map<String, String> headers);
 
+  /**
+   * Ingest multiple Stream events in one request, with content of each {@link ByteBuffer} as a separate event body.
+   *
+   * @param buffers Contains the content for the Stream events bodies. All remaining bytes of every {@link ByteBuffer}
+   *                should be used as the body of one event. After this method returns and on the completion of the
+   *                resulting {@link ListenableFuture}, the buffers content as well as properties should be unchanged.
+   * @return A future that will be completed when the ingestion of all events is completed. The future will fail if
+   * the ingestion failed. Cancelling the returning future has no effect.
+   */
+  ListenableFuture<Void> writeBatch(List<ByteBuffer> buffers);
+
+  /**
+   * Ingest multiple Stream events in one request, with the same set of headers for every event and content of each
+   * {@link ByteBuffer} as a separate event body.
+   *
+   * @param buffers Contains the content for the Stream events bodies. All remaining bytes of every {@link ByteBuffer}
+   *                should be used as the body of one event. After this method returns and on the completion of the
+   *                resulting {@link ListenableFuture}, the buffers content as well as properties should be unchanged.
+   * @param headers Set of headers for every Stream event
+   * @return A future that will be completed when the ingestion of all events is completed. The future will fail if
+   * the ingestion failed. Cancelling the returning future has no effect.
+   */
+  ListenableFuture<Void> writeBatch(List<ByteBuffer> buffers, Map<String, String> headers);
+
+  /**
+   * Ingest the lines of a region of a file as Stream events in one request, with each line as a separate event
+   * body. The request body is read from the file while it is sent, so the region is never loaded in memory.
+   *
+   * @param file     The file containing the events, which must not change until the returned future completes
+   * @param position The offset in bytes of the first event in the file
+   * @param length   The length in bytes of the region, which should end with a line separator or at the end of file
+   * @return A future that will be completed when the ingestion of all events is completed. The future will fail if
+   * the ingestion failed. Cancelling the returning future has no effect.
+   */
+  ListenableFuture<Void> writeBatch(File file, long position, long length);
+
+  /**
+   * Ingest the lines of a region of a file as Stream events in one request, with the same set of headers for every
+   * event and each line as a separate event body. The request body is read from the file while it is sent, so the
+   * region is never loaded in memory.
+   *
+   * @param file     The file containing the events, which must not change until the returned future completes
+   * @param position The offset in bytes of the first event in the file
+   * @param length   The length in bytes of the region, which should end with a line separator or at the end of file
+   * @param headers  Set of headers for every Stream event
+   * @return A future that will be completed when the ingestion of all events is completed. The future will fail if
+   * the ingestion failed. Cancelling the returning future has no effect.
+   */
+  ListenableFuture<Void> writeBatch(File file, long position, long length, Map<String, String> headers);
+
   /**
    * Closes a {@link org.apache.http.impl.client.CloseableHttpClient} instance and a
    * {@link com.google.common.util.concurrent.ListeningExecutorService} Executor thread pool
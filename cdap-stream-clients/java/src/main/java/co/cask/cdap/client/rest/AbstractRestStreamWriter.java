@@ -0,0 +1,402 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import co.cask.cdap.client.StreamWriter;
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base of the Stream writers using REST Api, which builds the requests writing the events;
+ * subclasses execute them. The writes in progress may be limited in number and size: once the limit is
+ * reached, a write either waits for a previous one to complete, or fails at once.
+ */
+public abstract class AbstractRestStreamWriter implements StreamWriter {
+  private static final byte BATCH_EVENT_SEPARATOR = '\n';
+  private static final ContentType BATCH_CONTENT_TYPE = ContentType.create("text/plain");
+
+  private final String streamName;
+  private final Compression compression;
+  private final int compressionThreshold;
+  private final Object inFlightLock = new Object();
+  private volatile int maxInFlightWrites;
+  private volatile long maxInFlightBytes;
+  private volatile boolean failFastWhenFull;
+  private int inFlightWrites;
+  private long inFlightBytes;
+
+  protected AbstractRestStreamWriter(String streamName, Compression compression, int compressionThreshold) {
+    this.streamName = streamName;
+    this.compression = compression;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  /**
+   * Limits the writes in progress, that is submitted and not completed yet. To be set before the first write.
+   * A write of more than maxInFlightBytes is only started when no other write is in progress.
+   * Note that a write waiting for room must not be invoked from the completion of another write.
+   *
+   * @param maxInFlightWrites the maximum number of writes in progress; 0 for no limit
+   * @param maxInFlightBytes the maximum total size in bytes of the events of the writes in progress;
+   *                         0 for no limit
+   * @param failFastWhenFull {@code true} to fail a write with {@link RejectedExecutionException} when it
+   *                         exceeds the limit, {@code false} to wait until it fits
+   */
+  public void setInFlightLimits(int maxInFlightWrites, long maxInFlightBytes, boolean failFastWhenFull) {
+    this.maxInFlightWrites = maxInFlightWrites;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.failFastWhenFull = failFastWhenFull;
+  }
+
+  /**
+   * @return the number of writes submitted and not completed yet
+   */
+  public int getInFlightWrites() {
+    synchronized (inFlightLock) {
+      return inFlightWrites;
+    }
+  }
+
+  /**
+   * @return the total size in bytes of the events, before compression, of the writes submitted and not
+   *         completed yet
+   */
+  public long getInFlightBytes() {
+    synchronized (inFlightLock) {
+      return inFlightBytes;
+    }
+  }
+
+  /**
+   * Resolves the path of a request against the base URL of Rest Service API.
+   *
+   * @param relativePath the path relative to the base URL
+   * @return the URI of the request
+   */
+  protected abstract URI resolve(String relativePath);
+
+  /**
+   * @return the version of the API
+   */
+  protected abstract String getVersion();
+
+  /**
+   * Executes the request writing events.
+   *
+   * @param request the request, without entity
+   * @param entity the request body, to be compressed with {@link #compress(HttpEntity)}
+   * @return the future completed once the response is received, failed if the events were not written
+   */
+  protected abstract ListenableFuture<Void> execute(HttpPost request, HttpEntity entity);
+
+  @Override
+  public ListenableFuture<Void> write(String str, Charset charset) {
+    return write(str, charset, ImmutableMap.<String, String>of());
+  }
+
+  @Override
+  public ListenableFuture<Void> write(String str, Charset charset, Map<String, String> headers) throws
+    IllegalArgumentException {
+    Preconditions.checkNotNull(str, "Input string parameter is null.");
+    return write(new ByteArrayEntity(charset != null ? str.getBytes(charset) : str.getBytes()), headers);
+  }
+
+  @Override
+  public ListenableFuture<Void> write(ByteBuffer buffer) {
+    return write(buffer, ImmutableMap.<String, String>of());
+  }
+
+  @Override
+  public ListenableFuture<Void> write(ByteBuffer buffer, Map<String, String> headers) throws IllegalArgumentException {
+    Preconditions.checkNotNull(buffer, "ByteBuffer parameter is null.");
+    HttpEntity content;
+    if (buffer.hasArray()) {
+      content = new ByteArrayEntity(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      content = new ByteArrayEntity(bytes);
+    }
+    return write(content, headers);
+  }
+
+  @Override
+  public ListenableFuture<Void> writeBatch(List<ByteBuffer> buffers) {
+    return writeBatch(buffers, ImmutableMap.<String, String>of());
+  }
+
+  @Override
+  public ListenableFuture<Void> writeBatch(List<ByteBuffer> buffers, Map<String, String> headers) {
+    Preconditions.checkNotNull(buffers, "ByteBuffer list parameter is null.");
+    if (buffers.isEmpty()) {
+      return Futures.immediateFuture(null);
+    }
+    //the v2 API has no batch endpoint, and the text batch format cannot carry empty or multi-line events
+    if ("v2".equals(getVersion()) || !isBatchable(buffers)) {
+      List<ListenableFuture<Void>> futures = new ArrayList<ListenableFuture<Void>>(buffers.size());
+      for (ByteBuffer buffer : buffers) {
+        futures.add(write(buffer, headers));
+      }
+      return Futures.transform(Futures.allAsList(futures), Functions.<Void>constant(null));
+    }
+    return write(String.format("/streams/%s/batch", streamName), toBatchEntity(buffers), headers);
+  }
+
+  @Override
+  public ListenableFuture<Void> writeBatch(File file, long position, long length) {
+    return writeBatch(file, position, length, ImmutableMap.<String, String>of());
+  }
+
+  @Override
+  public ListenableFuture<Void> writeBatch(File file, long position, long length, Map<String, String> headers) {
+    Preconditions.checkNotNull(file, "File parameter is null.");
+    Preconditions.checkArgument(position >= 0 && length >= 0, "Invalid file region: position %s, length %s.",
+                                position, length);
+    if (length == 0) {
+      return Futures.immediateFuture(null);
+    }
+    if ("v2".equals(getVersion())) {
+      try {
+        return writeBatch(readLines(file, position, length), headers);
+      } catch (IOException e) {
+        return Futures.immediateFailedFuture(e);
+      }
+    }
+    return write(String.format("/streams/%s/batch", streamName),
+                 new FileRegionEntity(file, position, length, BATCH_CONTENT_TYPE), headers);
+  }
+
+  private ListenableFuture<Void> write(HttpEntity entity, Map<String, String> headers) {
+    return write(String.format("/streams/%s", streamName), entity, headers);
+  }
+
+  private ListenableFuture<Void> write(String path, HttpEntity entity, Map<String, String> headers) {
+    HttpPost postRequest = new HttpPost(resolve(path));
+
+    for (Map.Entry<String, String> entry : headers.entrySet()) {
+      postRequest.setHeader(streamName + "." + entry.getKey(), entry.getValue());
+    }
+
+    final long bytes = entity.getContentLength();
+    try {
+      if (!acquireInFlight(bytes)) {
+        return Futures.immediateFailedFuture(new RejectedExecutionException(
+          String.format("Too many writes in progress to the Stream %s: %d writes of %d bytes",
+                        streamName, getInFlightWrites(), getInFlightBytes())));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Futures.immediateFailedFuture(e);
+    }
+    ListenableFuture<Void> future;
+    try {
+      future = execute(postRequest, entity);
+    } catch (RuntimeException e) {
+      releaseInFlight(bytes);
+      throw e;
+    }
+    // the write leaves the in-flight window before its completion is visible to the caller
+    final SettableFuture<Void> result = SettableFuture.create();
+    Futures.addCallback(future, new FutureCallback<Void>() {
+      @Override
+      public void onSuccess(Void value) {
+        releaseInFlight(bytes);
+        result.set(value);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        releaseInFlight(bytes);
+        if (t instanceof CancellationException) {
+          result.cancel(false);
+        } else {
+          result.setException(t);
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Accounts a write in progress, waiting for room within the in-flight limits, unless it fails fast.
+   *
+   * @param bytes the size of the events of the write
+   * @return {@code true} if the write is accounted, {@code false} if it exceeds the limits and fails fast
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private boolean acquireInFlight(long bytes) throws InterruptedException {
+    synchronized (inFlightLock) {
+      while (isInFlightFull(bytes)) {
+        if (failFastWhenFull) {
+          return false;
+        }
+        inFlightLock.wait();
+      }
+      inFlightWrites++;
+      inFlightBytes += bytes;
+      return true;
+    }
+  }
+
+  private boolean isInFlightFull(long bytes) {
+    if (inFlightWrites == 0) {
+      return false;
+    }
+    return (maxInFlightWrites > 0 && inFlightWrites >= maxInFlightWrites)
+      || (maxInFlightBytes > 0 && inFlightBytes + bytes > maxInFlightBytes);
+  }
+
+  private void releaseInFlight(long bytes) {
+    synchronized (inFlightLock) {
+      inFlightWrites--;
+      inFlightBytes -= bytes;
+      inFlightLock.notifyAll();
+    }
+  }
+
+  /**
+   * Compresses the request body, if the compression is enabled and the body is not smaller than the threshold.
+   *
+   * @param entity the request body
+   * @return the compressed request body, or the given one if it is not compressed
+   * @throws IOException if the body cannot be compressed
+   */
+  protected HttpEntity compress(HttpEntity entity) throws IOException {
+    if (compression == Compression.NONE || entity.getContentLength() < compressionThreshold) {
+      return entity;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) entity.getContentLength() / 4 + 32);
+    OutputStream out = new GZIPOutputStream(bytes);
+    try {
+      entity.writeTo(out);
+    } finally {
+      out.close();
+    }
+    ByteArrayEntity compressed = new ByteArrayEntity(bytes.toByteArray());
+    compressed.setContentType(entity.getContentType());
+    compressed.setContentEncoding(compression.getContentEncoding());
+    return compressed;
+  }
+
+  /**
+   * Checks whether all events can be packed into one batch request body.
+   *
+   * @param buffers the events
+   * @return {@code true} if no event is empty or contains the batch event separator
+   */
+  private static boolean isBatchable(List<ByteBuffer> buffers) {
+    for (ByteBuffer buffer : buffers) {
+      if (!buffer.hasRemaining()) {
+        return false;
+      }
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        if (buffer.get(i) == BATCH_EVENT_SEPARATOR) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Packs events into a newline separated batch request body.
+   * The buffers content as well as properties stay unchanged.
+   *
+   * @param buffers the events
+   * @return the request entity
+   */
+  private static HttpEntity toBatchEntity(List<ByteBuffer> buffers) {
+    int size = buffers.size() - 1;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    byte[] body = new byte[size];
+    int offset = 0;
+    for (ByteBuffer buffer : buffers) {
+      int length = buffer.remaining();
+      buffer.duplicate().get(body, offset, length);
+      offset += length;
+      if (offset < size) {
+        body[offset++] = BATCH_EVENT_SEPARATOR;
+      }
+    }
+    return new ByteArrayEntity(body, BATCH_CONTENT_TYPE);
+  }
+
+  /**
+   * Reads the non-empty lines of a region of a file, for the API versions without batch endpoint.
+   *
+   * @param file the file
+   * @param position the offset of the region
+   * @param length the length of the region
+   * @return the lines, without line separator
+   * @throws IOException if the file cannot be read
+   */
+  private static List<ByteBuffer> readLines(File file, long position, long length) throws IOException {
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException(String.format("File region of %d bytes is too large to be read in memory", length));
+    }
+    byte[] region = new byte[(int) length];
+    RandomAccessFile in = new RandomAccessFile(file, "r");
+    try {
+      in.seek(position);
+      in.readFully(region);
+    } finally {
+      in.close();
+    }
+    List<ByteBuffer> lines = new ArrayList<ByteBuffer>();
+    int start = 0;
+    for (int i = 0; i <= region.length; i++) {
+      if (i == region.length || region[i] == BATCH_EVENT_SEPARATOR) {
+        if (i > start) {
+          lines.add(ByteBuffer.wrap(region, start, i - start));
+        }
+        start = i + 1;
+      }
+    }
+    return lines;
+  }
+
+  public String getStreamName() {
+    return streamName;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides way to execute http requests without blocking with Apache HttpAsyncClient
+ * {@link org.apache.http.nio.client.HttpAsyncClient}. The requests are sent and their responses received by the
+ * I/O dispatcher threads of the client, over keep-alive connections reused by the subsequent requests.
+ * A client may be shared: {@link #retain()} adds a reference, and the HttpAsyncClient is closed once every
+ * reference is released by {@link #close()}.
+ */
+public class AsyncRestClient {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncRestClient.class);
+
+  private final RestClientConnectionConfig config;
+  private final URI baseUrl;
+  private final String basePath;
+  private final CloseableHttpAsyncClient httpClient;
+  private final ScheduledFuture<?> idleConnectionEviction;
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  /**
+   * Creates a client executing the requests with the given HttpAsyncClient, which is started by this constructor
+   * and closed together with this client.
+   *
+   * @param config the configuration of the client
+   * @param httpClient the HttpAsyncClient, not started yet
+   */
+  public AsyncRestClient(RestClientConnectionConfig config, CloseableHttpAsyncClient httpClient) {
+    this(config, httpClient, null);
+  }
+
+  /**
+   * Creates a client with long-lived connections.
+   *
+   * @param config the configuration of the client
+   * @param connectionManager the connection pool, with its I/O reactor, shut down when the client is closed
+   * @param keepAliveMs the time a connection is kept alive, when the server does not tell it; 0 for no limit
+   * @param idleConnectionTimeoutMs the time after which an idle connection is closed; 0 for no limit
+   */
+  public AsyncRestClient(RestClientConnectionConfig config, final NHttpClientConnectionManager connectionManager,
+                         long keepAliveMs, final long idleConnectionTimeoutMs) {
+    this(config, HttpAsyncClients.custom().setConnectionManager(connectionManager)
+      .setKeepAliveStrategy(RestUtil.getKeepAliveStrategy(keepAliveMs)).build(),
+         idleConnectionTimeoutMs <= 0 ? null : IdleConnectionEvictor.schedule(new Runnable() {
+           @Override
+           public void run() {
+             connectionManager.closeExpiredConnections();
+             connectionManager.closeIdleConnections(idleConnectionTimeoutMs, TimeUnit.MILLISECONDS);
+           }
+         }, idleConnectionTimeoutMs));
+  }
+
+  private AsyncRestClient(RestClientConnectionConfig config, CloseableHttpAsyncClient httpClient,
+                          ScheduledFuture<?> idleConnectionEviction) {
+    this.config = config;
+    this.baseUrl = RestClient.getBaseUrl(config);
+    this.basePath = RestClient.getBasePath(config);
+    this.httpClient = httpClient;
+    this.idleConnectionEviction = idleConnectionEviction;
+    httpClient.start();
+  }
+
+  /**
+   * Method for execute HttpRequest with authorized headers, if need. Returns without waiting for the response.
+   *
+   * @param request {@link HttpRequestBase} initiated http request with entity, headers, request uri and all another
+   *                required properties for successfully request
+   * @param callback the callback notified by an I/O dispatcher thread once the whole response is received,
+   *                 or the request failed
+   * @return the future of the response
+   * @throws IOException if the access token cannot be obtained
+   */
+  public Future<HttpResponse> execute(HttpRequestBase request, FutureCallback<HttpResponse> callback)
+    throws IOException {
+    RestClient.setAuthHeaders(request, config);
+    LOG.debug("Execute Http Request: {}", request);
+    return httpClient.execute(request, callback);
+  }
+
+  /**
+   * Adds a reference to this client, to be released with {@link #close()}.
+   *
+   * @return this client
+   */
+  AsyncRestClient retain() {
+    references.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Method for releasing unused resources, once every reference to this client is released.
+   * The requests still in progress then fail.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  public void close() throws IOException {
+    if (references.decrementAndGet() != 0) {
+      return;
+    }
+    if (idleConnectionEviction != null) {
+      idleConnectionEviction.cancel(false);
+    }
+    httpClient.close();
+  }
+
+  /**
+   * @return the base URL of Rest Service API
+   */
+  public URI resolve(String relativePath) {
+    return baseUrl.resolve(basePath + relativePath);
+  }
+
+  /**
+   * @return the version of the API
+   */
+  public String getVersion() {
+    return config.getVersion();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stream writer implementation used REST Api for write Streams to processing server without blocking:
+ * the requests are sent by the few I/O dispatcher threads of an {@link AsyncRestClient}, so the number of
+ * writes in progress is not bounded by a number of writer threads.
+ * When the compression is enabled, the request body is compressed before the write returns, by the thread
+ * invoking the write, so a write of a large body takes the time of its compression; the I/O dispatcher
+ * threads only send the compressed body.
+ */
+public class AsyncRestStreamWriter extends AbstractRestStreamWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncRestStreamWriter.class);
+
+  private final AsyncRestClient restClient;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  public AsyncRestStreamWriter(AsyncRestClient restClient, String streamName) {
+    this(restClient, streamName, Compression.NONE, 0);
+  }
+
+  public AsyncRestStreamWriter(AsyncRestClient restClient, String streamName,
+                               Compression compression, int compressionThreshold) {
+    super(streamName, compression, compressionThreshold);
+    this.restClient = restClient;
+  }
+
+  @Override
+  protected URI resolve(String relativePath) {
+    return restClient.resolve(relativePath);
+  }
+
+  @Override
+  protected String getVersion() {
+    return restClient.getVersion();
+  }
+
+  @Override
+  protected ListenableFuture<Void> execute(HttpPost postRequest, HttpEntity entity) {
+    final SettableFuture<Void> result = SettableFuture.create();
+    try {
+      postRequest.setEntity(compress(entity));
+      restClient.execute(postRequest, new FutureCallback<HttpResponse>() {
+        @Override
+        public void completed(HttpResponse response) {
+          LOG.debug("Write stream execute with response: {}", response);
+          try {
+            RestClient.responseCodeAnalysis(response);
+            result.set(null);
+          } catch (RuntimeException e) {
+            result.setException(e);
+          }
+        }
+
+        @Override
+        public void failed(Exception e) {
+          result.setException(e);
+        }
+
+        @Override
+        public void cancelled() {
+          result.cancel(false);
+        }
+      });
+    } catch (IOException e) {
+      result.setException(e);
+    }
+    return result;
+  }
+
+  /**
+   * Releases the client of this writer, which is closed once no Stream client or writer uses it any more.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed.compareAndSet(false, true)) {
+      restClient.close();
+    }
+  }
+}
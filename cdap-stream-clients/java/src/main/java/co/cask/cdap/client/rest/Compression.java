@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.client.rest;
+
+/**
+ * Compression of the Stream write request bodies.
+ */
+public enum Compression {
+  /**
+   * Request bodies are sent as is.
+   */
+  NONE(null),
+  /**
+   * Request bodies are compressed with gzip and sent with the {@code Content-Encoding: gzip} header.
+   */
+  GZIP("gzip");
+
+  private final String contentEncoding;
+
+  Compression(String contentEncoding) {
+    this.contentEncoding = contentEncoding;
+  }
+
+  /**
+   * Retrieves the value of the {@code Content-Encoding} header of the compressed request bodies.
+   *
+   * @return the content encoding; <code>null</code> if the request bodies are not compressed
+   */
+  public String getContentEncoding() {
+    return contentEncoding;
+  }
+}
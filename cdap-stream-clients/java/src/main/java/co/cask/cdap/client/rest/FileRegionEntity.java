@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import com.google.common.io.ByteStreams;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Request body made of a region of a file, transferred from the file channel to the connection
+ * as the request is sent. The entity is repeatable, as long as the file does not change.
+ */
+final class FileRegionEntity extends AbstractHttpEntity {
+
+  private final File file;
+  private final long position;
+  private final long length;
+
+  FileRegionEntity(File file, long position, long length, ContentType contentType) {
+    this.file = file;
+    this.position = position;
+    this.length = length;
+    setContentType(contentType.toString());
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return length;
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      in.getChannel().position(position);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    return ByteStreams.limit(in, length);
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      WritableByteChannel target = Channels.newChannel(out);
+      long current = position;
+      long end = position + length;
+      while (current < end) {
+        long transferred = channel.transferTo(current, end - current, target);
+        if (transferred <= 0) {
+          throw new EOFException(String.format("File %s ends before the end of the region at %d", file, end));
+        }
+        current += transferred;
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes the expired and idle connections of the connection pools of all clients, with a single daemon thread.
+ */
+final class IdleConnectionEvictor {
+
+  private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("stream-client-idle-connection-evictor").setDaemon(true).build());
+
+  private IdleConnectionEvictor() { }
+
+  /**
+   * Schedules the periodic eviction of the connections of a pool.
+   *
+   * @param eviction closes the expired and idle connections of the pool
+   * @param idleConnectionTimeoutMs the time after which an idle connection is closed
+   * @return the future of the eviction, to be cancelled once the pool is shut down
+   */
+  static ScheduledFuture<?> schedule(Runnable eviction, long idleConnectionTimeoutMs) {
+    long period = Math.max(1, idleConnectionTimeoutMs / 2);
+    return EXECUTOR.scheduleWithFixedDelay(eviction, period, period, TimeUnit.MILLISECONDS);
+  }
+}
@@ -39,9 +39,14 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides way to execute http requests with Apache HttpClient {@link org.apache.http.client.HttpClient}.
+ * A client may be shared: {@link #retain()} adds a reference, and the HttpClient is closed once every reference
+ * is released by {@link #close()}.
  */
 public class RestClient {
 
@@ -56,34 +61,82 @@ public class RestClient {
   private final URI baseUrl;
   private final String basePath;
   private final CloseableHttpClient httpClient;
+  private final ScheduledFuture<?> idleConnectionEviction;
+  private final AtomicInteger references = new AtomicInteger(1);
 
   public RestClient(RestClientConnectionConfig config, HttpClientConnectionManager connectionManager) {
+    this(config, connectionManager, 0, 0);
+  }
+
+  /**
+   * Creates a client with long-lived connections.
+   *
+   * @param config the configuration of the client
+   * @param connectionManager the connection pool, shut down when the client is closed
+   * @param keepAliveMs the time a connection is kept alive, when the server does not tell it; 0 for no limit
+   * @param idleConnectionTimeoutMs the time after which an idle connection is closed; 0 for no limit
+   */
+  public RestClient(RestClientConnectionConfig config, final HttpClientConnectionManager connectionManager,
+                    long keepAliveMs, final long idleConnectionTimeoutMs) {
     this.config = config;
-    this.baseUrl = URI.create(String.format("%s://%s:%d", config.isSSL() ? HTTPS_PROTOCOL : HTTP_PROTOCOL,
-                        config.getHost(), config.getPort()));
-    this.basePath =
-      "v2".equals(config.getVersion())
-        ? String.format("/%s", config.getVersion())
-        : String.format("/%s/namespaces/%s", config.getVersion(), config.getNamespace());
-
-    this.httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+    this.baseUrl = getBaseUrl(config);
+    this.basePath = getBasePath(config);
+
+    this.httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+      .setKeepAliveStrategy(RestUtil.getKeepAliveStrategy(keepAliveMs)).build();
+    this.idleConnectionEviction = idleConnectionTimeoutMs <= 0 ? null : IdleConnectionEvictor.schedule(
+      new Runnable() {
+        @Override
+        public void run() {
+          connectionManager.closeExpiredConnections();
+          connectionManager.closeIdleConnections(idleConnectionTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+      }, idleConnectionTimeoutMs);
   }
 
   /**
-   * Method for execute HttpRequest with authorized headers, if need.
+   * @return the URL of the gateway server
+   */
+  static URI getBaseUrl(RestClientConnectionConfig config) {
+    return URI.create(String.format("%s://%s:%d", config.isSSL() ? HTTPS_PROTOCOL : HTTP_PROTOCOL,
+                                    config.getHost(), config.getPort()));
+  }
+
+  /**
+   * @return the path of the Rest Service API of the configured version and namespace
+   */
+  static String getBasePath(RestClientConnectionConfig config) {
+    return "v2".equals(config.getVersion())
+      ? String.format("/%s", config.getVersion())
+      : String.format("/%s/namespaces/%s", config.getVersion(), config.getNamespace());
+  }
+
+  /**
+   * Sets the authorization and API key headers of the request, if need.
    *
-   * @param request {@link HttpRequestBase} initiated http request with entity, headers, request uri and all another
-   *                required properties for successfully request
-   * @return {@link CloseableHttpResponse} as a result of http request execution.
-   * @throws IOException in case of a problem or the connection was aborted
+   * @param request the http request
+   * @param config the configuration of the client
+   * @throws IOException if the access token cannot be obtained
    */
-  public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+  static void setAuthHeaders(HttpRequestBase request, RestClientConnectionConfig config) throws IOException {
     if (config.isAuthEnabled()) {
       request.setHeader(HTTP_HEADER_AUTHORIZATION, config.getAuthTokenType() + " " + config.getAuthToken());
     }
     if (StringUtils.isNotEmpty(config.getAPIKey())) {
       request.setHeader(CONTINUUITY_API_KEY_HEADER_NAME, config.getAPIKey());
     }
+  }
+
+  /**
+   * Method for execute HttpRequest with authorized headers, if need.
+   *
+   * @param request {@link HttpRequestBase} initiated http request with entity, headers, request uri and all another
+   *                required properties for successfully request
+   * @return {@link CloseableHttpResponse} as a result of http request execution.
+   * @throws IOException in case of a problem or the connection was aborted
+   */
+  public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+    setAuthHeaders(request, config);
     LOG.debug("Execute Http Request: {}", request);
     return httpClient.execute(request);
   }
@@ -161,11 +214,27 @@ public class RestClient {
   }
 
   /**
-   * Method for releasing unused resources.
+   * Adds a reference to this client, to be released with {@link #close()}.
+   *
+   * @return this client
+   */
+  RestClient retain() {
+    references.incrementAndGet();
+    return this;
+  }
+
+  /**
+   * Method for releasing unused resources, once every reference to this client is released.
    *
    * @throws IOException if an I/O error occurs
    */
   public void close() throws IOException {
+    if (references.decrementAndGet() != 0) {
+      return;
+    }
+    if (idleConnectionEviction != null) {
+      idleConnectionEviction.cancel(false);
+    }
     httpClient.close();
   }
 
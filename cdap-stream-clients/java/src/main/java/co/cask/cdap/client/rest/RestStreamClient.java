@@ -20,6 +20,8 @@ import co.cask.cdap.client.StreamClient;
 import co.cask.cdap.client.StreamWriter;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -28,19 +30,30 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.ws.rs.core.MediaType;
 
 /**
- * Stream client implementation used REST Api for stream management.
+ * Stream client implementation used REST Api for stream management. The client and all its writers share
+ * a pool of long-lived connections, which is shut down once the client and all its writers are closed.
  */
 public class RestStreamClient implements StreamClient {
   private static final Logger LOG = LoggerFactory.getLogger(RestStreamClient.class);
@@ -49,20 +62,56 @@ public class RestStreamClient implements StreamClient {
   private static final String DEFAULT_NAMESPACE = Constants.DEFAULT_NAMESPACE;
   private static final String TTL_ATTRIBUTE_NAME = "ttl";
   private static final int DEFAULT_WRITER_POOL_SIZE = 10;
+  private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+  private static final int DEFAULT_IO_THREADS = 2;
+  private static final long DEFAULT_KEEP_ALIVE_MS = 60000;
+  private static final long DEFAULT_IDLE_CONNECTION_TIMEOUT_MS = 30000;
+  private static final long DEFAULT_STREAM_CHECK_CACHE_MS = 300000;
   private static final Gson GSON = new Gson();
 
   private final RestClientConnectionConfig config;
   private final int writerPoolSize;
+  private final ExecutorService writerExecutor;
+  private final Compression compression;
+  private final int compressionThreshold;
+  private final boolean asyncWriter;
+  private final int ioThreads;
+  private final int maxInFlightWrites;
+  private final long maxInFlightBytes;
+  private final boolean failFastWhenInFlightFull;
+  private final int maxConnectionsPerRoute;
+  private final int maxConnections;
+  private final long keepAliveMs;
+  private final long idleConnectionTimeoutMs;
+  private final Cache<String, Boolean> existingStreams;
   private final RestClient restClient;
+  private final AtomicBoolean closed = new AtomicBoolean();
   private Registry<ConnectionSocketFactory> connectionRegistry;
+  private SchemeIOSessionStrategy sslStrategy;
+  private AsyncRestClient asyncRestClient;
 
   private RestStreamClient(Builder builder) {
     writerPoolSize = builder.writerPoolSize;
+    writerExecutor = builder.writerExecutor;
+    compression = builder.compression;
+    compressionThreshold = builder.compressionThreshold;
+    asyncWriter = builder.asyncWriter;
+    ioThreads = builder.ioThreads;
+    maxInFlightWrites = builder.maxInFlightWrites;
+    maxInFlightBytes = builder.maxInFlightBytes;
+    failFastWhenInFlightFull = builder.failFastWhenInFlightFull;
+    maxConnectionsPerRoute = builder.maxConnectionsPerRoute > 0 ? builder.maxConnectionsPerRoute : writerPoolSize;
+    maxConnections = builder.maxConnections > 0 ? builder.maxConnections : maxConnectionsPerRoute;
+    keepAliveMs = builder.keepAliveMs;
+    idleConnectionTimeoutMs = builder.idleConnectionTimeoutMs;
+    existingStreams = CacheBuilder.newBuilder()
+      .expireAfterWrite(builder.streamCheckCacheMs, TimeUnit.MILLISECONDS).<String, Boolean>build();
     config = new RestClientConnectionConfig(builder.host, builder.port, builder.authClient, builder.apiKey,
                                             builder.ssl, builder.version, builder.namespace);
     if (!builder.verifySSLCert) {
       try {
         connectionRegistry = RestUtil.getRegistryWithDisabledCertCheck();
+        sslStrategy = RestUtil.getSSLStrategyWithDisabledCertCheck();
       } catch (KeyManagementException e) {
         LOG.error("Failed to init SSL context: {}", e);
       } catch (NoSuchAlgorithmException e) {
@@ -70,7 +119,7 @@ public class RestStreamClient implements StreamClient {
       }
     }
 
-    restClient = new RestClient(config, createConnectionManager());
+    restClient = new RestClient(config, createConnectionManager(), keepAliveMs, idleConnectionTimeoutMs);
   }
 
   @Override
@@ -83,6 +132,7 @@ public class RestStreamClient implements StreamClient {
     } finally {
       httpResponse.close();
     }
+    existingStreams.put(stream, Boolean.TRUE);
   }
 
   @Override
@@ -139,27 +189,79 @@ public class RestStreamClient implements StreamClient {
 
   @Override
   public StreamWriter createWriter(String stream) throws IOException {
-    //get the Stream TTL for check does the requested Stream exist
-    long ttl = getTTL(stream);
-    LOG.debug("The Stream with id {} exists. Got the current Stream TTL value {} successfully.", stream, ttl);
-    PoolingHttpClientConnectionManager connectionManager = createConnectionManager();
-    connectionManager.setMaxTotal(writerPoolSize);
-    connectionManager.setDefaultMaxPerRoute(writerPoolSize);
-    RestClient writerRestClient = new RestClient(config, connectionManager);
-    return new RestStreamWriter(writerRestClient, writerPoolSize, stream);
+    checkStreamExists(stream);
+    AbstractRestStreamWriter writer;
+    if (asyncWriter) {
+      writer = new AsyncRestStreamWriter(getAsyncRestClient().retain(), stream, compression, compressionThreshold);
+    } else if (writerExecutor != null) {
+      writer = new RestStreamWriter(restClient.retain(), writerExecutor, stream, compression, compressionThreshold);
+    } else {
+      writer = new RestStreamWriter(restClient.retain(), writerPoolSize, stream, compression, compressionThreshold);
+    }
+    writer.setInFlightLimits(maxInFlightWrites, maxInFlightBytes, failFastWhenInFlightFull);
+    return writer;
   }
 
+  /**
+   * The writers remain usable: the connection pool is shut down once they are all closed too.
+   */
   @Override
   public void close() throws IOException {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
     restClient.close();
+    synchronized (this) {
+      if (asyncRestClient != null) {
+        asyncRestClient.close();
+      }
+    }
   }
 
-  private PoolingHttpClientConnectionManager createConnectionManager() {
-    if (connectionRegistry != null) {
-      return new PoolingHttpClientConnectionManager(connectionRegistry);
-    } else {
-      return new PoolingHttpClientConnectionManager();
+  /**
+   * Checks that the Stream exists, unless it was found recently.
+   *
+   * @param stream the name of the Stream
+   * @throws IOException if the Stream does not exist, or cannot be checked
+   */
+  private void checkStreamExists(String stream) throws IOException {
+    if (existingStreams.getIfPresent(stream) != null) {
+      return;
     }
+    //get the Stream TTL for check does the requested Stream exist
+    long ttl = getTTL(stream);
+    LOG.debug("The Stream with id {} exists. Got the current Stream TTL value {} successfully.", stream, ttl);
+    existingStreams.put(stream, Boolean.TRUE);
+  }
+
+  /**
+   * Retrieves the non-blocking client shared by the writers, created by the first one.
+   *
+   * @return the non-blocking client
+   * @throws IOException if the I/O reactor of the client cannot be created
+   */
+  private synchronized AsyncRestClient getAsyncRestClient() throws IOException {
+    if (asyncRestClient == null) {
+      Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+        .register("http", NoopIOSessionStrategy.INSTANCE)
+        .register("https", sslStrategy != null ? sslStrategy : SSLIOSessionStrategy.getDefaultStrategy())
+        .build();
+      PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+        new DefaultConnectingIOReactor(IOReactorConfig.custom().setIoThreadCount(ioThreads).build()), registry);
+      connectionManager.setMaxTotal(maxConnections);
+      connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+      asyncRestClient = new AsyncRestClient(config, connectionManager, keepAliveMs, idleConnectionTimeoutMs);
+    }
+    return asyncRestClient;
+  }
+
+  private PoolingHttpClientConnectionManager createConnectionManager() {
+    PoolingHttpClientConnectionManager connectionManager = connectionRegistry != null
+      ? new PoolingHttpClientConnectionManager(connectionRegistry)
+      : new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    return connectionManager;
   }
 
   /**
@@ -187,8 +289,21 @@ public class RestStreamClient implements StreamClient {
     private boolean ssl = false;
     private boolean verifySSLCert = true;
     private int writerPoolSize = DEFAULT_WRITER_POOL_SIZE;
+    private ExecutorService writerExecutor;
     private String version = DEFAULT_VERSION;
     private String namespace = DEFAULT_NAMESPACE;
+    private Compression compression = Compression.NONE;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private boolean asyncWriter = false;
+    private int ioThreads = DEFAULT_IO_THREADS;
+    private int maxInFlightWrites;
+    private long maxInFlightBytes;
+    private boolean failFastWhenInFlightFull = false;
+    private int maxConnectionsPerRoute;
+    private int maxConnections;
+    private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+    private long idleConnectionTimeoutMs = DEFAULT_IDLE_CONNECTION_TIMEOUT_MS;
+    private long streamCheckCacheMs = DEFAULT_STREAM_CHECK_CACHE_MS;
 
     public Builder(String host, int port) {
       this.host = host;
@@ -220,6 +335,18 @@ public class RestStreamClient implements StreamClient {
       return this;
     }
 
+    /**
+     * Sets the executor sending the events of all writers created by the client, instead of a pool of
+     * writerPoolSize threads per writer. The executor is not shut down when the writers are closed.
+     *
+     * @param writerExecutor the executor shared by the writers
+     * @return this builder
+     */
+    public Builder writerExecutor(ExecutorService writerExecutor) {
+      this.writerExecutor = writerExecutor;
+      return this;
+    }
+
     public Builder version(String version) {
       this.version = version;
       return this;
@@ -230,6 +357,140 @@ public class RestStreamClient implements StreamClient {
       return this;
     }
 
+    /**
+     * Sets the compression of the write request bodies. A non-blocking writer compresses the body of a write
+     * in the thread invoking the write, so the write returns only once the body is compressed.
+     *
+     * @param compression the compression; {@link Compression#NONE}, the default, to send the bodies as is
+     * @return this builder
+     */
+    public Builder compression(Compression compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    public Builder compressionThreshold(int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+    }
+
+    /**
+     * Sets whether the writers created by the client send the events without blocking, over an
+     * HttpAsyncClient: any number of writes may then be in progress at once, sent by ioThreads I/O dispatcher
+     * threads over the keep-alive connections of a pool shared by all non-blocking writers of the client,
+     * bounded by maxConnectionsPerRoute and maxConnections. The writerExecutor is not used by such writers.
+     *
+     * @param asyncWriter {@code true} for non-blocking writers
+     * @return this builder
+     */
+    public Builder asyncWriter(boolean asyncWriter) {
+      this.asyncWriter = asyncWriter;
+      return this;
+    }
+
+    /**
+     * Sets the number of I/O dispatcher threads shared by all non-blocking writers created by the client.
+     *
+     * @param ioThreads the number of threads
+     * @return this builder
+     */
+    public Builder ioThreads(int ioThreads) {
+      this.ioThreads = ioThreads;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of writes in progress of each writer created by the client; further writes wait
+     * for a previous one to complete, or fail if failFastWhenInFlightFull is set.
+     *
+     * @param maxInFlightWrites the maximum number of writes in progress; 0 for no limit, the default
+     * @return this builder
+     */
+    public Builder maxInFlightWrites(int maxInFlightWrites) {
+      this.maxInFlightWrites = maxInFlightWrites;
+      return this;
+    }
+
+    /**
+     * Sets the maximum total size of the events of the writes in progress of each writer created by the client;
+     * further writes wait for previous ones to complete, or fail if failFastWhenInFlightFull is set.
+     *
+     * @param maxInFlightBytes the maximum size in bytes; 0 for no limit, the default
+     * @return this builder
+     */
+    public Builder maxInFlightBytes(long maxInFlightBytes) {
+      this.maxInFlightBytes = maxInFlightBytes;
+      return this;
+    }
+
+    /**
+     * Sets whether a write exceeding maxInFlightWrites or maxInFlightBytes fails with
+     * {@link java.util.concurrent.RejectedExecutionException} instead of waiting.
+     *
+     * @param failFastWhenInFlightFull {@code true} to fail at once, {@code false} to wait, the default
+     * @return this builder
+     */
+    public Builder failFastWhenInFlightFull(boolean failFastWhenInFlightFull) {
+      this.failFastWhenInFlightFull = failFastWhenInFlightFull;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of connections to the gateway server in the pool shared by the client and
+     * its writers.
+     *
+     * @param maxConnectionsPerRoute the maximum number of connections per route; by default writerPoolSize
+     * @return this builder
+     */
+    public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+      this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of connections in the pool shared by the client and its writers.
+     *
+     * @param maxConnections the maximum number of connections; by default maxConnectionsPerRoute
+     * @return this builder
+     */
+    public Builder maxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * Sets how long a connection is kept alive for reuse, when the server responses carry no Keep-Alive header.
+     *
+     * @param keepAliveMs the keep-alive duration in milliseconds; 0 for no limit
+     * @return this builder
+     */
+    public Builder keepAliveMs(long keepAliveMs) {
+      this.keepAliveMs = keepAliveMs;
+      return this;
+    }
+
+    /**
+     * Sets the time after which an idle pooled connection is closed.
+     *
+     * @param idleConnectionTimeoutMs the idle timeout in milliseconds; 0 to keep idle connections open
+     * @return this builder
+     */
+    public Builder idleConnectionTimeoutMs(long idleConnectionTimeoutMs) {
+      this.idleConnectionTimeoutMs = idleConnectionTimeoutMs;
+      return this;
+    }
+
+    /**
+     * Sets how long a Stream found to exist by createWriter is not checked again by the following calls.
+     *
+     * @param streamCheckCacheMs the duration in milliseconds; 0 to check the Stream on every call
+     * @return this builder
+     */
+    public Builder streamCheckCacheMs(long streamCheckCacheMs) {
+      this.streamCheckCacheMs = streamCheckCacheMs;
+      return this;
+    }
+
     public RestStreamClient build() {
       return new RestStreamClient(this);
     }
@@ -16,85 +16,83 @@
 
 package co.cask.cdap.client.rest;
 
-import co.cask.cdap.client.StreamWriter;
-import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ByteArrayEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.util.Map;
+import java.net.URI;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Stream writer implementation used REST Api for write Streams to processing server.
  */
-public class RestStreamWriter implements StreamWriter {
+public class RestStreamWriter extends AbstractRestStreamWriter {
   private static final Logger LOG = LoggerFactory.getLogger(RestStreamWriter.class);
 
   private final RestClient restClient;
-  private final String streamName;
   private final ListeningExecutorService pool;
+  private final boolean sharedPool;
+  private final AtomicBoolean closed = new AtomicBoolean();
 
   public RestStreamWriter(RestClient restClient, int writerPoolSize, String streamName) {
-    this.restClient = restClient;
-    this.streamName = streamName;
-    this.pool = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(writerPoolSize));
+    this(restClient, writerPoolSize, streamName, Compression.NONE, 0);
   }
 
-  @Override
-  public ListenableFuture<Void> write(String str, Charset charset) {
-    return write(str, charset, ImmutableMap.<String, String>of());
+  public RestStreamWriter(RestClient restClient, int writerPoolSize, String streamName,
+                          Compression compression, int compressionThreshold) {
+    this(restClient, MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(writerPoolSize)), false,
+         streamName, compression, compressionThreshold);
   }
 
-  @Override
-  public ListenableFuture<Void> write(String str, Charset charset, Map<String, String> headers) throws
-    IllegalArgumentException {
-    Preconditions.checkNotNull(str, "Input string parameter is null.");
-    return write(new ByteArrayEntity(charset != null ? str.getBytes(charset) : str.getBytes()), headers);
+  /**
+   * Creates a writer sending the events on the given executor, which may be shared with other writers,
+   * and is not shut down when this writer is closed.
+   *
+   * @param restClient the client of this writer
+   * @param writerExecutor the executor sending the events
+   * @param streamName the name of the Stream
+   * @param compression the compression of the requests
+   * @param compressionThreshold the minimum size in bytes of a request to be compressed
+   */
+  public RestStreamWriter(RestClient restClient, ExecutorService writerExecutor, String streamName,
+                          Compression compression, int compressionThreshold) {
+    this(restClient, MoreExecutors.listeningDecorator(writerExecutor), true, streamName, compression,
+         compressionThreshold);
   }
 
-  @Override
-  public ListenableFuture<Void> write(ByteBuffer buffer) {
-    return write(buffer, ImmutableMap.<String, String>of());
+  private RestStreamWriter(RestClient restClient, ListeningExecutorService pool, boolean sharedPool,
+                           String streamName, Compression compression, int compressionThreshold) {
+    super(streamName, compression, compressionThreshold);
+    this.restClient = restClient;
+    this.pool = pool;
+    this.sharedPool = sharedPool;
   }
 
   @Override
-  public ListenableFuture<Void> write(ByteBuffer buffer, Map<String, String> headers) throws IllegalArgumentException {
-    Preconditions.checkNotNull(buffer, "ByteBuffer parameter is null.");
-    HttpEntity content;
-    if (buffer.hasArray()) {
-      content = new ByteArrayEntity(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
-    } else {
-      byte[] bytes = new byte[buffer.remaining()];
-      buffer.get(bytes);
-      content = new ByteArrayEntity(bytes);
-    }
-    return write(content, headers);
+  protected URI resolve(String relativePath) {
+    return restClient.resolve(relativePath);
   }
 
-  private ListenableFuture<Void> write(HttpEntity entity, Map<String, String> headers) {
-    final HttpPost postRequest = new HttpPost(restClient.resolve(String.format("/streams/%s", streamName)));
-
-    for (Map.Entry<String, String> entry : headers.entrySet()) {
-      postRequest.setHeader(streamName + "." + entry.getKey(), entry.getValue());
-    }
-
-    postRequest.setEntity(entity);
+  @Override
+  protected String getVersion() {
+    return restClient.getVersion();
+  }
 
+  @Override
+  protected ListenableFuture<Void> execute(final HttpPost postRequest, final HttpEntity entity) {
     return pool.submit(new Callable<Void>() {
       @Override
       public Void call() throws Exception {
+        postRequest.setEntity(compress(entity));
         CloseableHttpResponse response = restClient.execute(postRequest);
         try {
           LOG.info("Write stream execute with response: " + response);
@@ -107,13 +105,17 @@ public class RestStreamWriter implements StreamWriter {
     });
   }
 
+  /**
+   * Releases the client of this writer, which is closed once no Stream client or writer uses it any more.
+   */
   @Override
   public void close() throws IOException {
-    pool.shutdown();
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    if (!sharedPool) {
+      pool.shutdown();
+    }
     restClient.close();
   }
-
-  public String getStreamName() {
-    return streamName;
-  }
 }
@@ -16,11 +16,17 @@
 
 package co.cask.cdap.client.rest;
 
+import org.apache.http.HttpResponse;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.protocol.HttpContext;
 
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
@@ -38,6 +44,45 @@ public final class RestUtil {
   private RestUtil() { }
 
   public static Registry<ConnectionSocketFactory> getRegistryWithDisabledCertCheck()
+    throws KeyManagementException, NoSuchAlgorithmException {
+    SSLConnectionSocketFactory sf = new SSLConnectionSocketFactory(
+      getSSLContextWithDisabledCertCheck(), SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+    return RegistryBuilder
+      .<ConnectionSocketFactory>create().register("https", sf)
+      .register("http", PlainConnectionSocketFactory.getSocketFactory())
+      .build();
+  }
+
+  /**
+   * Creates the SSL strategy of the non-blocking HttpAsyncClient, which accepts any server certificate.
+   *
+   * @return the SSL strategy with disabled certificate check
+   */
+  public static SchemeIOSessionStrategy getSSLStrategyWithDisabledCertCheck()
+    throws KeyManagementException, NoSuchAlgorithmException {
+    return new SSLIOSessionStrategy(getSSLContextWithDisabledCertCheck(),
+                                    SSLIOSessionStrategy.ALLOW_ALL_HOSTNAME_VERIFIER);
+  }
+
+  /**
+   * Creates the strategy keeping the connections alive for the duration given by the Keep-Alive header of the
+   * server responses, or for the given duration if there is no such header.
+   *
+   * @param defaultKeepAliveMs the keep-alive duration in milliseconds; 0 to keep the connections alive
+   *                           indefinitely
+   * @return the keep-alive strategy
+   */
+  public static ConnectionKeepAliveStrategy getKeepAliveStrategy(final long defaultKeepAliveMs) {
+    return new ConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 || defaultKeepAliveMs <= 0 ? duration : defaultKeepAliveMs;
+      }
+    };
+  }
+
+  private static SSLContext getSSLContextWithDisabledCertCheck()
     throws KeyManagementException, NoSuchAlgorithmException {
     SSLContext sslContext = SSLContext.getInstance("SSL");
     sslContext.init(null, new TrustManager[]{new X509TrustManager() {
@@ -56,12 +101,7 @@ public final class RestUtil {
         throws CertificateException {
       }
     }}, new SecureRandom());
-    SSLConnectionSocketFactory sf = new SSLConnectionSocketFactory(
-      sslContext, SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-    return RegistryBuilder
-      .<ConnectionSocketFactory>create().register("https", sf)
-      .register("http", PlainConnectionSocketFactory.getSocketFactory())
-      .build();
+    return sslContext;
   }
 
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.client.rest;
+
+import co.cask.cdap.security.authentication.client.AuthenticationClient;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tests the non-blocking rest stream writer for API v2.
+ */
+public class AsyncRestStreamWriterTestV2 extends RestStreamWriterTest {
+
+  protected RestStreamClient buildClient(AuthenticationClient authClient) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2")
+      .authClient(authClient).asyncWriter(true).ioThreads(1).build();
+  }
+
+  protected RestStreamClient buildCompressingClient(int compressionThreshold) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2")
+      .compression(Compression.GZIP).compressionThreshold(compressionThreshold).asyncWriter(true).build();
+  }
+
+  protected RestStreamClient buildSharedExecutorClient(ExecutorService writerExecutor) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2")
+      .writerExecutor(writerExecutor).asyncWriter(true).build();
+  }
+
+  protected RestStreamClient buildInFlightLimitedClient(int maxInFlightWrites, long maxInFlightBytes,
+                                                        boolean failFast) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2").asyncWriter(true)
+      .maxInFlightWrites(maxInFlightWrites).maxInFlightBytes(maxInFlightBytes).failFastWhenInFlightFull(failFast)
+      .build();
+  }
+}
@@ -22,17 +22,30 @@ import co.cask.cdap.security.authentication.client.AccessToken;
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
 import co.cask.common.http.exception.HttpFailureException;
 import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.commons.lang.StringUtils;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.Assert.assertEquals;
 
@@ -41,11 +54,24 @@ import static org.junit.Assert.assertEquals;
  */
 public abstract class RestStreamWriterTest extends RestTest {
 
+  private static final int BATCH_SIZE = 10;
+  private static final int CONCURRENT_WRITES = 1000;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   private StreamClient streamClient;
   private StreamWriter streamWriter;
 
   protected abstract RestStreamClient buildClient(AuthenticationClient authClient);
 
+  protected abstract RestStreamClient buildCompressingClient(int compressionThreshold);
+
+  protected abstract RestStreamClient buildSharedExecutorClient(ExecutorService writerExecutor);
+
+  protected abstract RestStreamClient buildInFlightLimitedClient(int maxInFlightWrites, long maxInFlightBytes,
+                                                                 boolean failFast);
+
   private void createClient(AuthenticationClient authClient) throws IOException {
     if (streamClient != null) {
       streamClient.close();
@@ -222,6 +248,190 @@ public abstract class RestStreamWriterTest extends RestTest {
     streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8, headers).get();
   }
 
+  @Test
+  public void testSuccessBatchWrite() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    streamWriter.writeBatch(createBatch(RestTest.EXPECTED_WRITER_CONTENT, BATCH_SIZE)).get();
+  }
+
+  @Test
+  public void testEmptyBatchWrite() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    streamWriter.writeBatch(Collections.<ByteBuffer>emptyList()).get();
+  }
+
+  @Test
+  public void testMultiLineEventsBatchWrite() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.ALLOW_ANY_EVENT_STREAM);
+    streamWriter.writeBatch(createBatch("First line\nSecond line", BATCH_SIZE)).get();
+  }
+
+  @Test
+  public void testBadRequestBatchWrite() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.BAD_REQUEST_STREAM_NAME +
+                                               TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    try {
+      streamWriter.writeBatch(createBatch(RestTest.EXPECTED_WRITER_CONTENT, BATCH_SIZE)).get();
+      Assert.fail("Expected HttpFailureException");
+    } catch (ExecutionException e) {
+      assertEquals(HttpFailureException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testSuccessBatchWithHeadersWrite() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.WITH_CUSTOM_HEADER_STREAM_NAME
+                                               + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    Map<String, String> headers = new HashMap<String, String>();
+    headers.put(TEST_HEADER_NAME, TEST_HEADER_VALUE);
+    streamWriter.writeBatch(createBatch(RestTest.EXPECTED_WRITER_CONTENT, BATCH_SIZE), headers).get();
+  }
+
+  @Test
+  public void testSuccessFileBatchWrite() throws Exception {
+    String skipped = "Skipped line\n";
+    StringBuilder content = new StringBuilder(skipped);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      content.append(RestTest.EXPECTED_WRITER_CONTENT).append('\n');
+    }
+    File file = tempFolder.newFile();
+    Files.write(content.toString(), file, Charsets.UTF_8);
+    streamWriter = streamClient.createWriter(TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    streamWriter.writeBatch(file, skipped.length(), file.length() - skipped.length()).get();
+  }
+
+  @Test
+  public void testBadRequestFileBatchWrite() throws Exception {
+    File file = tempFolder.newFile();
+    Files.write(RestTest.EXPECTED_WRITER_CONTENT + "\n", file, Charsets.UTF_8);
+    streamWriter = streamClient.createWriter(TestUtils.BAD_REQUEST_STREAM_NAME +
+                                               TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    try {
+      streamWriter.writeBatch(file, 0, file.length()).get();
+      Assert.fail("Expected HttpFailureException");
+    } catch (ExecutionException e) {
+      assertEquals(HttpFailureException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testCompressedStringWrite() throws Exception {
+    streamClient.close();
+    streamClient = buildCompressingClient(0);
+    streamWriter = streamClient.createWriter(TestUtils.COMPRESSED_STREAM_NAME
+                                               + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+  }
+
+  @Test
+  public void testCompressedBatchWrite() throws Exception {
+    streamClient.close();
+    streamClient = buildCompressingClient(0);
+    streamWriter = streamClient.createWriter(TestUtils.COMPRESSED_STREAM_NAME
+                                               + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    streamWriter.writeBatch(createBatch(RestTest.EXPECTED_WRITER_CONTENT, BATCH_SIZE)).get();
+  }
+
+  @Test
+  public void testBelowThresholdWriteNotCompressed() throws Exception {
+    streamClient.close();
+    streamClient = buildCompressingClient(RestTest.EXPECTED_WRITER_CONTENT.length() + 1);
+    streamWriter = streamClient.createWriter(TestUtils.COMPRESSED_STREAM_NAME
+                                               + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    try {
+      streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+      Assert.fail("Expected HttpFailureException");
+    } catch (ExecutionException e) {
+      assertEquals(HttpFailureException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testSharedExecutorWrite() throws Exception {
+    ExecutorService writerExecutor = Executors.newSingleThreadExecutor();
+    try {
+      streamClient.close();
+      streamClient = buildSharedExecutorClient(writerExecutor);
+      String streamName = TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX;
+      StreamWriter firstWriter = streamClient.createWriter(streamName);
+      firstWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+      firstWriter.close();
+      // the executor shared by the writers outlives each one of them
+      Assert.assertFalse(writerExecutor.isShutdown());
+      streamWriter = streamClient.createWriter(streamName);
+      streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+    } finally {
+      writerExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testManyConcurrentWrites() throws Exception {
+    streamWriter = streamClient.createWriter(TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX);
+    List<ListenableFuture<Void>> futures = new ArrayList<ListenableFuture<Void>>(CONCURRENT_WRITES);
+    for (int i = 0; i < CONCURRENT_WRITES; i++) {
+      futures.add(streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8));
+    }
+    Futures.allAsList(futures).get();
+  }
+
+  @Test
+  public void testWritersShareClient() throws Exception {
+    String streamName = TestUtils.SUCCESS_STREAM_NAME + TestUtils.WRITER_TEST_STREAM_NAME_POSTFIX;
+    StreamWriter firstWriter = streamClient.createWriter(streamName);
+    streamWriter = streamClient.createWriter(streamName);
+    firstWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+    firstWriter.close();
+    // closing a writer, or the Stream client, leaves the connections of the other writers open
+    streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+    streamClient.close();
+    streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+  }
+
+  @Test
+  public void testInFlightWritesLimitFailsFast() throws Exception {
+    streamClient.close();
+    streamClient = buildInFlightLimitedClient(1, 0, true);
+    streamWriter = streamClient.createWriter(TestUtils.SLOW_STREAM_NAME);
+    AbstractRestStreamWriter writer = (AbstractRestStreamWriter) streamWriter;
+    ListenableFuture<Void> first = streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8);
+    Assert.assertEquals(1, writer.getInFlightWrites());
+    Assert.assertEquals(RestTest.EXPECTED_WRITER_CONTENT.length(), writer.getInFlightBytes());
+    try {
+      streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+      Assert.fail("Expected RejectedExecutionException");
+    } catch (ExecutionException e) {
+      assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+    }
+    first.get();
+    Assert.assertEquals(0, writer.getInFlightWrites());
+    Assert.assertEquals(0, writer.getInFlightBytes());
+    streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8).get();
+  }
+
+  @Test
+  public void testInFlightBytesLimitBlocks() throws Exception {
+    streamClient.close();
+    streamClient = buildInFlightLimitedClient(0, RestTest.EXPECTED_WRITER_CONTENT.length() + 1, false);
+    streamWriter = streamClient.createWriter(TestUtils.SLOW_STREAM_NAME);
+    AbstractRestStreamWriter writer = (AbstractRestStreamWriter) streamWriter;
+    ListenableFuture<Void> first = streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8);
+    // the second write does not fit next to the first one, so it waits for its completion
+    ListenableFuture<Void> second = streamWriter.write(RestTest.EXPECTED_WRITER_CONTENT, Charsets.UTF_8);
+    Assert.assertEquals(1, writer.getInFlightWrites());
+    first.get();
+    second.get();
+    Assert.assertEquals(0, writer.getInFlightWrites());
+  }
+
+  private List<ByteBuffer> createBatch(String event, int size) {
+    List<ByteBuffer> batch = new ArrayList<ByteBuffer>(size);
+    for (int i = 0; i < size; i++) {
+      batch.add(ByteBuffer.wrap(event.getBytes(Charsets.UTF_8)));
+    }
+    return batch;
+  }
+
   @After
   public void shutDown() throws Exception {
     if (streamWriter != null) {
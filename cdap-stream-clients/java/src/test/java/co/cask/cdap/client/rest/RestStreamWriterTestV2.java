@@ -18,6 +18,8 @@ package co.cask.cdap.client.rest;
 
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Tests the rest stream writer for API v2.
  */
@@ -26,4 +28,21 @@ public class RestStreamWriterTestV2 extends RestStreamWriterTest {
   protected RestStreamClient buildClient(AuthenticationClient authClient) {
     return RestStreamClient.builder(testServerHost, testServerPort).version("v2").authClient(authClient).build();
   }
+
+  protected RestStreamClient buildCompressingClient(int compressionThreshold) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2")
+      .compression(Compression.GZIP).compressionThreshold(compressionThreshold).build();
+  }
+
+  protected RestStreamClient buildSharedExecutorClient(ExecutorService writerExecutor) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2").writerExecutor(writerExecutor)
+      .build();
+  }
+
+  protected RestStreamClient buildInFlightLimitedClient(int maxInFlightWrites, long maxInFlightBytes,
+                                                        boolean failFast) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v2")
+      .maxInFlightWrites(maxInFlightWrites).maxInFlightBytes(maxInFlightBytes).failFastWhenInFlightFull(failFast)
+      .build();
+  }
 }
@@ -18,6 +18,8 @@ package co.cask.cdap.client.rest;
 
 import co.cask.cdap.security.authentication.client.AuthenticationClient;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Tests the rest stream writer for API v2.
  */
@@ -27,4 +29,21 @@ public class RestStreamWriterTestV3 extends RestStreamWriterTest {
     return RestStreamClient.builder(testServerHost, testServerPort)
       .version("v3").namespace("default").authClient(authClient).build();
   }
+
+  protected RestStreamClient buildCompressingClient(int compressionThreshold) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v3").namespace("default")
+      .compression(Compression.GZIP).compressionThreshold(compressionThreshold).build();
+  }
+
+  protected RestStreamClient buildSharedExecutorClient(ExecutorService writerExecutor) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v3").namespace("default")
+      .writerExecutor(writerExecutor).build();
+  }
+
+  protected RestStreamClient buildInFlightLimitedClient(int maxInFlightWrites, long maxInFlightBytes,
+                                                        boolean failFast) {
+    return RestStreamClient.builder(testServerHost, testServerPort).version("v3").namespace("default")
+      .maxInFlightWrites(maxInFlightWrites).maxInFlightBytes(maxInFlightBytes).failFastWhenInFlightFull(failFast)
+      .build();
+  }
 }
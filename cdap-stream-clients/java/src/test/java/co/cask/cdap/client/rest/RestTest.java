@@ -16,6 +16,7 @@
 
 package co.cask.cdap.client.rest;
 
+import co.cask.cdap.client.rest.handlers.StreamBatchHttpRequestHandler;
 import co.cask.cdap.client.rest.handlers.StreamConfigHttpRequestHandler;
 import co.cask.cdap.client.rest.handlers.StreamHttpRequestHandler;
 import co.cask.cdap.client.rest.handlers.StreamInfoHttpRequestHandler;
@@ -43,6 +44,7 @@ public class RestTest {
   private final HttpRequestHandler configHandler = new StreamConfigHttpRequestHandler();
   private final HttpRequestHandler infoHandler = new StreamInfoHttpRequestHandler();
   private final HttpRequestHandler truncateHandler = new StreamTruncateHttpRequestHandler();
+  private final HttpRequestHandler batchHandler = new StreamBatchHttpRequestHandler();
   private final HttpRequestHandler streamsHandler = new StreamHttpRequestHandler();
 
   @Before
@@ -51,6 +53,7 @@ public class RestTest {
     localTestServer.register("*/config", configHandler);
     localTestServer.register("*/truncate", truncateHandler);
     localTestServer.register("*/info", infoHandler);
+    localTestServer.register("*/batch", batchHandler);
     localTestServer.register("*", streamsHandler);
     localTestServer.start();
     testServerHost = localTestServer.getServiceAddress().getHostName();
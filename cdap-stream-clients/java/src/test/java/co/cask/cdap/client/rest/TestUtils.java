@@ -19,11 +19,14 @@ package co.cask.cdap.client.rest;
 import co.cask.common.http.exception.HttpFailureException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.junit.Assert;
 
+import java.io.IOException;
 import java.util.concurrent.Callable;
 import javax.ws.rs.core.HttpHeaders;
 
@@ -42,6 +45,10 @@ public final class TestUtils {
   public static final String FILE_STREAM_NAME = "file";
   public static final String WITH_CUSTOM_HEADER_STREAM_NAME = "withHeader";
   public static final String ALLOW_ANY_EVENT_STREAM = "anyEventAllowed";
+  public static final String COMPRESSED_STREAM_NAME = "compressed";
+  public static final String SLOW_STREAM_NAME = "slow";
+  public static final long SLOW_RESPONSE_MS = 500;
+  public static final String GZIP_CONTENT_ENCODING = "gzip";
 
   private TestUtils() {
   }
@@ -63,7 +70,8 @@ public final class TestUtils {
     if (StringUtils.isEmpty(streamName)) {
       code = HttpStatus.SC_INTERNAL_SERVER_ERROR;
     } else if (SUCCESS_STREAM_NAME.equals(streamName) || TestUtils.FILE_STREAM_NAME.equals(streamName)
-      || ALLOW_ANY_EVENT_STREAM.equals(streamName)) {
+      || ALLOW_ANY_EVENT_STREAM.equals(streamName) || COMPRESSED_STREAM_NAME.equals(streamName)
+      || SLOW_STREAM_NAME.equals(streamName)) {
       code = HttpStatus.SC_OK;
     } else if (NOT_FOUND_STREAM_NAME.equals(streamName)) {
       code = HttpStatus.SC_NOT_FOUND;
@@ -93,6 +101,22 @@ public final class TestUtils {
     return statusCode;
   }
 
+  public static int checkCompressed(HttpRequest httpRequest) {
+    Header encodingHeader = httpRequest.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+    if (encodingHeader != null && GZIP_CONTENT_ENCODING.equals(encodingHeader.getValue())) {
+      return HttpStatus.SC_OK;
+    }
+    return HttpStatus.SC_BAD_REQUEST;
+  }
+
+  public static String getContent(HttpEntity entity) throws IOException {
+    Header encodingHeader = entity.getContentEncoding();
+    if (encodingHeader != null && GZIP_CONTENT_ENCODING.equals(encodingHeader.getValue())) {
+      return RestClient.toString(new GzipDecompressingEntity(entity));
+    }
+    return RestClient.toString(entity);
+  }
+
   public static void verifyException(Class<? extends RuntimeException> expectedException, Callable<Void> callable) {
     try {
       callable.call();
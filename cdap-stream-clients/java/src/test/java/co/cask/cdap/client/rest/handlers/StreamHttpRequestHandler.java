@@ -16,7 +16,6 @@
 
 package co.cask.cdap.client.rest.handlers;
 
-import co.cask.cdap.client.rest.RestClient;
 import co.cask.cdap.client.rest.RestTest;
 import co.cask.cdap.client.rest.TestUtils;
 import org.apache.commons.lang.StringUtils;
@@ -38,6 +37,9 @@ import javax.ws.rs.HttpMethod;
  * The http request handler implementation to test client's requests to the REST Stream API.
  */
 public class StreamHttpRequestHandler implements HttpRequestHandler {
+
+  private final HttpRequestHandler infoHandler = new StreamInfoHttpRequestHandler();
+
   @Override
   public void handle(HttpRequest httpRequest, HttpResponse response, HttpContext httpContext)
     throws HttpException, IOException {
@@ -65,6 +67,15 @@ public class StreamHttpRequestHandler implements HttpRequestHandler {
         } else {
           statusCode = HttpStatus.SC_BAD_REQUEST;
         }
+      } else if (TestUtils.COMPRESSED_STREAM_NAME.equals(streamName)) {
+        statusCode = TestUtils.checkCompressed(httpRequest);
+      } else if (TestUtils.SLOW_STREAM_NAME.equals(streamName)) {
+        try {
+          Thread.sleep(TestUtils.SLOW_RESPONSE_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        statusCode = TestUtils.getStatusCodeByStreamName(streamName);
       } else {
         statusCode = TestUtils.getStatusCodeByStreamName(streamName);
       }
@@ -73,7 +84,7 @@ public class StreamHttpRequestHandler implements HttpRequestHandler {
         BasicHttpEntityEnclosingRequest request = (BasicHttpEntityEnclosingRequest) httpRequest;
         HttpEntity requestEntity = request.getEntity();
         if (requestEntity != null) {
-          String content = RestClient.toString(requestEntity);
+          String content = TestUtils.getContent(requestEntity);
           if (!RestTest.EXPECTED_WRITER_CONTENT.equals(content) &&
             !TestUtils.ALLOW_ANY_EVENT_STREAM.equals(streamName)) {
             statusCode = HttpStatus.SC_INTERNAL_SERVER_ERROR;
@@ -82,6 +93,10 @@ public class StreamHttpRequestHandler implements HttpRequestHandler {
           statusCode = HttpStatus.SC_BAD_REQUEST;
         }
       }
+    } else if (HttpMethod.GET.equals(method)) {
+      //the v3 API provides the Stream information on the Stream path itself
+      infoHandler.handle(httpRequest, response, httpContext);
+      return;
     } else {
       statusCode = HttpStatus.SC_NOT_IMPLEMENTED;
     }